@@ -3,12 +3,25 @@ package com.example.naive_bayes_classifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+import java.util.List;
+
 @SpringBootApplication
 public class NaiveBayesClassifierApplication {
 
 	public static void main(String[] args) {
 
+        // --batch: headless batch classification, no web server (see BatchClassificationRunner)
+        // --loadtest: load generator against a running instance, no web server (see LoadTestRunner)
+        List<String> arguments = Arrays.asList(args);
+        String tool = arguments.contains("--batch") ? "batch" : arguments.contains("--loadtest") ? "loadtest" : null;
+        if (tool != null) {
+            SpringApplication application = new SpringApplication(NaiveBayesClassifierApplication.class);
+            application.setAdditionalProfiles(tool);
+            System.exit(SpringApplication.exit(application.run(args)));
+        }
+
         SpringApplication.run(NaiveBayesClassifierApplication.class, args);
 	}
 
-}
\ No newline at end of file
+}
@@ -2,11 +2,20 @@ package com.example.naive_bayes_classifier.controller;
 
 import com.example.naive_bayes_classifier.model.*;
 import com.example.naive_bayes_classifier.service.*;
+import com.example.naive_bayes_classifier.utils.CompactResultEncoder;
+import com.example.naive_bayes_classifier.utils.LimitedInputStream;
 import com.example.naive_bayes_classifier.utils.MetricsCalculator;
+import com.example.naive_bayes_classifier.utils.PreprocessedCorpusReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.nio.file.Path;
 import java.util.*;
 
 @RestController
@@ -14,6 +23,9 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class ClassificationController {
 
+    // Version of the model that produced a response (category ids are per version)
+    public static final String MODEL_VERSION_HEADER = "X-Model-Version";
+
     @Autowired
     private NaiveBayesService naiveBayesService;
 
@@ -23,6 +35,48 @@ public class ClassificationController {
     @Autowired
     private MetricsCalculator metricsCalculator;
 
+    @Autowired
+    private ClassificationCacheService cacheService;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    @Autowired
+    private StemmerBenchmarkService stemmerBenchmarkService;
+
+    @Autowired
+    private FeatureBenchmarkService featureBenchmarkService;
+
+    @Autowired
+    private HyperparameterSweepService hyperparameterSweepService;
+
+    @Autowired
+    private CompactResultEncoder compactResultEncoder;
+
+    @Autowired
+    private DocumentIngestionService ingestionService;
+
+    @Autowired
+    private AdmissionControlService admissionControl;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private CountShardService countShardService;
+
+    @Autowired
+    private TrainingDataWatcher trainingDataWatcher;
+
+    @Autowired
+    private HierarchicalClassificationService hierarchicalService;
+
+    @Autowired
+    private DriftMonitoringService driftMonitoringService;
+
+    @Autowired
+    private SegmentClassificationService segmentClassificationService;
+
     /**
      * Ping endpoint
      */
@@ -65,7 +119,9 @@ public class ClassificationController {
      */
     @PostMapping("/train-evaluate")
     public ResponseEntity<?> trainAndEvaluate(
-            @RequestParam(defaultValue = "0.2") double testRatio) {
+            @RequestParam(defaultValue = "0.2") double testRatio,
+            @RequestParam(required = false) String scorer,
+            @RequestParam(required = false) String calibration) {
 
         try {
             List<TrainingDocument> documents = trainingService.loadTrainingData();
@@ -83,10 +139,12 @@ public class ClassificationController {
 
             naiveBayesService.train(trainSet);
 
-            EvaluationMetrics metrics = metricsCalculator.evaluate(naiveBayesService, testSet);
+            EvaluationMetrics metrics = metricsCalculator.evaluate(naiveBayesService, testSet, scorer);
+            Map<String, Object> calibrationSummary = naiveBayesService.calibrateTexts(testSet, calibration);
 
             return ResponseEntity.ok(Map.of(
                     "message", "Training & evaluation completed",
+                    "scorer", naiveBayesService.resolveScorer(scorer).getKey(),
                     "trainSize", trainSet.size(),
                     "testSize", testSet.size(),
                     "metrics", Map.of(
@@ -94,10 +152,15 @@ public class ClassificationController {
                             "precision", metrics.getPrecision(),
                             "recall", metrics.getRecall(),
                             "f1Score", metrics.getF1Score(),
-                            "macroAverage", metrics.getMacroAverages()
+                            "macroAverage", metrics.getMacroAverages(),
+                            "microAverage", metrics.getMicroAverages(),
+                            "weightedAverage", metrics.getWeightedAverages(),
+                            "logLoss", metrics.getLogLoss(),
+                            "support", metrics.getSupport()
                     ),
                     "confusionMatrix", metrics.getConfusionMatrix(),
-                    "categoryIndices", metrics.getCategoryIndices()
+                    "categoryIndices", metrics.getCategoryIndices(),
+                    "calibration", calibrationSummary
             ));
 
         } catch (Exception e) {
@@ -106,6 +169,143 @@ public class ClassificationController {
         }
     }
 
+    /**
+     * Preprocess Data/ once and export it as a compact corpus file
+     */
+    @PostMapping("/corpus/export")
+    public ResponseEntity<?> exportCorpus() {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "message", "Preprocessed corpus exported",
+                    "corpus", trainingService.exportPreprocessedCorpus()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Corpus export failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Train directly from the preprocessed corpus (no re-stemming)
+     */
+    @PostMapping("/corpus/train")
+    public ResponseEntity<?> trainFromCorpus() {
+        try (PreprocessedCorpusReader reader = trainingService.openPreprocessedCorpus()) {
+            naiveBayesService.trainPreprocessed(reader, reader.getMetadata().get("stemmer"));
+
+            return ResponseEntity.ok(Map.of(
+                    "message", "Model trained successfully from preprocessed corpus",
+                    "corpusMetadata", reader.getMetadata(),
+                    "stats", naiveBayesService.getModelStats()
+            ));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Training failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Train & evaluate from the preprocessed corpus with train/test split
+     */
+    @PostMapping("/corpus/train-evaluate")
+    public ResponseEntity<?> trainAndEvaluateFromCorpus(
+            @RequestParam(defaultValue = "0.2") double testRatio,
+            @RequestParam(required = false) String scorer,
+            @RequestParam(required = false) String calibration) {
+
+        try (PreprocessedCorpusReader reader = trainingService.openPreprocessedCorpus()) {
+            Map<String, List<Integer>> split =
+                    trainingService.splitTrainTestIndices(reader.getDocumentCount(), testRatio);
+
+            List<Integer> trainIndices = split.get("train");
+            List<Integer> testIndices = split.get("test");
+
+            naiveBayesService.trainPreprocessed(reader.documents(trainIndices),
+                    reader.getMetadata().get("stemmer"));
+
+            EvaluationMetrics metrics = metricsCalculator.evaluatePreprocessed(
+                    naiveBayesService, reader.documents(testIndices), scorer);
+            Map<String, Object> calibrationSummary = naiveBayesService.calibrate(
+                    reader.documents(testIndices), calibration);
+
+            return ResponseEntity.ok(Map.of(
+                    "message", "Training & evaluation completed",
+                    "scorer", naiveBayesService.resolveScorer(scorer).getKey(),
+                    "trainSize", trainIndices.size(),
+                    "testSize", testIndices.size(),
+                    "metrics", Map.of(
+                            "accuracy", metrics.getAccuracy(),
+                            "precision", metrics.getPrecision(),
+                            "recall", metrics.getRecall(),
+                            "f1Score", metrics.getF1Score(),
+                            "macroAverage", metrics.getMacroAverages(),
+                            "microAverage", metrics.getMicroAverages(),
+                            "weightedAverage", metrics.getWeightedAverages(),
+                            "logLoss", metrics.getLogLoss(),
+                            "support", metrics.getSupport()
+                    ),
+                    "confusionMatrix", metrics.getConfusionMatrix(),
+                    "categoryIndices", metrics.getCategoryIndices(),
+                    "calibration", calibrationSummary
+            ));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Training/Evaluation failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Count one slice of the training data and write it as a count shard
+     * (run once per worker with the same shardCount)
+     */
+    @PostMapping("/shards/export")
+    public ResponseEntity<?> exportShard(
+            @RequestParam(defaultValue = "0") int shardIndex,
+            @RequestParam(defaultValue = "1") int shardCount,
+            @RequestParam(required = false) String file) {
+        try {
+            String name = file != null ? file
+                    : "shard-" + shardIndex + "-of-" + shardCount + CountShardService.SHARD_EXTENSION;
+            return ResponseEntity.ok(Map.of(
+                    "message", "Count shard exported",
+                    "shard", countShardService.exportShard(shardIndex, shardCount, countShardService.resolveShard(name))
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Shard export failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Merge count shards (all shards in the shard directory by default) into the current model
+     */
+    @PostMapping("/shards/merge")
+    public ResponseEntity<?> mergeShards(@RequestParam(required = false) List<String> files) {
+        try {
+            List<Path> paths = new ArrayList<>();
+            if (files != null) {
+                for (String file : files) {
+                    paths.add(countShardService.resolveShard(file));
+                }
+            }
+            Map<String, Object> merge = countShardService.mergeShards(paths);
+            return ResponseEntity.ok(Map.of(
+                    "message", "Model trained successfully from count shards",
+                    "merge", merge,
+                    "stats", naiveBayesService.getModelStats()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Shard merge failed", "message", e.getMessage()));
+        }
+    }
+
     /**
      * Classify text
      */
@@ -130,9 +330,16 @@ public class ClassificationController {
                         ));
             }
 
-            ClassificationResult result = naiveBayesService.classify(request.getText());
-            return ResponseEntity.ok(result);
+            NaiveBayesService.ModelSnapshot snapshot = naiveBayesService.snapshot();
+            ClassificationResult result = admissionControl.call(AdmissionControlService.Priority.INTERACTIVE,
+                    () -> naiveBayesService.classify(snapshot, request.getText(), request.getScorer(),
+                            request.getTopK(), request.getExplain()));
+            return ResponseEntity.ok()
+                    .header(MODEL_VERSION_HEADER, String.valueOf(snapshot.getVersion()))
+                    .body(result);
 
+        } catch (AdmissionControlService.AdmissionRejectedException e) {
+            return handleRejected(e, null);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of(
@@ -142,6 +349,165 @@ public class ClassificationController {
         }
     }
 
+    /**
+     * Classify text, compact binary response (Accept: application/x-nb-compact)
+     */
+    @PostMapping(
+            value = "/classify",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = CompactResultEncoder.MEDIA_TYPE
+    )
+    public ResponseEntity<byte[]> classifyCompact(@RequestBody ClassificationRequest request) {
+        requireClassifiable(Collections.singletonList(request.getText()));
+
+        // Classified and encoded against the same model, so category ids match the version sent
+        NaiveBayesService.ModelSnapshot snapshot = naiveBayesService.snapshot();
+        // The compact encoding has no room for explanations
+        ClassificationResult result = admissionControl.call(AdmissionControlService.Priority.INTERACTIVE,
+                () -> naiveBayesService.classify(snapshot, request.getText(), request.getScorer(),
+                        request.getTopK(), null));
+        return compact(List.of(result), snapshot);
+    }
+
+    /**
+     * Classify a long document by segment (paragraphs or stem windows):
+     * a label per segment plus the document-level distribution
+     */
+    @PostMapping(
+            value = "/classify/segments",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<?> classifySegments(
+            @RequestBody ClassificationRequest request,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) Integer windowSize,
+            @RequestParam(required = false) Integer stride) {
+        try {
+            if (request.getText() == null || request.getText().trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Text cannot be empty"));
+            }
+            if (!naiveBayesService.isTrained()) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                        .body(Map.of(
+                                "error", "Model not trained",
+                                "message", "Please call /train first"
+                        ));
+            }
+
+            NaiveBayesService.ModelSnapshot snapshot = naiveBayesService.snapshot();
+            SegmentedClassificationResult result = admissionControl.call(AdmissionControlService.Priority.INTERACTIVE,
+                    () -> segmentClassificationService.classify(snapshot, request.getText(), mode, windowSize, stride,
+                            request.getScorer(), request.getTopK()));
+            return ResponseEntity.ok()
+                    .header(MODEL_VERSION_HEADER, String.valueOf(snapshot.getVersion()))
+                    .body(result);
+
+        } catch (AdmissionControlService.AdmissionRejectedException e) {
+            return handleRejected(e, null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            "error", "Classification failed",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+
+    /**
+     * Classify several texts in one request
+     */
+    @PostMapping(
+            value = "/classify/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<?> classifyBatch(@RequestBody BatchClassificationRequest request) {
+        requireClassifiable(request.getTexts());
+
+        NaiveBayesService.ModelSnapshot snapshot = naiveBayesService.snapshot();
+        return ResponseEntity.ok()
+                .header(MODEL_VERSION_HEADER, String.valueOf(snapshot.getVersion()))
+                .body(classifyAll(request, snapshot));
+    }
+
+    /**
+     * Classify several texts, compact binary response
+     */
+    @PostMapping(
+            value = "/classify/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = CompactResultEncoder.MEDIA_TYPE
+    )
+    public ResponseEntity<byte[]> classifyBatchCompact(@RequestBody BatchClassificationRequest request) {
+        requireClassifiable(request.getTexts());
+
+        NaiveBayesService.ModelSnapshot snapshot = naiveBayesService.snapshot();
+        return compact(classifyAll(request, snapshot), snapshot);
+    }
+
+    /**
+     * Category ids used by the compact encoding, for the current model version
+     */
+    @GetMapping("/categories")
+    public ResponseEntity<Map<String, Object>> getCategoryIds() {
+        NaiveBayesService.ModelSnapshot snapshot = naiveBayesService.snapshot();
+        ClassifierModel current = snapshot.getModel();
+        long version = snapshot.getVersion();
+        List<String> names = new ArrayList<>(current.getCategoryCount());
+        for (int c = 0; c < current.getCategoryCount(); c++) {
+            names.add(current.getCategoryName(c));
+        }
+        return ResponseEntity.ok()
+                .header(MODEL_VERSION_HEADER, String.valueOf(version))
+                .body(Map.of("modelVersion", version, "categories", names));
+    }
+
+    /**
+     * Batch texts are admitted one by one at batch priority, so a large batch
+     * interleaves with interactive traffic instead of holding slots. Every
+     * text is classified with the same model, even if a new one is published
+     * meanwhile.
+     */
+    private List<ClassificationResult> classifyAll(BatchClassificationRequest request,
+                                                   NaiveBayesService.ModelSnapshot snapshot) {
+        List<ClassificationResult> results = new ArrayList<>(request.getTexts().size());
+        for (String text : request.getTexts()) {
+            results.add(admissionControl.call(AdmissionControlService.Priority.BATCH,
+                    () -> naiveBayesService.classify(snapshot, text, request.getScorer(), request.getTopK(), null)));
+        }
+        return results;
+    }
+
+    /**
+     * Binary handlers cannot return JSON error bodies; errors go through the
+     * standard error response instead
+     */
+    private void requireClassifiable(List<String> texts) {
+        if (texts == null || texts.isEmpty()
+                || texts.stream().anyMatch(text -> text == null || text.trim().isEmpty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Text cannot be empty");
+        }
+        if (!naiveBayesService.isTrained()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "Model not trained, please call /train first");
+        }
+    }
+
+    /**
+     * Encode results with the category ids of the model they were classified with
+     */
+    private ResponseEntity<byte[]> compact(List<ClassificationResult> results, NaiveBayesService.ModelSnapshot snapshot) {
+        byte[] body = compactResultEncoder.encode(results, snapshot.getModel(), snapshot.getVersion());
+        return ResponseEntity.ok()
+                .header(MODEL_VERSION_HEADER, String.valueOf(snapshot.getVersion()))
+                .contentType(MediaType.parseMediaType(CompactResultEncoder.MEDIA_TYPE))
+                .body(body);
+    }
+
     /**
      * Get trained model statistics
      */
@@ -150,11 +516,256 @@ public class ClassificationController {
         return ResponseEntity.ok(naiveBayesService.getModelStats());
     }
 
+    /**
+     * Startup warm-up state and timings
+     */
+    @GetMapping("/warmup/stats")
+    public ResponseEntity<Map<String, Object>> getWarmupStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", warmupService.getState());
+        stats.putAll(warmupService.getReport());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Admission control: limit, queue depths and rejection counters
+     */
+    @GetMapping("/admission/stats")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok(admissionControl.getStats());
+    }
+
+    /**
+     * Drift of live traffic against the training corpus: predicted
+     * categories, OOV rate, confidence histogram and top unseen stems
+     * @param windowSeconds one view of this length (default: configured views)
+     */
+    @GetMapping("/monitoring/drift")
+    public ResponseEntity<?> getDrift(@RequestParam(required = false) Integer windowSeconds) {
+        try {
+            return ResponseEntity.ok(driftMonitoringService.getViews(windowSeconds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Get classification cache statistics
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(cacheService.getStats());
+    }
+
+    /**
+     * Report the effect of text normalization on the training data
+     */
+    @GetMapping("/preprocessing/normalization-report")
+    public ResponseEntity<?> getNormalizationReport() {
+        List<TrainingDocument> documents = trainingService.loadTrainingData();
+        if (documents.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "No training data found"));
+        }
+        return ResponseEntity.ok(preprocessingService.getNormalizationReport(documents));
+    }
+
+    /**
+     * Compare accuracy and stemming throughput of several stemmers
+     */
+    @GetMapping("/benchmark/stemmers")
+    public ResponseEntity<?> benchmarkStemmers(
+            @RequestParam(defaultValue = "ISRI,LIGHT,NONE") List<String> strategies,
+            @RequestParam(defaultValue = "0.2") double testRatio) {
+
+        try {
+            List<TrainingDocument> documents = trainingService.loadTrainingData();
+            if (documents.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "No training data found"));
+            }
+            return ResponseEntity.ok(stemmerBenchmarkService.compare(documents, strategies, testRatio));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Benchmark failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Compare throughput of the SAFAR and native tokenizers
+     */
+    @GetMapping("/benchmark/tokenizers")
+    public ResponseEntity<?> benchmarkTokenizers(@RequestParam(defaultValue = "200") int rounds) {
+
+        try {
+            List<TrainingDocument> documents = trainingService.loadTrainingData();
+            if (documents.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "No training data found"));
+            }
+            if (rounds < 1) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "rounds must be positive"));
+            }
+            return ResponseEntity.ok(stemmerBenchmarkService.compareTokenizers(documents, rounds));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Benchmark failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Compare accuracy and throughput of feature configurations (n-grams)
+     */
+    @GetMapping("/benchmark/features")
+    public ResponseEntity<?> benchmarkFeatures(
+            @RequestParam(defaultValue = "w1,w2,w2+c3-5") List<String> specs,
+            @RequestParam(defaultValue = "1") int minCount,
+            @RequestParam(defaultValue = "0.2") double testRatio) {
+
+        try {
+            List<TrainingDocument> documents = trainingService.loadTrainingData();
+            if (documents.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "No training data found"));
+            }
+            return ResponseEntity.ok(featureBenchmarkService.compare(documents, specs, minCount, testRatio));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Benchmark failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Grid search over stop words, features, pruning, scorer and alpha; ranked table
+     */
+    @GetMapping("/benchmark/sweep")
+    public ResponseEntity<?> sweepHyperparameters(
+            @RequestParam(defaultValue = "0.1,0.5,1.0") List<Double> alphas,
+            @RequestParam(defaultValue = "1,2,3") List<Integer> minCounts,
+            @RequestParam(defaultValue = "true,false") List<Boolean> stopWords,
+            @RequestParam(defaultValue = "w1,w2") List<String> features,
+            @RequestParam(required = false) List<String> scorers,
+            @RequestParam(defaultValue = "0.2") double testRatio,
+            @RequestParam(defaultValue = "macroF1") String rankBy) {
+
+        try {
+            List<TrainingDocument> documents = trainingService.loadTrainingData();
+            if (documents.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "No training data found"));
+            }
+            List<String> scorerNames = scorers == null || scorers.isEmpty()
+                    ? List.of(naiveBayesService.resolveScorer(null).getName()) : scorers;
+            return ResponseEntity.ok(hyperparameterSweepService.sweep(documents, alphas, minCounts,
+                    stopWords, features, scorerNames, testRatio, rankBy));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid sweep parameters", "message", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Sweep failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Flat scoring versus top-down scoring over the Data/ hierarchy, per beam width
+     */
+    @GetMapping("/benchmark/hierarchy")
+    public ResponseEntity<?> benchmarkHierarchy(
+            @RequestParam(defaultValue = "1,2,3,0") List<Integer> beamWidths,
+            @RequestParam(defaultValue = "0.2") double testRatio) {
+
+        try {
+            List<TrainingDocument> documents = trainingService.loadHierarchicalTrainingData();
+            if (documents.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "No training data found"));
+            }
+            return ResponseEntity.ok(hierarchicalService.benchmark(documents, beamWidths, testRatio));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid hierarchy benchmark parameters", "message", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Hierarchy benchmark failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Train the taxonomy model from Data/ and its subdirectories
+     * (Data/section/subsection/*.txt belongs to "section/subsection")
+     */
+    @PostMapping("/hierarchy/train")
+    public ResponseEntity<?> trainHierarchy() {
+        try {
+            List<TrainingDocument> documents = trainingService.loadHierarchicalTrainingData();
+            if (documents.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "No training data found"));
+            }
+            return ResponseEntity.ok(Map.of(
+                    "message", "Taxonomy model trained successfully",
+                    "stats", hierarchicalService.train(documents)
+            ));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Training failed", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Classify text top-down through the taxonomy with beam pruning
+     */
+    @PostMapping("/hierarchy/classify")
+    public ResponseEntity<?> classifyHierarchical(
+            @RequestBody ClassificationRequest request,
+            @RequestParam(required = false) Integer beamWidth) {
+        try {
+            if (request.getText() == null || request.getText().trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Text cannot be empty"));
+            }
+            if (!hierarchicalService.isTrained()) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                        .body(Map.of(
+                                "error", "Taxonomy model not trained",
+                                "message", "Please call /hierarchy/train first"
+                        ));
+            }
+            return ResponseEntity.ok(admissionControl.call(AdmissionControlService.Priority.INTERACTIVE,
+                    () -> hierarchicalService.classify(request.getText(), beamWidth)));
+
+        } catch (AdmissionControlService.AdmissionRejectedException e) {
+            return handleRejected(e, null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            "error", "Classification failed",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+
     /**
      * Get training data statistics
      */
     @GetMapping("/data/stats")
     public ResponseEntity<Map<String, Object>> getDataStats() {
+        // The watcher keeps these up to date; otherwise Data/ is re-read
+        if (trainingDataWatcher.isActive()) {
+            return ResponseEntity.ok(trainingDataWatcher.getDataStats());
+        }
         return ResponseEntity.ok(trainingService.getDataStats());
     }
 
@@ -177,14 +788,17 @@ public class ClassificationController {
     public ResponseEntity<?> addTrainingDocument(
             @RequestParam String category,
             @RequestParam String filename,
-            @RequestBody String content) {
+            InputStream body) {
 
         try {
             if (!filename.endsWith(".txt")) {
                 filename += ".txt";
             }
 
-            trainingService.addTrainingDocument(category, content, filename);
+            // Streamed to disk and size-limited; gzip bodies are decoded on the way
+            try (Reader content = ingestionService.openText(body, null)) {
+                trainingService.addTrainingDocument(category, content, filename);
+            }
 
             return ResponseEntity.ok(Map.of(
                     "message", "Training document added successfully",
@@ -192,6 +806,12 @@ public class ClassificationController {
                     "filename", filename
             ));
 
+        } catch (LimitedInputStream.PayloadTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", "Document too large", "message", e.getMessage()));
+        } catch (UnsupportedEncodingException e) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body(Map.of("error", "Unsupported encoding", "message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of(
@@ -200,4 +820,36 @@ public class ClassificationController {
                     ));
         }
     }
+
+    /**
+     * Unreadable JSON bodies, including ones cut off by the ingestion size limits
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<?> handleUnreadableBody(HttpMessageNotReadableException e) {
+        if (e.getMostSpecificCause() instanceof LimitedInputStream.PayloadTooLargeException) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", "Request too large", "message", e.getMostSpecificCause().getMessage()));
+        }
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "Malformed request body", "message", e.getMostSpecificCause().getMessage()));
+    }
+
+    /**
+     * Shed work: 503 for interactive overload, 429 for batch, both with Retry-After.
+     * Compact clients get the status and headers only.
+     */
+    @ExceptionHandler(AdmissionControlService.AdmissionRejectedException.class)
+    public ResponseEntity<?> handleRejected(AdmissionControlService.AdmissionRejectedException e,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(e.isBatch() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        if (accept != null && accept.contains(CompactResultEncoder.MEDIA_TYPE)) {
+            return response.build();
+        }
+        return response.body(Map.of(
+                "error", "Request rejected",
+                "message", e.getMessage(),
+                "retryAfterSeconds", e.getRetryAfterSeconds()));
+    }
 }
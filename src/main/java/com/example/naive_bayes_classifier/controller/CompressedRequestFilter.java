@@ -0,0 +1,167 @@
+package com.example.naive_bayes_classifier.controller;
+
+import com.example.naive_bayes_classifier.service.DocumentIngestionService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+
+/**
+ * Decodes gzip request bodies (Content-Encoding: gzip) for the JSON/text API
+ * and applies the ingestion size limits to every body while it is read.
+ * Multipart uploads are left to the container (spring.servlet.multipart.*)
+ * and decoded per file by {@link DocumentIngestionService}.
+ */
+@Component
+public class CompressedRequestFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private DocumentIngestionService ingestionService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return "GET".equals(request.getMethod())
+                || (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getContentLengthLong() > ingestionService.getMaxRequestBytes()) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Request body exceeds the limit of " + ingestionService.getMaxRequestBytes() + " bytes");
+            return;
+        }
+
+        String encoding = request.getHeader("Content-Encoding");
+        if (encoding != null && !isSupported(encoding)) {
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                    "Unsupported content encoding: " + encoding + " (supported: gzip, identity)");
+            return;
+        }
+
+        chain.doFilter(new DecodedRequest(request, encoding), response);
+    }
+
+    private static boolean isSupported(String encoding) {
+        String value = encoding.trim().toLowerCase(Locale.ROOT);
+        return value.equals("gzip") || value.equals("x-gzip") || value.equals("identity");
+    }
+
+    /**
+     * Request whose body is the decoded stream; the compressed length and
+     * encoding headers no longer apply to it
+     */
+    private final class DecodedRequest extends HttpServletRequestWrapper {
+        private final String encoding;
+        private ServletInputStream body;
+
+        DecodedRequest(HttpServletRequest request, String encoding) {
+            super(request);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                // Only the declared encoding is honoured here; JSON bodies are never sniffed
+                InputStream decoded = ingestionService.decode(super.getInputStream(), encoding, true);
+                body = new DecodedInputStream(decoded);
+            }
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String charset = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    charset != null ? charset : StandardCharsets.UTF_8.name()));
+        }
+
+        @Override
+        public int getContentLength() {
+            return encoding == null ? super.getContentLength() : -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return encoding == null ? super.getContentLengthLong() : -1L;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (encoding != null && isDecodedHeader(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (encoding != null && isDecodedHeader(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+
+        private boolean isDecodedHeader(String name) {
+            return "Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name);
+        }
+    }
+
+    private static final class DecodedInputStream extends ServletInputStream {
+        private final InputStream in;
+        private boolean finished;
+
+        DecodedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = in.read(buffer, offset, length);
+            finished = n < 0;
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            throw new UnsupportedOperationException("Asynchronous reads of decoded bodies are not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.naive_bayes_classifier.controller;
 
 import com.example.naive_bayes_classifier.model.*;
 import com.example.naive_bayes_classifier.service.*;
+import com.example.naive_bayes_classifier.utils.LimitedInputStream;
 import com.example.naive_bayes_classifier.utils.MetricsCalculator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -12,8 +13,9 @@ import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 @Controller
@@ -21,6 +23,9 @@ public class WebController {
 
     private static final Logger logger = LoggerFactory.getLogger(WebController.class);
 
+    // Beginning of an uploaded file shown on the result page
+    private static final int PREVIEW_CHARS = 10_000;
+
     @Autowired
     private NaiveBayesService naiveBayesService;
 
@@ -30,6 +35,12 @@ public class WebController {
     @Autowired
     private MetricsCalculator metricsCalculator;
 
+    @Autowired
+    private DocumentIngestionService ingestionService;
+
+    @Autowired
+    private AdmissionControlService admissionControl;
+
     /**
      * Page d'accueil
      */
@@ -142,17 +153,29 @@ public class WebController {
                 return "upload";
             }
 
-            // Lire le contenu du fichier
-            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
-
-            logger.info("Classifying file: {} ({} chars)", file.getOriginalFilename(), content.length());
+            // Lire le fichier en flux (gzip décompressé, taille limitée) directement dans le prétraitement ;
+            // seul un aperçu du début est conservé pour l'affichage
+            String preview;
+            ClassificationResult result;
+            try (BufferedReader reader = new BufferedReader(
+                    ingestionService.openText(file.getInputStream(), null), PREVIEW_CHARS + 1)) {
+                preview = readPreview(reader);
+                result = admissionControl.call(AdmissionControlService.Priority.INTERACTIVE, () -> {
+                    try {
+                        return naiveBayesService.classify(reader);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
 
-            // Classifier
-            ClassificationResult result = naiveBayesService.classify(content);
+            logger.info("Classified file: {} ({} tokens)", file.getOriginalFilename(), result.getTotalTokens());
 
             // Préparer les données pour l'affichage
             model.addAttribute("fileName", file.getOriginalFilename());
-            model.addAttribute("content", content);
+            model.addAttribute("content", preview);
             model.addAttribute("result", result);
             model.addAttribute("predictedCategory", result.getPredictedCategory());
             model.addAttribute("confidence", String.format("%.2f%%", result.getConfidence() * 100));
@@ -165,6 +188,10 @@ public class WebController {
 
             return "result";
 
+        } catch (LimitedInputStream.PayloadTooLargeException e) {
+            logger.warn("File rejected: {}", e.getMessage());
+            model.addAttribute("error", "Fichier trop volumineux: " + e.getMessage());
+            return "upload";
         } catch (IOException e) {
             logger.error("File reading error: {}", e.getMessage(), e);
             model.addAttribute("error", "Erreur lors de la lecture du fichier: " + e.getMessage());
@@ -176,6 +203,21 @@ public class WebController {
         }
     }
 
+    /**
+     * Lire le début du fichier puis revenir au début, pour le classifier en entier ensuite
+     */
+    private static String readPreview(BufferedReader reader) throws IOException {
+        reader.mark(PREVIEW_CHARS + 1);
+        char[] buffer = new char[PREVIEW_CHARS + 1];
+        int length = 0;
+        int n;
+        while (length < buffer.length && (n = reader.read(buffer, length, buffer.length - length)) > 0) {
+            length += n;
+        }
+        reader.reset();
+        return length > PREVIEW_CHARS ? new String(buffer, 0, PREVIEW_CHARS) + " …" : new String(buffer, 0, length);
+    }
+
     /**
      * Classifier du texte saisi
      */
@@ -190,7 +232,8 @@ public class WebController {
             logger.info("Classifying text ({} chars)", text.length());
 
             // Classifier
-            ClassificationResult result = naiveBayesService.classify(text);
+            ClassificationResult result = admissionControl.call(AdmissionControlService.Priority.INTERACTIVE,
+                    () -> naiveBayesService.classify(text));
 
             // Préparer les données
             model.addAttribute("fileName", "Texte saisi");
@@ -0,0 +1,322 @@
+package com.example.naive_bayes_classifier.model;
+
+import com.example.naive_bayes_classifier.scoring.MultinomialScorer;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Category bookkeeping and compiled scoring shared by all Naive Bayes models.
+ *
+ * Subclasses store per-feature counts as "rows": every known feature has a
+ * row index, a count per category and a document frequency per category.
+ * Scorers turn those rows into a {@link ScoreTable} once per model, so
+ * classification cost is the same whatever variant is selected.
+ */
+public abstract class AbstractNaiveBayesModel implements ClassifierModel {
+
+    private final Map<String, Integer> categoryIndices = new LinkedHashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    private int[] categoryDocuments = new int[4];
+    private long[] categoryTotals = new long[4];
+    private int totalDocuments = 0;
+    private String stemmer;
+
+    private final Map<String, ScoreTable> scoreTables = new ConcurrentHashMap<>();
+    private volatile NaiveBayesScorer defaultScorer = new MultinomialScorer(1.0);
+
+    @Override
+    public boolean addDocument(String category, List<String> stems) {
+        if (stems.isEmpty()) {
+            return false;
+        }
+
+        int index = categoryIndex(category);
+        long occurrences = countFeatures(index, stems, 1);
+        categoryDocuments[index]++;
+        categoryTotals[index] += occurrences;
+        totalDocuments++;
+
+        scoreTables.clear();
+        return true;
+    }
+
+    /**
+     * Subtract a document that was previously added with the same stems
+     * (incremental retraining). Features and categories left without counts
+     * stay in this model; {@link #mergeCounts} drops them.
+     */
+    public boolean removeDocument(String category, List<String> stems) {
+        Integer index = categoryIndices.get(category);
+        if (index == null || stems.isEmpty() || categoryDocuments[index] == 0) {
+            return false;
+        }
+
+        long occurrences = countFeatures(index, stems, -1);
+        categoryDocuments[index]--;
+        categoryTotals[index] -= occurrences;
+        totalDocuments--;
+
+        scoreTables.clear();
+        return true;
+    }
+
+    private int categoryIndex(String category) {
+        Integer index = categoryIndices.get(category);
+        if (index == null) {
+            index = categoryNames.size();
+            categoryIndices.put(category, index);
+            categoryNames.add(category);
+            if (index == categoryDocuments.length) {
+                categoryDocuments = Arrays.copyOf(categoryDocuments, index * 2);
+                categoryTotals = Arrays.copyOf(categoryTotals, index * 2);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Add the features of one document to the counts of a category
+     * @param delta 1 to add the document, -1 to remove it
+     * @return number of feature occurrences counted
+     */
+    protected abstract long countFeatures(int category, List<String> stems, int delta);
+
+    /**
+     * Row index of every feature of a document, -1 for unknown features
+     */
+    public abstract int[] featureRows(List<String> stems);
+
+    /**
+     * Number of known features (vocabulary size V)
+     */
+    public abstract int getFeatureRowCount();
+
+    /**
+     * Highest row index + 1 (equal to the row count unless rows are sparse)
+     */
+    public int getFeatureRowCapacity() {
+        return getFeatureRowCount();
+    }
+
+    /**
+     * Visit every known feature row. Arrays have one entry per category.
+     */
+    public abstract void forEachFeatureRow(FeatureRowVisitor visitor);
+
+    /**
+     * Merge-in counts from another model of the same type (e.g. a shard)
+     * @return index of the category in this model
+     */
+    protected int addCategoryCounts(String category, int documents, long total) {
+        int index = categoryIndex(category);
+        categoryDocuments[index] += documents;
+        categoryTotals[index] += total;
+        totalDocuments += documents;
+        scoreTables.clear();
+        return index;
+    }
+
+    /**
+     * Add the counts of another model of the same type and features, skipping
+     * categories without documents and features without occurrences
+     * (e.g. left behind by {@link #removeDocument})
+     */
+    public void mergeCounts(AbstractNaiveBayesModel other) {
+        if (!CountShardFile.describe(this).equals(CountShardFile.describe(other))) {
+            throw new IllegalArgumentException("Cannot merge counts of models with different modes or features");
+        }
+        int[] indices = new int[other.getCategoryCount()];
+        for (int c = 0; c < indices.length; c++) {
+            indices[c] = other.getCategoryDocuments(c) > 0
+                    ? addCategoryCounts(other.getCategoryName(c), other.getCategoryDocuments(c), other.getCategoryTotal(c))
+                    : -1;
+        }
+        RowSink sink = rowSink(other);
+        other.forEachFeatureRow((row, counts, documentFrequencies) -> {
+            for (int c = 0; c < counts.length; c++) {
+                if (indices[c] >= 0 && counts[c] != 0) {
+                    sink.add(row, indices[c], counts[c], documentFrequencies[c]);
+                }
+            }
+        });
+        if (getStemmer() == null) {
+            setStemmer(other.getStemmer());
+        }
+    }
+
+    /**
+     * Adds counts of the given row of a model of the same type to this model
+     */
+    protected abstract RowSink rowSink(AbstractNaiveBayesModel source);
+
+    protected interface RowSink {
+        void add(int sourceRow, int category, int count, int documentFrequency);
+    }
+
+    /**
+     * Used after pruning to reset a category's total feature count
+     */
+    protected void setCategoryTotal(int category, long total) {
+        categoryTotals[category] = total;
+        scoreTables.clear();
+    }
+
+    /**
+     * Ensure a per-category array has one slot per known category
+     */
+    protected int[] padToCategories(int[] values) {
+        return values.length >= categoryNames.size() ? values : Arrays.copyOf(values, categoryNames.size());
+    }
+
+    /**
+     * Select the scorer used by {@link #logProbabilities(List)} and compile it
+     */
+    @Override
+    public void compile(NaiveBayesScorer scorer) {
+        defaultScorer = scorer;
+        getScoreTable(scorer);
+    }
+
+    /**
+     * Compiled table for a scorer, built on first use and kept with the model
+     */
+    public ScoreTable getScoreTable(NaiveBayesScorer scorer) {
+        return scoreTables.computeIfAbsent(scorer.getKey(), key -> scorer.compile(this));
+    }
+
+    /**
+     * Memory held by the score tables compiled so far (one per scorer used)
+     */
+    protected long scoreTableBytes() {
+        long bytes = 0;
+        for (ScoreTable table : scoreTables.values()) {
+            bytes += table.memoryBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Map<String, Double> logProbabilities(List<String> stems) {
+        return logProbabilities(stems, defaultScorer);
+    }
+
+    @Override
+    public double[] scores(List<String> stems, NaiveBayesScorer scorer) {
+        return getScoreTable(scorer).score(featureRows(stems));
+    }
+
+    @Override
+    public double[] scores(int[] rows, NaiveBayesScorer scorer) {
+        return getScoreTable(scorer).score(rows);
+    }
+
+    @Override
+    public List<TermContribution> explain(List<String> stems, int[] rows, NaiveBayesScorer scorer,
+                                          int category, int against, int limit) {
+        return getScoreTable(scorer).contributions(rows, category, against, limit,
+                position -> featureLabel(stems, position));
+    }
+
+    /**
+     * Readable name of the feature at a position of {@link #featureRows}
+     */
+    protected abstract String featureLabel(List<String> stems, int position);
+
+    /**
+     * Rows at the given positions of a document's feature rows
+     */
+    protected static int[] pick(int[] rows, int[] positions) {
+        int[] picked = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            picked[i] = rows[positions[i]];
+        }
+        return picked;
+    }
+
+    @Override
+    public Map<String, Double> logProbabilities(List<String> stems, NaiveBayesScorer scorer) {
+        double[] scores = scores(stems, scorer);
+        Map<String, Double> logProbabilities = new HashMap<>();
+        for (int c = 0; c < scores.length; c++) {
+            logProbabilities.put(categoryNames.get(c), scores[c]);
+        }
+        return logProbabilities;
+    }
+
+    @Override
+    public NaiveBayesScorer getDefaultScorer() {
+        return defaultScorer;
+    }
+
+    @Override
+    public int getCategoryCount() {
+        return categoryNames.size();
+    }
+
+    @Override
+    public String getCategoryName(int category) {
+        return categoryNames.get(category);
+    }
+
+    public int getCategoryDocuments(int category) {
+        return categoryDocuments[category];
+    }
+
+    public long getCategoryTotal(int category) {
+        return categoryTotals[category];
+    }
+
+    @Override
+    public Set<String> getCategories() {
+        return Collections.unmodifiableSet(categoryIndices.keySet());
+    }
+
+    @Override
+    public Map<String, Integer> getCategoryDocumentCount() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int c = 0; c < categoryNames.size(); c++) {
+            counts.put(categoryNames.get(c), categoryDocuments[c]);
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Integer> getCategoryTotalWords() {
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        for (int c = 0; c < categoryNames.size(); c++) {
+            totals.put(categoryNames.get(c), (int) Math.min(Integer.MAX_VALUE, categoryTotals[c]));
+        }
+        return totals;
+    }
+
+    @Override
+    public int getVocabularySize() {
+        return getFeatureRowCount();
+    }
+
+    @Override
+    public int getTotalDocuments() {
+        return totalDocuments;
+    }
+
+    @Override
+    public String getStemmer() {
+        return stemmer;
+    }
+
+    @Override
+    public void setStemmer(String stemmer) {
+        this.stemmer = stemmer;
+    }
+
+    @FunctionalInterface
+    public interface FeatureRowVisitor {
+        /**
+         * @param counts             occurrences of the feature per category
+         * @param documentFrequencies documents containing the feature per category
+         */
+        void visit(int row, int[] counts, int[] documentFrequencies);
+    }
+}
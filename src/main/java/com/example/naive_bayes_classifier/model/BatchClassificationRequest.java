@@ -0,0 +1,36 @@
+package com.example.naive_bayes_classifier.model;
+
+import java.util.List;
+
+public class BatchClassificationRequest {
+    private List<String> texts;
+    // Optional Naive Bayes variant and number of categories per result, as in ClassificationRequest
+    private String scorer;
+    private Integer topK;
+
+    public BatchClassificationRequest() {}
+
+    public List<String> getTexts() {
+        return texts;
+    }
+
+    public void setTexts(List<String> texts) {
+        this.texts = texts;
+    }
+
+    public String getScorer() {
+        return scorer;
+    }
+
+    public void setScorer(String scorer) {
+        this.scorer = scorer;
+    }
+
+    public Integer getTopK() {
+        return topK;
+    }
+
+    public void setTopK(Integer topK) {
+        this.topK = topK;
+    }
+}
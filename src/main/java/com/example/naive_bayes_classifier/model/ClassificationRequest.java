@@ -3,6 +3,12 @@ package com.example.naive_bayes_classifier.model;
 
 public class ClassificationRequest {
     private String text;
+    // Optional Naive Bayes variant (multinomial, complement, bernoulli, tfidf)
+    private String scorer;
+    // Optional number of categories to return, most probable first (0 = all)
+    private Integer topK;
+    // Optional number of terms explaining the prediction against the runner-up
+    private Integer explain;
 
     public ClassificationRequest() {}
 
@@ -17,4 +23,28 @@ public class ClassificationRequest {
     public void setText(String text) {
         this.text = text;
     }
-}
\ No newline at end of file
+
+    public String getScorer() {
+        return scorer;
+    }
+
+    public void setScorer(String scorer) {
+        this.scorer = scorer;
+    }
+
+    public Integer getTopK() {
+        return topK;
+    }
+
+    public void setTopK(Integer topK) {
+        this.topK = topK;
+    }
+
+    public Integer getExplain() {
+        return explain;
+    }
+
+    public void setExplain(Integer explain) {
+        this.explain = explain;
+    }
+}
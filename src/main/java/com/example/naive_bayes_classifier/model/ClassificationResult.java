@@ -1,5 +1,8 @@
 package com.example.naive_bayes_classifier.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
 import java.util.Map;
 
 public class ClassificationResult {
@@ -8,6 +11,11 @@ public class ClassificationResult {
     private double confidence;
     private int totalTokens;
     private int uniqueTokens;
+    // Only set when an explanation was requested
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String explainedAgainst;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<TermContribution> explanation;
 
     public ClassificationResult() {}
 
@@ -59,4 +67,20 @@ public class ClassificationResult {
     public void setUniqueTokens(int uniqueTokens) {
         this.uniqueTokens = uniqueTokens;
     }
-}
\ No newline at end of file
+
+    public String getExplainedAgainst() {
+        return explainedAgainst;
+    }
+
+    public void setExplainedAgainst(String explainedAgainst) {
+        this.explainedAgainst = explainedAgainst;
+    }
+
+    public List<TermContribution> getExplanation() {
+        return explanation;
+    }
+
+    public void setExplanation(List<TermContribution> explanation) {
+        this.explanation = explanation;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.naive_bayes_classifier.model;
+
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Count-based Naive Bayes model that can be trained document by document
+ * and then used for scoring
+ */
+public interface ClassifierModel {
+
+    /**
+     * Update counts with one preprocessed document
+     * @return false if the document has no stems and was ignored
+     */
+    boolean addDocument(String category, List<String> stems);
+
+    /**
+     * Calculate log P(Category | Document) for every category with the default scorer
+     */
+    Map<String, Double> logProbabilities(List<String> stems);
+
+    /**
+     * Score every category with a specific Naive Bayes variant
+     */
+    Map<String, Double> logProbabilities(List<String> stems, NaiveBayesScorer scorer);
+
+    /**
+     * Raw per-category scores, indexed like {@link #getCategoryName(int)}
+     */
+    double[] scores(List<String> stems, NaiveBayesScorer scorer);
+
+    /**
+     * Feature row of every feature of a document (-1 = unknown), so that
+     * scoring and explaining can share one lookup
+     */
+    int[] featureRows(List<String> stems);
+
+    /**
+     * Feature rows of the stem window [start, end) of a document, picked
+     * from the rows of the whole document (features spanning the window
+     * boundary are left out)
+     */
+    int[] windowRows(List<String> stems, int[] rows, int start, int end);
+
+    /**
+     * Raw per-category scores of a document given its feature rows
+     */
+    double[] scores(int[] rows, NaiveBayesScorer scorer);
+
+    /**
+     * Features that most favour one category over another, read from the
+     * compiled weights (no re-scoring)
+     * @param rows feature rows of the document, as returned by {@link #featureRows}
+     */
+    List<TermContribution> explain(List<String> stems, int[] rows, NaiveBayesScorer scorer,
+                                   int category, int against, int limit);
+
+    /**
+     * Precompute the scoring table of a variant and make it the default
+     */
+    void compile(NaiveBayesScorer scorer);
+
+    NaiveBayesScorer getDefaultScorer();
+
+    /**
+     * Most probable category for a preprocessed document
+     */
+    default String predict(List<String> stems) {
+        Map<String, Double> logProbabilities = logProbabilities(stems);
+        String best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<String, Double> entry : logProbabilities.entrySet()) {
+            if (best == null || entry.getValue() > bestScore) {
+                best = entry.getKey();
+                bestScore = entry.getValue();
+            }
+        }
+        return best;
+    }
+
+    Set<String> getCategories();
+
+    int getCategoryCount();
+
+    String getCategoryName(int category);
+
+    Map<String, Integer> getCategoryDocumentCount();
+
+    Map<String, Integer> getCategoryTotalWords();
+
+    /**
+     * Number of distinct features (stems, or used buckets in hashed mode)
+     */
+    int getVocabularySize();
+
+    int getTotalDocuments();
+
+    String getStemmer();
+
+    void setStemmer(String stemmer);
+
+    /**
+     * Drop features seen fewer than minCount times across all categories
+     */
+    default void prune(int minCount) {
+    }
+
+    /**
+     * Model-specific statistics added to the model stats endpoint
+     */
+    default Map<String, Object> getDiagnostics() {
+        return Map.of();
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.naive_bayes_classifier.model;
+
+import com.example.naive_bayes_classifier.utils.VarIntCodec;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes count shards: the raw, unpruned counts of a model trained
+ * on one slice of the data.
+ *
+ * Naive Bayes counts are additive, so merging the shards of N workers gives
+ * exactly the model a single worker would have trained on all the data
+ * (pruning is applied once, after the merge).
+ *
+ * Layout:
+ *   header : "NBCS" + version byte
+ *   head   : [rawLength:int][compressedLength:int][deflate(metadata, categories, row count)]
+ *   blocks : [rawLength:int][compressedLength:int][deflate(rows)] ... until [0:int]
+ *
+ * A row is its key (term string, feature id or bucket) followed by the
+ * categories it occurs in as (category, count, document frequency) varints.
+ */
+public final class CountShardFile {
+
+    static final byte[] MAGIC = {'N', 'B', 'C', 'S'};
+    static final int VERSION = 1;
+    private static final int ROWS_PER_BLOCK = 4096;
+
+    public static final String MODE_EXACT = "exact";
+    public static final String MODE_FEATURES = "features";
+    public static final String MODE_HASHED = "hashed";
+
+    private CountShardFile() {}
+
+    /**
+     * Write the counts of a model (before pruning) to a shard file
+     * @param extraMetadata free-form key/value pairs (e.g. shard index)
+     * @return number of rows written
+     */
+    public static int write(AbstractNaiveBayesModel model, Path path, Map<String, String> extraMetadata) throws IOException {
+        Map<String, String> metadata = new LinkedHashMap<>(extraMetadata);
+        metadata.putAll(describe(model));
+        if (model.getStemmer() != null) {
+            metadata.put("stemmer", model.getStemmer());
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+
+            ByteArrayOutputStream head = new ByteArrayOutputStream();
+            VarIntCodec.writeVarInt(head, metadata.size());
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                VarIntCodec.writeString(head, entry.getKey());
+                VarIntCodec.writeString(head, entry.getValue());
+            }
+            int categories = model.getCategoryCount();
+            VarIntCodec.writeVarInt(head, categories);
+            for (int c = 0; c < categories; c++) {
+                VarIntCodec.writeString(head, model.getCategoryName(c));
+                VarIntCodec.writeVarInt(head, model.getCategoryDocuments(c));
+                VarIntCodec.writeVarLong(head, model.getCategoryTotal(c));
+            }
+            VarIntCodec.writeVarInt(head, model.getFeatureRowCount());
+            writeCompressed(out, head.toByteArray());
+
+            RowKeys keys = rowKeys(model);
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            int[] rowsInBlock = {0};
+            try {
+                model.forEachFeatureRow((row, counts, documentFrequencies) -> {
+                    keys.write(block, row);
+                    int present = 0;
+                    for (int c = 0; c < counts.length; c++) {
+                        if (counts[c] != 0 || documentFrequencies[c] != 0) {
+                            present++;
+                        }
+                    }
+                    VarIntCodec.writeVarInt(block, present);
+                    for (int c = 0; c < counts.length; c++) {
+                        if (counts[c] != 0 || documentFrequencies[c] != 0) {
+                            VarIntCodec.writeVarInt(block, c);
+                            VarIntCodec.writeVarInt(block, counts[c]);
+                            VarIntCodec.writeVarInt(block, documentFrequencies[c]);
+                        }
+                    }
+                    if (++rowsInBlock[0] == ROWS_PER_BLOCK) {
+                        flush(out, block);
+                        rowsInBlock[0] = 0;
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (rowsInBlock[0] > 0) {
+                flush(out, block);
+            }
+            out.writeInt(0);
+        }
+        return model.getFeatureRowCount();
+    }
+
+    private static void flush(DataOutputStream out, ByteArrayOutputStream block) {
+        try {
+            writeCompressed(out, block.toByteArray());
+            block.reset();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read only the metadata of a shard (mode, features, stemmer, ...)
+     */
+    public static Map<String, String> readMetadata(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            return readHead(in, null).metadata;
+        }
+    }
+
+    /**
+     * Add the counts of a shard to a model of the same mode and features
+     * @return metadata of the shard
+     */
+    public static Map<String, String> mergeInto(AbstractNaiveBayesModel model, Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            Head head = readHead(in, model);
+            Map<String, String> expected = describe(model);
+            for (Map.Entry<String, String> entry : expected.entrySet()) {
+                if (!entry.getValue().equals(head.metadata.get(entry.getKey()))) {
+                    throw new IllegalArgumentException("Shard " + path.getFileName() + " has "
+                            + entry.getKey() + "=" + head.metadata.get(entry.getKey())
+                            + " but the model expects " + entry.getValue());
+                }
+            }
+
+            int rows = 0;
+            byte[] raw;
+            while ((raw = readCompressed(in)) != null) {
+                VarIntCodec.Reader reader = new VarIntCodec.Reader(raw);
+                while (reader.getPosition() < raw.length) {
+                    mergeRow(model, reader, head.categoryIndices);
+                    rows++;
+                }
+            }
+            if (rows != head.rowCount) {
+                throw new IOException("Truncated count shard " + path + ": " + rows + " of " + head.rowCount + " rows");
+            }
+            return head.metadata;
+        }
+    }
+
+    private static void mergeRow(AbstractNaiveBayesModel model, VarIntCodec.Reader reader, int[] categoryIndices) {
+        if (model instanceof NaiveBayesModel) {
+            String term = reader.readString();
+            int present = reader.readVarInt();
+            for (int i = 0; i < present; i++) {
+                ((NaiveBayesModel) model).addTermCounts(term, categoryIndices[reader.readVarInt()],
+                        reader.readVarInt(), reader.readVarInt());
+            }
+        } else if (model instanceof FeatureNaiveBayesModel) {
+            long feature = reader.readVarLong();
+            int present = reader.readVarInt();
+            for (int i = 0; i < present; i++) {
+                ((FeatureNaiveBayesModel) model).addFeatureCounts(feature, categoryIndices[reader.readVarInt()],
+                        reader.readVarInt(), reader.readVarInt());
+            }
+        } else {
+            int bucket = reader.readVarInt();
+            int present = reader.readVarInt();
+            for (int i = 0; i < present; i++) {
+                ((HashedNaiveBayesModel) model).addBucketCounts(bucket, categoryIndices[reader.readVarInt()],
+                        reader.readVarInt(), reader.readVarInt());
+            }
+        }
+    }
+
+    /**
+     * Settings two models must share for their counts to be mergeable
+     */
+    static Map<String, String> describe(AbstractNaiveBayesModel model) {
+        Map<String, String> description = new LinkedHashMap<>();
+        if (model instanceof NaiveBayesModel) {
+            description.put("mode", MODE_EXACT);
+        } else if (model instanceof FeatureNaiveBayesModel) {
+            description.put("mode", MODE_FEATURES);
+            description.put("features", ((FeatureNaiveBayesModel) model).getExtractor().getSpec());
+        } else if (model instanceof HashedNaiveBayesModel) {
+            HashedNaiveBayesModel hashed = (HashedNaiveBayesModel) model;
+            description.put("mode", MODE_HASHED);
+            description.put("features", hashed.getExtractor().getSpec());
+            description.put("bits", String.valueOf(hashed.getBits()));
+        } else {
+            throw new IllegalArgumentException("Unsupported model type: " + model.getClass().getSimpleName());
+        }
+        return description;
+    }
+
+    private interface RowKeys {
+        void write(ByteArrayOutputStream out, int row);
+    }
+
+    private static RowKeys rowKeys(AbstractNaiveBayesModel model) {
+        if (model instanceof NaiveBayesModel) {
+            NaiveBayesModel exact = (NaiveBayesModel) model;
+            return (out, row) -> VarIntCodec.writeString(out, exact.getTerm(row));
+        }
+        if (model instanceof FeatureNaiveBayesModel) {
+            long[] features = ((FeatureNaiveBayesModel) model).rowFeatures();
+            return (out, row) -> VarIntCodec.writeVarLong(out, features[row]);
+        }
+        HashedNaiveBayesModel hashed = (HashedNaiveBayesModel) model;
+        return (out, row) -> VarIntCodec.writeVarInt(out, hashed.getBucket(row));
+    }
+
+    private static DataInputStream open(Path path) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a count shard file: " + path);
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported count shard version " + version + " in " + path);
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static final class Head {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        int[] categoryIndices;
+        int rowCount;
+    }
+
+    /**
+     * Read metadata and categories; with a model, categories are merged into
+     * it and mapped to the model's category indices
+     */
+    private static Head readHead(DataInputStream in, AbstractNaiveBayesModel model) throws IOException {
+        byte[] raw = readCompressed(in);
+        if (raw == null) {
+            throw new IOException("Count shard has no header section");
+        }
+        VarIntCodec.Reader reader = new VarIntCodec.Reader(raw);
+        Head head = new Head();
+        int entries = reader.readVarInt();
+        for (int i = 0; i < entries; i++) {
+            head.metadata.put(reader.readString(), reader.readString());
+        }
+        int categories = reader.readVarInt();
+        head.categoryIndices = new int[categories];
+        for (int c = 0; c < categories; c++) {
+            String name = reader.readString();
+            int documents = reader.readVarInt();
+            long total = reader.readVarLong();
+            if (model != null) {
+                head.categoryIndices[c] = model.addCategoryCounts(name, documents, total);
+            }
+        }
+        head.rowCount = reader.readVarInt();
+        return head;
+    }
+
+    private static void writeCompressed(DataOutputStream out, byte[] raw) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                compressed.write(chunk, 0, n);
+            }
+            out.writeInt(raw.length);
+            out.writeInt(compressed.size());
+            compressed.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Next compressed section, or null at the end marker
+     */
+    private static byte[] readCompressed(DataInputStream in) throws IOException {
+        int rawLength = in.readInt();
+        if (rawLength == 0) {
+            return null;
+        }
+        int compressedLength = in.readInt();
+        if (rawLength < 0 || compressedLength < 0) {
+            throw new IOException("Corrupt count shard section");
+        }
+        byte[] compressed = new byte[compressedLength];
+        in.readFully(compressed);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawLength - offset);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != rawLength) {
+                throw new IOException("Corrupt count shard section");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt count shard section", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -11,12 +11,18 @@ public class EvaluationMetrics {
     private Map<String, Double> f1Score;
     private int[][] confusionMatrix;
     private Map<String, Integer> categoryIndices;
+    private Map<String, Integer> support;
+    private Map<String, Double> microAverages;
+    private double logLoss;
+    private long documentCount;
 
     public EvaluationMetrics() {
         this.precision = new HashMap<>();
         this.recall = new HashMap<>();
         this.f1Score = new HashMap<>();
         this.categoryIndices = new HashMap<>();
+        this.support = new HashMap<>();
+        this.microAverages = new HashMap<>();
     }
 
     // Getters and Setters
@@ -68,6 +74,47 @@ public class EvaluationMetrics {
         this.categoryIndices = categoryIndices;
     }
 
+    /**
+     * Number of test documents per actual category
+     */
+    public Map<String, Integer> getSupport() {
+        return support;
+    }
+
+    public void setSupport(Map<String, Integer> support) {
+        this.support = support;
+    }
+
+    /**
+     * Precision/recall/F1 from the pooled TP/FP/FN counts of all categories
+     */
+    public Map<String, Double> getMicroAverages() {
+        return microAverages;
+    }
+
+    public void setMicroAverages(Map<String, Double> microAverages) {
+        this.microAverages = microAverages;
+    }
+
+    /**
+     * Mean negative log probability assigned to the true category
+     */
+    public double getLogLoss() {
+        return logLoss;
+    }
+
+    public void setLogLoss(double logLoss) {
+        this.logLoss = logLoss;
+    }
+
+    public long getDocumentCount() {
+        return documentCount;
+    }
+
+    public void setDocumentCount(long documentCount) {
+        this.documentCount = documentCount;
+    }
+
     /**
      * Calculate average metrics
      */
@@ -87,4 +134,28 @@ public class EvaluationMetrics {
 
         return averages;
     }
-}
\ No newline at end of file
+
+    /**
+     * Per-category metrics averaged with weights proportional to support
+     */
+    public Map<String, Double> getWeightedAverages() {
+        Map<String, Double> averages = new HashMap<>();
+
+        double totalSupport = support.values().stream().mapToInt(Integer::intValue).sum();
+        double weightedPrecision = 0.0, weightedRecall = 0.0, weightedF1 = 0.0;
+        if (totalSupport > 0) {
+            for (Map.Entry<String, Integer> entry : support.entrySet()) {
+                double weight = entry.getValue() / totalSupport;
+                weightedPrecision += weight * precision.getOrDefault(entry.getKey(), 0.0);
+                weightedRecall += weight * recall.getOrDefault(entry.getKey(), 0.0);
+                weightedF1 += weight * f1Score.getOrDefault(entry.getKey(), 0.0);
+            }
+        }
+
+        averages.put("precision", weightedPrecision);
+        averages.put("recall", weightedRecall);
+        averages.put("f1Score", weightedF1);
+
+        return averages;
+    }
+}
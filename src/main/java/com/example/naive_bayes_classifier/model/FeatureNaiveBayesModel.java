@@ -0,0 +1,190 @@
+package com.example.naive_bayes_classifier.model;
+
+import com.example.naive_bayes_classifier.utils.FeatureExtractor;
+import com.example.naive_bayes_classifier.utils.LongIntHashMap;
+
+import java.util.*;
+
+/**
+ * Naive Bayes over 64-bit feature ids (stems, word n-grams and character
+ * n-grams) produced by a {@link FeatureExtractor}.
+ *
+ * Feature ids map to rows through a primitive long → int map; each row holds
+ * the feature's count and document frequency per category.
+ */
+public class FeatureNaiveBayesModel extends AbstractNaiveBayesModel {
+
+    private final FeatureExtractor extractor;
+
+    // feature id -> row + 1 (0 means absent)
+    private LongIntHashMap featureRows = new LongIntHashMap(1024);
+    private List<int[]> rowCounts = new ArrayList<>();
+    private List<int[]> rowDocumentFrequencies = new ArrayList<>();
+
+    private int[] lastSeenDocument = new int[1024];
+    private int documentSerial = 0;
+
+    public FeatureNaiveBayesModel(FeatureExtractor extractor) {
+        this.extractor = extractor;
+    }
+
+    @Override
+    protected long countFeatures(int category, List<String> stems, int delta) {
+        documentSerial++;
+        long[] features = extractor.extract(stems);
+        for (long feature : features) {
+            int row = rowOf(feature);
+            add(rowCounts, row, category, delta);
+            if (lastSeenDocument[row] != documentSerial) {
+                lastSeenDocument[row] = documentSerial;
+                add(rowDocumentFrequencies, row, category, delta);
+            }
+        }
+        return features.length;
+    }
+
+    private int rowOf(long feature) {
+        int row = featureRows.get(feature) - 1;
+        if (row < 0) {
+            row = rowCounts.size();
+            featureRows.put(feature, row + 1);
+            rowCounts.add(new int[getCategoryCount()]);
+            rowDocumentFrequencies.add(new int[getCategoryCount()]);
+            if (row == lastSeenDocument.length) {
+                lastSeenDocument = Arrays.copyOf(lastSeenDocument, row * 2);
+            }
+        }
+        return row;
+    }
+
+    private void add(List<int[]> table, int row, int category, int delta) {
+        int[] values = table.get(row);
+        if (values.length <= category) {
+            values = padToCategories(values);
+            table.set(row, values);
+        }
+        values[category] += delta;
+    }
+
+    /**
+     * Add merged counts of one feature (count shards); category totals are
+     * maintained separately through addCategoryCounts
+     */
+    void addFeatureCounts(long feature, int category, int count, int documentFrequency) {
+        int row = rowOf(feature);
+        add(rowCounts, row, category, count);
+        add(rowDocumentFrequencies, row, category, documentFrequency);
+    }
+
+    @Override
+    protected String featureLabel(List<String> stems, int position) {
+        return extractor.label(stems, position);
+    }
+
+    @Override
+    protected RowSink rowSink(AbstractNaiveBayesModel source) {
+        long[] features = ((FeatureNaiveBayesModel) source).rowFeatures();
+        return (row, category, count, documentFrequency) ->
+                addFeatureCounts(features[row], category, count, documentFrequency);
+    }
+
+    /**
+     * Feature id of every row
+     */
+    long[] rowFeatures() {
+        long[] features = new long[rowCounts.size()];
+        featureRows.forEach((feature, rowPlusOne) -> features[rowPlusOne - 1] = feature);
+        return features;
+    }
+
+    @Override
+    public int[] featureRows(List<String> stems) {
+        long[] features = extractor.extract(stems);
+        int[] rows = new int[features.length];
+        for (int i = 0; i < features.length; i++) {
+            rows[i] = featureRows.get(features[i]) - 1;
+        }
+        return rows;
+    }
+
+    @Override
+    public int[] windowRows(List<String> stems, int[] rows, int start, int end) {
+        return pick(rows, extractor.windowPositions(stems, start, end));
+    }
+
+    @Override
+    public int getFeatureRowCount() {
+        return rowCounts.size();
+    }
+
+    @Override
+    public void forEachFeatureRow(FeatureRowVisitor visitor) {
+        for (int row = 0; row < rowCounts.size(); row++) {
+            visitor.visit(row, padToCategories(rowCounts.get(row)), padToCategories(rowDocumentFrequencies.get(row)));
+        }
+    }
+
+    /**
+     * Drop features seen fewer than minCount times across all categories
+     */
+    @Override
+    public void prune(int minCount) {
+        if (minCount <= 1) {
+            return;
+        }
+
+        int[] newRows = new int[rowCounts.size()];
+        List<int[]> keptCounts = new ArrayList<>();
+        List<int[]> keptFrequencies = new ArrayList<>();
+        long[] totals = new long[getCategoryCount()];
+
+        for (int row = 0; row < rowCounts.size(); row++) {
+            int[] counts = padToCategories(rowCounts.get(row));
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            if (total < minCount) {
+                newRows[row] = -1;
+                continue;
+            }
+            newRows[row] = keptCounts.size();
+            keptCounts.add(counts);
+            keptFrequencies.add(padToCategories(rowDocumentFrequencies.get(row)));
+            for (int c = 0; c < counts.length; c++) {
+                totals[c] += counts[c];
+            }
+        }
+
+        LongIntHashMap keptRows = new LongIntHashMap(keptCounts.size());
+        featureRows.forEach((feature, rowPlusOne) -> {
+            int row = newRows[rowPlusOne - 1];
+            if (row >= 0) {
+                keptRows.put(feature, row + 1);
+            }
+        });
+
+        featureRows = keptRows;
+        rowCounts = keptCounts;
+        rowDocumentFrequencies = keptFrequencies;
+        lastSeenDocument = new int[Math.max(1024, keptCounts.size())];
+        for (int c = 0; c < totals.length; c++) {
+            setCategoryTotal(c, totals[c]);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getDiagnostics() {
+        long memory = featureRows.memoryBytes() + (long) rowCounts.size() * 2 * (16 + 4L * getCategoryCount());
+        Map<String, Object> diagnostics = new LinkedHashMap<>();
+        diagnostics.put("mode", "features");
+        diagnostics.put("features", extractor.getSpec());
+        diagnostics.put("distinctFeatures", rowCounts.size());
+        diagnostics.put("memoryBytes", memory);
+        return diagnostics;
+    }
+
+    public FeatureExtractor getExtractor() {
+        return extractor;
+    }
+}
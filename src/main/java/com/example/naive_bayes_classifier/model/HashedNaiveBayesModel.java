@@ -0,0 +1,286 @@
+package com.example.naive_bayes_classifier.model;
+
+import com.example.naive_bayes_classifier.utils.FeatureExtractor;
+import com.example.naive_bayes_classifier.utils.FeatureHasher;
+
+import java.util.*;
+
+/**
+ * Naive Bayes over a fixed-size hashed feature space.
+ *
+ * Feature ids from a {@link FeatureExtractor} (stems and optional word or
+ * character n-grams) are hashed into 2^bits buckets backed by int[] counts
+ * and document frequencies per category, so count memory is fixed up front
+ * and no string dictionary is kept. Each bucket gets a compact feature row
+ * when it is first used, so compiled score tables grow with the buckets in
+ * use (like a vocabulary) rather than with 2^bits. Models with the same bit
+ * width and features can be merged, which makes sharded training trivial.
+ */
+public class HashedNaiveBayesModel extends AbstractNaiveBayesModel {
+
+    public static final int MIN_BITS = 8;
+    public static final int MAX_BITS = 26;
+
+    private final int bits;
+    private final FeatureExtractor extractor;
+
+    private final List<int[]> categoryBucketCounts = new ArrayList<>();
+    private final List<int[]> categoryBucketFrequencies = new ArrayList<>();
+    // Feature row of every bucket (-1 = unused) and bucket of every row
+    private final int[] bucketRows;
+    private int[] rowBuckets = new int[1024];
+    private int usedBucketCount = 0;
+
+    private final int[] lastSeenDocument;
+    private int documentSerial = 0;
+
+    // Optional collision diagnostic: 64-bit identities of distinct features
+    private Set<Long> distinctFeatures;
+    private int diagnosedDistinctFeatures = -1;
+    private int diagnosedUsedBuckets;
+
+    public HashedNaiveBayesModel(int bits, FeatureExtractor extractor) {
+        if (bits < MIN_BITS || bits > MAX_BITS) {
+            throw new IllegalArgumentException("Hashing bits must be between " + MIN_BITS + " and " + MAX_BITS);
+        }
+        this.bits = bits;
+        this.extractor = extractor;
+        this.bucketRows = new int[1 << bits];
+        Arrays.fill(bucketRows, -1);
+        this.lastSeenDocument = new int[1 << bits];
+    }
+
+    /**
+     * Give a bucket the next feature row if it has none yet
+     */
+    private void markUsed(int bucket) {
+        if (bucketRows[bucket] < 0) {
+            if (usedBucketCount == rowBuckets.length) {
+                rowBuckets = Arrays.copyOf(rowBuckets, rowBuckets.length * 2);
+            }
+            bucketRows[bucket] = usedBucketCount;
+            rowBuckets[usedBucketCount++] = bucket;
+        }
+    }
+
+    /**
+     * Bucket behind a feature row
+     */
+    int getBucket(int row) {
+        return rowBuckets[row];
+    }
+
+    /**
+     * Track distinct features during training to report the collision rate.
+     * Costs one Long per distinct feature until {@link #finishDiagnostics()}.
+     */
+    public void enableCollisionDiagnostics() {
+        distinctFeatures = new HashSet<>();
+    }
+
+    /**
+     * Freeze the collision statistics and release the tracking set
+     * (before pruning, which empties buckets)
+     */
+    public void finishDiagnostics() {
+        if (distinctFeatures != null) {
+            diagnosedDistinctFeatures = distinctFeatures.size();
+            diagnosedUsedBuckets = usedBucketCount;
+            distinctFeatures = null;
+        }
+    }
+
+    private void ensureCategoryArrays(int category) {
+        while (categoryBucketCounts.size() <= category) {
+            categoryBucketCounts.add(new int[1 << bits]);
+            categoryBucketFrequencies.add(new int[1 << bits]);
+        }
+    }
+
+    @Override
+    protected long countFeatures(int category, List<String> stems, int delta) {
+        ensureCategoryArrays(category);
+        int[] counts = categoryBucketCounts.get(category);
+        int[] frequencies = categoryBucketFrequencies.get(category);
+        documentSerial++;
+
+        long[] features = extractor.extract(stems);
+        for (long feature : features) {
+            int bucket = FeatureHasher.bucket(feature, bits);
+            counts[bucket] += delta;
+            if (lastSeenDocument[bucket] != documentSerial) {
+                lastSeenDocument[bucket] = documentSerial;
+                frequencies[bucket] += delta;
+            }
+            markUsed(bucket);
+            if (distinctFeatures != null && delta > 0) {
+                distinctFeatures.add(feature);
+            }
+        }
+        return features.length;
+    }
+
+    @Override
+    public int[] featureRows(List<String> stems) {
+        long[] features = extractor.extract(stems);
+        int[] rows = new int[features.length];
+        for (int i = 0; i < features.length; i++) {
+            rows[i] = bucketRows[FeatureHasher.bucket(features[i], bits)];
+        }
+        return rows;
+    }
+
+    @Override
+    public int[] windowRows(List<String> stems, int[] rows, int start, int end) {
+        return pick(rows, extractor.windowPositions(stems, start, end));
+    }
+
+    @Override
+    public int getFeatureRowCount() {
+        return usedBucketCount;
+    }
+
+    @Override
+    public void forEachFeatureRow(FeatureRowVisitor visitor) {
+        int categories = getCategoryCount();
+        int[] counts = new int[categories];
+        int[] frequencies = new int[categories];
+        for (int row = 0; row < usedBucketCount; row++) {
+            int bucket = rowBuckets[row];
+            for (int c = 0; c < categories; c++) {
+                counts[c] = categoryBucketCounts.get(c)[bucket];
+                frequencies[c] = categoryBucketFrequencies.get(c)[bucket];
+            }
+            visitor.visit(row, counts, frequencies);
+        }
+    }
+
+    /**
+     * Add the counts of another shard trained with the same configuration
+     */
+    public void merge(HashedNaiveBayesModel other) {
+        if (other.bits != bits || !other.extractor.equals(extractor)) {
+            throw new IllegalArgumentException("Cannot merge hashed models with different bits or features");
+        }
+        for (int otherIndex = 0; otherIndex < other.getCategoryCount(); otherIndex++) {
+            int index = addCategoryCounts(other.getCategoryName(otherIndex),
+                    other.getCategoryDocuments(otherIndex), other.getCategoryTotal(otherIndex));
+            ensureCategoryArrays(index);
+            int[] counts = categoryBucketCounts.get(index);
+            int[] frequencies = categoryBucketFrequencies.get(index);
+            int[] otherCounts = other.categoryBucketCounts.get(otherIndex);
+            int[] otherFrequencies = other.categoryBucketFrequencies.get(otherIndex);
+            for (int b = 0; b < counts.length; b++) {
+                counts[b] += otherCounts[b];
+                frequencies[b] += otherFrequencies[b];
+            }
+        }
+        for (int row = 0; row < other.usedBucketCount; row++) {
+            markUsed(other.rowBuckets[row]);
+        }
+        if (distinctFeatures != null && other.distinctFeatures != null) {
+            distinctFeatures.addAll(other.distinctFeatures);
+        }
+    }
+
+    /**
+     * Add merged counts of one bucket (count shards); category totals are
+     * maintained separately through addCategoryCounts
+     */
+    void addBucketCounts(int bucket, int category, int count, int documentFrequency) {
+        // Shards carry no feature identities, so the collision rate is unknown
+        distinctFeatures = null;
+        ensureCategoryArrays(category);
+        categoryBucketCounts.get(category)[bucket] += count;
+        categoryBucketFrequencies.get(category)[bucket] += documentFrequency;
+        markUsed(bucket);
+    }
+
+    /**
+     * Empty buckets whose total count across categories is below minCount.
+     * Their features become unknown, exactly like pruned vocabulary entries,
+     * and the remaining buckets get consecutive rows again.
+     */
+    @Override
+    public void prune(int minCount) {
+        if (minCount <= 1) {
+            return;
+        }
+
+        int categories = getCategoryCount();
+        long[] removed = new long[categories];
+        int kept = 0;
+        for (int row = 0; row < usedBucketCount; row++) {
+            int bucket = rowBuckets[row];
+            long total = 0;
+            for (int c = 0; c < categories; c++) {
+                total += categoryBucketCounts.get(c)[bucket];
+            }
+            if (total >= minCount) {
+                bucketRows[bucket] = kept;
+                rowBuckets[kept++] = bucket;
+                continue;
+            }
+            for (int c = 0; c < categories; c++) {
+                removed[c] += categoryBucketCounts.get(c)[bucket];
+                categoryBucketCounts.get(c)[bucket] = 0;
+                categoryBucketFrequencies.get(c)[bucket] = 0;
+            }
+            bucketRows[bucket] = -1;
+        }
+        usedBucketCount = kept;
+        for (int c = 0; c < categories; c++) {
+            setCategoryTotal(c, getCategoryTotal(c) - removed[c]);
+        }
+    }
+
+    @Override
+    protected String featureLabel(List<String> stems, int position) {
+        return extractor.label(stems, position);
+    }
+
+    @Override
+    protected RowSink rowSink(AbstractNaiveBayesModel source) {
+        HashedNaiveBayesModel hashed = (HashedNaiveBayesModel) source;
+        return (row, category, count, documentFrequency) ->
+                addBucketCounts(hashed.getBucket(row), category, count, documentFrequency);
+    }
+
+    /**
+     * Collision statistics gathered while training, if enabled
+     */
+    @Override
+    public Map<String, Object> getDiagnostics() {
+        Map<String, Object> diagnostics = new LinkedHashMap<>();
+        diagnostics.put("mode", "hashed");
+        diagnostics.put("bits", bits);
+        diagnostics.put("buckets", 1 << bits);
+        diagnostics.put("features", extractor.getSpec());
+        diagnostics.put("usedBuckets", usedBucketCount);
+        diagnostics.put("loadFactor", (double) usedBucketCount / (1 << bits));
+        // Counts and document frequencies per category plus the bucket <-> row maps;
+        // each compiled scorer adds a used buckets x categories table
+        long countBytes = ((long) categoryBucketCounts.size() * 2 * (1L << bits) + (1L << bits) + rowBuckets.length)
+                * Integer.BYTES;
+        long tableBytes = scoreTableBytes();
+        diagnostics.put("countBytes", countBytes);
+        diagnostics.put("scoreTableBytes", tableBytes);
+        diagnostics.put("memoryBytes", countBytes + tableBytes);
+        int distinct = distinctFeatures != null ? distinctFeatures.size() : diagnosedDistinctFeatures;
+        int occupied = distinctFeatures != null ? usedBucketCount : diagnosedUsedBuckets;
+        if (distinct >= 0) {
+            diagnostics.put("distinctFeatures", distinct);
+            // Share of features that landed in a bucket already owned by another feature
+            diagnostics.put("collisionRate", distinct == 0 ? 0.0 : 1.0 - (double) occupied / distinct);
+        }
+        return diagnostics;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public FeatureExtractor getExtractor() {
+        return extractor;
+    }
+}
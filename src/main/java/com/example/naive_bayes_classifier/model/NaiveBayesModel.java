@@ -0,0 +1,160 @@
+package com.example.naive_bayes_classifier.model;
+
+import java.util.*;
+
+/**
+ * Naive Bayes count tables over an exact stem vocabulary.
+ *
+ * Every distinct stem gets a row holding its count and document frequency
+ * per category. A model is filled by {@link #addDocument} during training
+ * and only read afterwards, so a fully built instance can be shared
+ * between threads.
+ */
+public class NaiveBayesModel extends AbstractNaiveBayesModel {
+
+    private Map<String, Integer> termRows = new HashMap<>();
+    private List<String> rowTerms = new ArrayList<>();
+    private List<int[]> rowCounts = new ArrayList<>();
+    private List<int[]> rowDocumentFrequencies = new ArrayList<>();
+
+    // Last document that touched each row, to count document frequencies
+    private int[] lastSeenDocument = new int[1024];
+    private int documentSerial = 0;
+
+    @Override
+    protected long countFeatures(int category, List<String> stems, int delta) {
+        documentSerial++;
+        for (String stem : stems) {
+            int row = rowOf(stem);
+            add(rowCounts, row, category, delta);
+            if (lastSeenDocument[row] != documentSerial) {
+                lastSeenDocument[row] = documentSerial;
+                add(rowDocumentFrequencies, row, category, delta);
+            }
+        }
+        return stems.size();
+    }
+
+    private int rowOf(String term) {
+        Integer row = termRows.get(term);
+        if (row == null) {
+            row = rowTerms.size();
+            termRows.put(term, row);
+            rowTerms.add(term);
+            rowCounts.add(new int[getCategoryCount()]);
+            rowDocumentFrequencies.add(new int[getCategoryCount()]);
+            if (row == lastSeenDocument.length) {
+                lastSeenDocument = Arrays.copyOf(lastSeenDocument, row * 2);
+            }
+        }
+        return row;
+    }
+
+    private void add(List<int[]> table, int row, int category, int delta) {
+        int[] values = table.get(row);
+        if (values.length <= category) {
+            values = padToCategories(values);
+            table.set(row, values);
+        }
+        values[category] += delta;
+    }
+
+    /**
+     * Add merged counts of one term (count shards); category totals are
+     * maintained separately through addCategoryCounts
+     */
+    void addTermCounts(String term, int category, int count, int documentFrequency) {
+        int row = rowOf(term);
+        add(rowCounts, row, category, count);
+        add(rowDocumentFrequencies, row, category, documentFrequency);
+    }
+
+    @Override
+    public int[] featureRows(List<String> stems) {
+        int[] rows = new int[stems.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = termRows.getOrDefault(stems.get(i), -1);
+        }
+        return rows;
+    }
+
+    @Override
+    public int[] windowRows(List<String> stems, int[] rows, int start, int end) {
+        return Arrays.copyOfRange(rows, start, end);
+    }
+
+    @Override
+    public int getFeatureRowCount() {
+        return rowTerms.size();
+    }
+
+    @Override
+    public void forEachFeatureRow(FeatureRowVisitor visitor) {
+        for (int row = 0; row < rowTerms.size(); row++) {
+            visitor.visit(row, padToCategories(rowCounts.get(row)), padToCategories(rowDocumentFrequencies.get(row)));
+        }
+    }
+
+    @Override
+    protected String featureLabel(List<String> stems, int position) {
+        return stems.get(position);
+    }
+
+    @Override
+    protected RowSink rowSink(AbstractNaiveBayesModel source) {
+        NaiveBayesModel exact = (NaiveBayesModel) source;
+        return (row, category, count, documentFrequency) ->
+                addTermCounts(exact.getTerm(row), category, count, documentFrequency);
+    }
+
+    /**
+     * Stem of a feature row
+     */
+    public String getTerm(int row) {
+        return rowTerms.get(row);
+    }
+
+    public boolean containsTerm(String term) {
+        return termRows.containsKey(term);
+    }
+
+    @Override
+    public void prune(int minCount) {
+        if (minCount <= 1) {
+            return;
+        }
+
+        Map<String, Integer> keptRows = new HashMap<>();
+        List<String> keptTerms = new ArrayList<>();
+        List<int[]> keptCounts = new ArrayList<>();
+        List<int[]> keptFrequencies = new ArrayList<>();
+        long[] totals = new long[getCategoryCount()];
+
+        for (int row = 0; row < rowTerms.size(); row++) {
+            int[] counts = padToCategories(rowCounts.get(row));
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            if (total < minCount) {
+                continue;
+            }
+            keptRows.put(rowTerms.get(row), keptTerms.size());
+            keptTerms.add(rowTerms.get(row));
+            keptCounts.add(counts);
+            keptFrequencies.add(padToCategories(rowDocumentFrequencies.get(row)));
+            for (int c = 0; c < counts.length; c++) {
+                totals[c] += counts[c];
+            }
+        }
+
+        termRows = keptRows;
+        rowTerms = keptTerms;
+        rowCounts = keptCounts;
+        rowDocumentFrequencies = keptFrequencies;
+        lastSeenDocument = new int[Math.max(1024, keptTerms.size())];
+        for (int c = 0; c < totals.length; c++) {
+            setCategoryTotal(c, totals[c]);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.naive_bayes_classifier.model;
+
+import java.util.List;
+
+/**
+ * A training document that has already been tokenized and stemmed
+ */
+public class PreprocessedDocument {
+    private String category;
+    private List<String> stems;
+
+    public PreprocessedDocument() {}
+
+    public PreprocessedDocument(String category, List<String> stems) {
+        this.category = category;
+        this.stems = stems;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public List<String> getStems() {
+        return stems;
+    }
+
+    public void setStems(List<String> stems) {
+        this.stems = stems;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.naive_bayes_classifier.model;
+
+import com.example.naive_bayes_classifier.utils.TopKSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Compiled scoring table shared by every Naive Bayes variant.
+ *
+ * score(c) = bias[c] + Σ weight[row][c] over the document's feature rows,
+ * with unseen[c] used for features the model does not know. Weights are
+ * stored row-major in one double[] so that a feature lookup reads all
+ * categories from a single contiguous slice.
+ */
+public class ScoreTable {
+
+    private final String scorer;
+    private final int categoryCount;
+    private final double[] weights;
+    private final double[] bias;
+    private final double[] unseen;
+    private final boolean binary;
+    private final boolean lengthNormalized;
+
+    /**
+     * @param rowCapacity      highest feature row index + 1
+     * @param binary           count each feature at most once per document
+     * @param lengthNormalized divide the feature sum by the document length
+     */
+    public ScoreTable(String scorer, int categoryCount, int rowCapacity,
+                      boolean binary, boolean lengthNormalized) {
+        this.scorer = scorer;
+        this.categoryCount = categoryCount;
+        this.weights = new double[rowCapacity * categoryCount];
+        this.bias = new double[categoryCount];
+        this.unseen = new double[categoryCount];
+        this.binary = binary;
+        this.lengthNormalized = lengthNormalized;
+    }
+
+    public void setWeight(int row, int category, double weight) {
+        weights[row * categoryCount + category] = weight;
+    }
+
+    public void setBias(int category, double value) {
+        bias[category] = value;
+    }
+
+    public void setUnseen(int category, double value) {
+        unseen[category] = value;
+    }
+
+    /**
+     * Score a document given the feature row of every token (-1 = unseen)
+     */
+    public double[] score(int[] rows) {
+        int[] effectiveRows = binary ? distinct(rows) : rows;
+
+        double[] sums = new double[categoryCount];
+        for (int row : effectiveRows) {
+            if (row < 0) {
+                for (int c = 0; c < categoryCount; c++) {
+                    sums[c] += unseen[c];
+                }
+            } else {
+                int offset = row * categoryCount;
+                for (int c = 0; c < categoryCount; c++) {
+                    sums[c] += weights[offset + c];
+                }
+            }
+        }
+
+        double scale = lengthNormalized && effectiveRows.length > 0 ? 1.0 / effectiveRows.length : 1.0;
+        double[] scores = new double[categoryCount];
+        for (int c = 0; c < categoryCount; c++) {
+            scores[c] = bias[c] + sums[c] * scale;
+        }
+        return scores;
+    }
+
+    private static int[] distinct(int[] rows) {
+        int[] sorted = rows.clone();
+        Arrays.sort(sorted);
+        int out = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] >= 0 && (out == 0 || sorted[out - 1] != sorted[i])) {
+                sorted[out++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, out);
+    }
+
+    /**
+     * Features contributing most to score(category) - score(against).
+     *
+     * Occurrences of a row are grouped (one per row for binary tables) and
+     * scaled like {@link #score}; unseen features are left out. The best
+     * {@code limit} groups are picked with a bounded heap, so only those are
+     * given a label.
+     *
+     * @param label name of the feature at a position of {@code rows}
+     * @return best first
+     */
+    public List<TermContribution> contributions(int[] rows, int category, int against, int limit,
+                                                IntFunction<String> label) {
+        // Group occurrences by row with a small open-addressing table (no sort, no boxing)
+        int capacity = Integer.highestOneBit(Math.max(4, rows.length * 2 - 1)) << 1;
+        int mask = capacity - 1;
+        int shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        int[] slotRows = new int[capacity];
+        int[] slotGroups = new int[capacity];
+        Arrays.fill(slotRows, -1);
+
+        int groups = 0;
+        int[] groupRows = new int[rows.length];
+        int[] groupPositions = new int[rows.length];
+        int[] groupOccurrences = new int[rows.length];
+        for (int position = 0; position < rows.length; position++) {
+            int row = rows[position];
+            if (row < 0) {
+                continue;
+            }
+            int slot = (row * 0x9E3779B9) >>> shift;
+            while (slotRows[slot] >= 0 && slotRows[slot] != row) {
+                slot = (slot + 1) & mask;
+            }
+            if (slotRows[slot] == row) {
+                groupOccurrences[slotGroups[slot]]++;
+            } else {
+                slotRows[slot] = row;
+                slotGroups[slot] = groups;
+                groupRows[groups] = row;
+                groupPositions[groups] = position;
+                groupOccurrences[groups] = 1;
+                groups++;
+            }
+        }
+
+        double[] groupValues = new double[groups];
+        for (int g = 0; g < groups; g++) {
+            int offset = groupRows[g] * categoryCount;
+            groupValues[g] = (binary ? 1 : groupOccurrences[g]) * (weights[offset + category] - weights[offset + against]);
+        }
+
+        // Same length as score(): distinct known rows when binary, every token otherwise
+        int effectiveLength = binary ? groups : rows.length;
+        double scale = lengthNormalized && effectiveLength > 0 ? 1.0 / effectiveLength : 1.0;
+
+        int[] best = TopKSelector.select(groupValues, limit);
+        List<TermContribution> selected = new ArrayList<>(best.length);
+        for (int group : best) {
+            selected.add(new TermContribution(label.apply(groupPositions[group]),
+                    groupOccurrences[group], groupValues[group] * scale));
+        }
+        return selected;
+    }
+
+    /**
+     * Weight of one feature row for one category (for explanations and diagnostics)
+     */
+    public double getWeight(int row, int category) {
+        return row < 0 ? unseen[category] : weights[row * categoryCount + category];
+    }
+
+    public String getScorer() {
+        return scorer;
+    }
+
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public boolean isLengthNormalized() {
+        return lengthNormalized;
+    }
+
+    public long memoryBytes() {
+        return (long) (weights.length + bias.length + unseen.length) * Double.BYTES;
+    }
+}
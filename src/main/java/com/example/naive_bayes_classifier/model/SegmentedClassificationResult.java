@@ -0,0 +1,147 @@
+package com.example.naive_bayes_classifier.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classification of a document split into segments (paragraphs or token
+ * windows): a label per segment plus the document-level distribution,
+ * i.e. the segment probabilities averaged with stem counts as weights
+ */
+public class SegmentedClassificationResult {
+    private String predictedCategory;
+    private Map<String, Double> probabilities;
+    private double confidence;
+    private int totalTokens;
+    private String segmentation;
+    private List<Segment> segments;
+    private long processingTimeMs;
+
+    public SegmentedClassificationResult() {}
+
+    public SegmentedClassificationResult(String predictedCategory,
+                                         Map<String, Double> probabilities,
+                                         double confidence) {
+        this.predictedCategory = predictedCategory;
+        this.probabilities = probabilities;
+        this.confidence = confidence;
+    }
+
+    public String getPredictedCategory() {
+        return predictedCategory;
+    }
+
+    public void setPredictedCategory(String predictedCategory) {
+        this.predictedCategory = predictedCategory;
+    }
+
+    public Map<String, Double> getProbabilities() {
+        return probabilities;
+    }
+
+    public void setProbabilities(Map<String, Double> probabilities) {
+        this.probabilities = probabilities;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+
+    public int getTotalTokens() {
+        return totalTokens;
+    }
+
+    public void setTotalTokens(int totalTokens) {
+        this.totalTokens = totalTokens;
+    }
+
+    public String getSegmentation() {
+        return segmentation;
+    }
+
+    public void setSegmentation(String segmentation) {
+        this.segmentation = segmentation;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    public long getProcessingTimeMs() {
+        return processingTimeMs;
+    }
+
+    public void setProcessingTimeMs(long processingTimeMs) {
+        this.processingTimeMs = processingTimeMs;
+    }
+
+    /**
+     * One segment: its stem range [startToken, endToken) in the document
+     * and its label
+     */
+    public static class Segment {
+        private int index;
+        private int startToken;
+        private int endToken;
+        private String predictedCategory;
+        private double confidence;
+
+        public Segment() {}
+
+        public Segment(int index, int startToken, int endToken, String predictedCategory, double confidence) {
+            this.index = index;
+            this.startToken = startToken;
+            this.endToken = endToken;
+            this.predictedCategory = predictedCategory;
+            this.confidence = confidence;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public int getStartToken() {
+            return startToken;
+        }
+
+        public void setStartToken(int startToken) {
+            this.startToken = startToken;
+        }
+
+        public int getEndToken() {
+            return endToken;
+        }
+
+        public void setEndToken(int endToken) {
+            this.endToken = endToken;
+        }
+
+        public String getPredictedCategory() {
+            return predictedCategory;
+        }
+
+        public void setPredictedCategory(String predictedCategory) {
+            this.predictedCategory = predictedCategory;
+        }
+
+        public double getConfidence() {
+            return confidence;
+        }
+
+        public void setConfidence(double confidence) {
+            this.confidence = confidence;
+        }
+    }
+}
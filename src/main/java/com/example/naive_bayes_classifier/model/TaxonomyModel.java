@@ -0,0 +1,244 @@
+package com.example.naive_bayes_classifier.model;
+
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+import com.example.naive_bayes_classifier.utils.TopKSelector;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Naive Bayes over a category hierarchy such as "sport/football".
+ *
+ * Every inner node of the taxonomy has its own model whose categories are
+ * the node's children, trained on the documents below that node. A document
+ * is classified top-down: P(leaf) is the product of the child probabilities
+ * along its path, and at each depth only the {@code beamWidth} most probable
+ * partial paths are expanded, so whole subtrees are never scored.
+ *
+ * A category may not be both a leaf and the parent of other categories.
+ */
+public class TaxonomyModel {
+
+    public static final String SEPARATOR = "/";
+
+    private final Supplier<ClassifierModel> modelFactory;
+    private final Node root = new Node("");
+    private int leafCount = 0;
+
+    /**
+     * @param modelFactory creates an empty model for each inner node
+     */
+    public TaxonomyModel(Supplier<ClassifierModel> modelFactory) {
+        this.modelFactory = modelFactory;
+    }
+
+    /**
+     * Count a document at every level of its category path
+     * @return false if the document has no stems
+     */
+    public boolean addDocument(String categoryPath, List<String> stems) {
+        if (stems.isEmpty()) {
+            return false;
+        }
+        Node node = root;
+        for (String segment : categoryPath.split(SEPARATOR)) {
+            if (node.leaf) {
+                throw new IllegalArgumentException("Category " + node.path + " is both a leaf and a parent");
+            }
+            if (node.model == null) {
+                node.model = modelFactory.get();
+            }
+            node.model.addDocument(segment, stems);
+            Node parent = node;
+            node = node.children.computeIfAbsent(segment,
+                    name -> new Node(parent.path.isEmpty() ? name : parent.path + SEPARATOR + name));
+        }
+        if (!node.children.isEmpty()) {
+            throw new IllegalArgumentException("Category " + node.path + " is both a leaf and a parent");
+        }
+        if (!node.leaf) {
+            node.leaf = true;
+            leafCount++;
+        }
+        return true;
+    }
+
+    /**
+     * Prune and compile every node model once all documents are added
+     */
+    public void finish(Consumer<ClassifierModel> preparation) {
+        Deque<Node> pending = new ArrayDeque<>(List.of(root));
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (node.model != null) {
+                preparation.accept(node.model);
+            }
+            pending.addAll(node.children.values());
+        }
+    }
+
+    /**
+     * Top-down beam search
+     * @param beamWidth partial paths kept per depth (0 = exhaustive)
+     */
+    public Result classify(List<String> stems, NaiveBayesScorer scorer, int beamWidth) {
+        Result result = new Result();
+        List<Node> frontier = List.of(root);
+        double[] frontierScores = {0.0};
+
+        while (!frontier.isEmpty()) {
+            List<Node> candidates = new ArrayList<>();
+            List<Double> candidateScores = new ArrayList<>();
+            for (int i = 0; i < frontier.size(); i++) {
+                Node node = frontier.get(i);
+                double pathScore = frontierScores[i];
+                if (node.leaf) {
+                    result.leaves.put(node.path, pathScore);
+                    continue;
+                }
+                if (node.children.size() == 1) {
+                    // Nothing to decide at this level
+                    candidates.add(node.children.values().iterator().next());
+                    candidateScores.add(pathScore);
+                    continue;
+                }
+
+                double[] logProbabilities = logSoftmax(node.model.scores(stems, scorer));
+                result.nodesScored++;
+                result.categoriesScored += logProbabilities.length;
+                for (int c = 0; c < logProbabilities.length; c++) {
+                    candidates.add(node.children.get(node.model.getCategoryName(c)));
+                    candidateScores.add(pathScore + logProbabilities[c]);
+                }
+            }
+
+            double[] scores = new double[candidates.size()];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = candidateScores.get(i);
+            }
+            int keep = beamWidth > 0 ? Math.min(beamWidth, scores.length) : scores.length;
+            int[] best = TopKSelector.select(scores, keep);
+            List<Node> next = new ArrayList<>(best.length);
+            frontierScores = new double[best.length];
+            for (int i = 0; i < best.length; i++) {
+                next.add(candidates.get(best[i]));
+                frontierScores[i] = scores[best[i]];
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    private static double[] logSoftmax(double[] scores) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double score : scores) {
+            max = Math.max(max, score);
+        }
+        double sum = 0.0;
+        for (double score : scores) {
+            sum += Math.exp(score - max);
+        }
+        double logSum = max + Math.log(sum);
+        for (int c = 0; c < scores.length; c++) {
+            scores[c] -= logSum;
+        }
+        return scores;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Number of top-level sections
+     */
+    public int getSectionCount() {
+        return root.children.size();
+    }
+
+    /**
+     * Number of models (inner nodes)
+     */
+    public int getNodeCount() {
+        int count = 0;
+        Deque<Node> pending = new ArrayDeque<>(List.of(root));
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (node.model != null) {
+                count++;
+            }
+            pending.addAll(node.children.values());
+        }
+        return count;
+    }
+
+    public int getDepth() {
+        int depth = 0;
+        List<Node> level = List.of(root);
+        while (!level.isEmpty()) {
+            List<Node> next = new ArrayList<>();
+            for (Node node : level) {
+                next.addAll(node.children.values());
+            }
+            if (!next.isEmpty()) {
+                depth++;
+            }
+            level = next;
+        }
+        return depth;
+    }
+
+    private static final class Node {
+        final String path;
+        final Map<String, Node> children = new LinkedHashMap<>();
+        ClassifierModel model;
+        boolean leaf;
+
+        Node(String path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * Leaves reached by the beam with their log-probability, and the work done
+     */
+    public static final class Result {
+        private final Map<String, Double> leaves = new HashMap<>();
+        private int nodesScored;
+        private int categoriesScored;
+
+        /**
+         * Leaf paths reached, most probable first, with probabilities
+         */
+        public Map<String, Double> getProbabilities() {
+            List<Map.Entry<String, Double>> entries = new ArrayList<>(leaves.entrySet());
+            entries.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+            Map<String, Double> probabilities = new LinkedHashMap<>();
+            for (Map.Entry<String, Double> entry : entries) {
+                probabilities.put(entry.getKey(), Math.exp(entry.getValue()));
+            }
+            return probabilities;
+        }
+
+        public String getBestLeaf() {
+            String best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Map.Entry<String, Double> entry : leaves.entrySet()) {
+                if (best == null || entry.getValue() > bestScore) {
+                    best = entry.getKey();
+                    bestScore = entry.getValue();
+                }
+            }
+            return best;
+        }
+
+        public int getNodesScored() {
+            return nodesScored;
+        }
+
+        public int getCategoriesScored() {
+            return categoriesScored;
+        }
+    }
+}
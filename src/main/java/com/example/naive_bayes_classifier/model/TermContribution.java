@@ -0,0 +1,43 @@
+package com.example.naive_bayes_classifier.model;
+
+/**
+ * Share of one feature in the score difference between the predicted
+ * category and the runner-up (log-likelihood ratio summed over occurrences)
+ */
+public class TermContribution {
+    private String term;
+    private int occurrences;
+    private double contribution;
+
+    public TermContribution() {}
+
+    public TermContribution(String term, int occurrences, double contribution) {
+        this.term = term;
+        this.occurrences = occurrences;
+        this.contribution = contribution;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public double getContribution() {
+        return contribution;
+    }
+
+    public void setContribution(double contribution) {
+        this.contribution = contribution;
+    }
+}
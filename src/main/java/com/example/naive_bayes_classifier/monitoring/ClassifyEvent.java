@@ -0,0 +1,30 @@
+package com.example.naive_bayes_classifier.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * One text classification from cache lookup to result; the preprocessing
+ * and scoring events of a miss are nested in it on the same thread
+ */
+@Name("naivebayes.Classify")
+@Label("Classify")
+@Category({"Naive Bayes", "Classification"})
+@StackTrace(false)
+public class ClassifyEvent extends Event {
+
+    @Label("Model Version")
+    public long modelVersion;
+
+    @Label("Scorer")
+    public String scorer;
+
+    @Label("Text Length")
+    @Description("Characters")
+    public int textLength;
+
+    @Label("Stems")
+    public int stems;
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+}
@@ -0,0 +1,21 @@
+package com.example.naive_bayes_classifier.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * Arabic normalization of one text
+ */
+@Name("naivebayes.Normalize")
+@Label("Normalize")
+@Category({"Naive Bayes", "Preprocessing"})
+@StackTrace(false)
+public class NormalizeEvent extends Event {
+
+    @Label("Text Length")
+    @Description("Characters")
+    public int textLength;
+
+    @Label("Normalized Length")
+    @Description("Characters")
+    public int normalizedLength;
+}
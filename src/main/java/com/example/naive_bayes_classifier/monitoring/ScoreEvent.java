@@ -0,0 +1,38 @@
+package com.example.naive_bayes_classifier.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * Scoring of one preprocessed document: feature lookup, category scores,
+ * calibration, top-k selection and the optional explanation
+ */
+@Name("naivebayes.Score")
+@Label("Score")
+@Category({"Naive Bayes", "Classification"})
+@StackTrace(false)
+public class ScoreEvent extends Event {
+
+    @Label("Model Version")
+    public long modelVersion;
+
+    @Label("Scorer")
+    public String scorer;
+
+    @Label("Stems")
+    public int stems;
+
+    @Label("Feature Rows")
+    public int featureRows;
+
+    @Label("Categories")
+    public int categories;
+
+    @Label("Top K")
+    public int topK;
+
+    @Label("Explanation Terms")
+    public int explainTerms;
+
+    @Label("Predicted Category")
+    public String predictedCategory;
+}
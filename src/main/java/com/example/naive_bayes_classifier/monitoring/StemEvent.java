@@ -0,0 +1,33 @@
+package com.example.naive_bayes_classifier.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * Stop word filtering and stemming of one token list. Cache hits and
+ * misses refer to the stem memo; both are 0 when it is disabled or the
+ * stemmer is not the configured one.
+ */
+@Name("naivebayes.Stem")
+@Label("Stem")
+@Category({"Naive Bayes", "Preprocessing"})
+@StackTrace(false)
+public class StemEvent extends Event {
+
+    @Label("Stemmer")
+    public String stemmer;
+
+    @Label("Tokens")
+    public int tokens;
+
+    @Label("Stop Words")
+    public int stopWords;
+
+    @Label("Stems")
+    public int stems;
+
+    @Label("Cache Hits")
+    public int cacheHits;
+
+    @Label("Cache Misses")
+    public int cacheMisses;
+}
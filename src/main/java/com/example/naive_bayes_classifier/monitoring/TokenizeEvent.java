@@ -0,0 +1,23 @@
+package com.example.naive_bayes_classifier.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * Tokenization of one (normalized) text
+ */
+@Name("naivebayes.Tokenize")
+@Label("Tokenize")
+@Category({"Naive Bayes", "Preprocessing"})
+@StackTrace(false)
+public class TokenizeEvent extends Event {
+
+    @Label("Tokenizer")
+    public String tokenizer;
+
+    @Label("Text Length")
+    @Description("Characters")
+    public int textLength;
+
+    @Label("Tokens")
+    public int tokens;
+}
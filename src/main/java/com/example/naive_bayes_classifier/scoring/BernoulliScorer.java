@@ -0,0 +1,62 @@
+package com.example.naive_bayes_classifier.scoring;
+
+import com.example.naive_bayes_classifier.model.AbstractNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.ScoreTable;
+
+/**
+ * Bernoulli Naive Bayes over feature presence:
+ * P(w|C) = (docs(w,C) + α) / (docs(C) + 2α).
+ * The absence term Σ log(1 - P(w|C)) over the whole vocabulary is folded
+ * into the bias, so scoring only visits the document's distinct features
+ * with weight log P - log(1 - P).
+ */
+public class BernoulliScorer implements NaiveBayesScorer {
+
+    private final double alpha;
+
+    public BernoulliScorer(double alpha) {
+        if (alpha <= 0) {
+            throw new IllegalArgumentException("Smoothing alpha must be positive");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public String getName() {
+        return "bernoulli";
+    }
+
+    @Override
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public ScoreTable compile(AbstractNaiveBayesModel model) {
+        int categories = model.getCategoryCount();
+        ScoreTable table = new ScoreTable(getName(), categories, model.getFeatureRowCapacity(), true, false);
+
+        double[] denominators = new double[categories];
+        double[] absenceSums = new double[categories];
+        for (int c = 0; c < categories; c++) {
+            denominators[c] = model.getCategoryDocuments(c) + 2 * alpha;
+        }
+
+        model.forEachFeatureRow((row, counts, documentFrequencies) -> {
+            for (int c = 0; c < categories; c++) {
+                double p = (documentFrequencies[c] + alpha) / denominators[c];
+                double logAbsent = Math.log1p(-p);
+                absenceSums[c] += logAbsent;
+                table.setWeight(row, c, Math.log(p) - logAbsent);
+            }
+        });
+
+        for (int c = 0; c < categories; c++) {
+            table.setBias(c, Math.log((double) model.getCategoryDocuments(c) / model.getTotalDocuments())
+                    + absenceSums[c]);
+            // Features outside the vocabulary carry no information
+            table.setUnseen(c, 0.0);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.naive_bayes_classifier.scoring;
+
+import com.example.naive_bayes_classifier.model.AbstractNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.ScoreTable;
+
+/**
+ * Complement Naive Bayes (Rennie et al., 2003): each category is scored by
+ * how poorly the counts of all <em>other</em> categories explain the
+ * document, -Σ log((count(w,¬C) + α) / (total(¬C) + α·V)). Estimates use
+ * much more data for small classes, which makes it robust to imbalance.
+ * Like the reference formulation, no prior is added and unseen features
+ * are ignored.
+ */
+public class ComplementScorer implements NaiveBayesScorer {
+
+    private final double alpha;
+
+    public ComplementScorer(double alpha) {
+        if (alpha <= 0) {
+            throw new IllegalArgumentException("Smoothing alpha must be positive");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public String getName() {
+        return "complement";
+    }
+
+    @Override
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public ScoreTable compile(AbstractNaiveBayesModel model) {
+        int categories = model.getCategoryCount();
+        int vocabSize = model.getFeatureRowCount();
+        ScoreTable table = new ScoreTable(getName(), categories, model.getFeatureRowCapacity(), false, false);
+
+        long allTotal = 0;
+        for (int c = 0; c < categories; c++) {
+            allTotal += model.getCategoryTotal(c);
+        }
+        double[] logComplementDenominators = new double[categories];
+        for (int c = 0; c < categories; c++) {
+            logComplementDenominators[c] = Math.log(allTotal - model.getCategoryTotal(c) + alpha * vocabSize);
+        }
+
+        model.forEachFeatureRow((row, counts, documentFrequencies) -> {
+            long rowTotal = 0;
+            for (int c = 0; c < categories; c++) {
+                rowTotal += counts[c];
+            }
+            for (int c = 0; c < categories; c++) {
+                double complementCount = rowTotal - counts[c];
+                table.setWeight(row, c, logComplementDenominators[c] - Math.log(complementCount + alpha));
+            }
+        });
+        return table;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.naive_bayes_classifier.scoring;
+
+import java.util.*;
+
+/**
+ * Post-hoc calibration of Naive Bayes scores, fit on a held-out split.
+ *
+ * Naive Bayes log scores are sums over many (assumed independent) tokens,
+ * so the softmax is almost always 0.99+. Two cheap fixes are supported:
+ * <ul>
+ *   <li>temperature: probabilities = softmax(score / T), with T chosen to
+ *       minimize log-loss; ranking is unchanged and the whole distribution
+ *       is calibrated</li>
+ *   <li>isotonic: a monotone step function from top-1 probability to
+ *       observed accuracy (pool adjacent violators); only the confidence
+ *       of the predicted category is remapped</li>
+ * </ul>
+ * Applying either costs one division per category or one binary search.
+ */
+public class ConfidenceCalibration {
+
+    public static final List<String> METHODS = List.of("none", "temperature", "isotonic");
+
+    private static final int ECE_BINS = 10;
+    private static final double MIN_LOG_TEMPERATURE = -4.0;
+    private static final double MAX_LOG_TEMPERATURE = 10.0;
+
+    private static final ConfidenceCalibration NONE = new ConfidenceCalibration("none", 1.0, null, null);
+
+    private final String method;
+    private final double temperature;
+    private final double[] thresholds;
+    private final double[] values;
+    private final Map<String, Object> summary = new LinkedHashMap<>();
+
+    private ConfidenceCalibration(String method, double temperature, double[] thresholds, double[] values) {
+        this.method = method;
+        this.temperature = temperature;
+        this.thresholds = thresholds;
+        this.values = values;
+    }
+
+    public static ConfidenceCalibration none() {
+        return NONE;
+    }
+
+    /**
+     * Fit a calibration on held-out raw scores
+     * @param scores per-document category scores (as returned by the model)
+     * @param labels index of the true category of each document
+     */
+    public static ConfidenceCalibration fit(String method, List<double[]> scores, int[] labels) {
+        String name = method == null ? "none" : method.toLowerCase(Locale.ROOT);
+        ConfidenceCalibration calibration;
+        switch (name) {
+            case "none":
+                return NONE;
+            case "temperature":
+                calibration = new ConfidenceCalibration(name, fitTemperature(scores, labels), null, null);
+                break;
+            case "isotonic":
+                calibration = fitIsotonic(scores, labels);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown calibration: " + method + " (expected one of " + METHODS + ")");
+        }
+
+        calibration.summary.put("method", name);
+        calibration.summary.put("documents", labels.length);
+        calibration.summary.put("eceBefore", NONE.expectedCalibrationError(scores, labels));
+        calibration.summary.put("eceAfter", calibration.expectedCalibrationError(scores, labels));
+        if ("temperature".equals(name)) {
+            // Only temperature changes the full distribution, hence the log-loss
+            calibration.summary.put("temperature", calibration.temperature);
+            calibration.summary.put("logLossBefore", logLoss(scores, labels, 1.0));
+            calibration.summary.put("logLossAfter", logLoss(scores, labels, calibration.temperature));
+        } else {
+            calibration.summary.put("steps", calibration.thresholds.length);
+        }
+        return calibration;
+    }
+
+    /**
+     * Softmax of raw scores (with the fitted temperature), written in place
+     */
+    public double[] probabilities(double[] scores) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double score : scores) {
+            max = Math.max(max, score);
+        }
+        double sum = 0.0;
+        for (int c = 0; c < scores.length; c++) {
+            scores[c] = Math.exp((scores[c] - max) / temperature);
+            sum += scores[c];
+        }
+        for (int c = 0; c < scores.length; c++) {
+            scores[c] /= sum;
+        }
+        return scores;
+    }
+
+    /**
+     * Calibrated confidence of the predicted category given its probability
+     */
+    public double confidence(double probability) {
+        if (thresholds == null || thresholds.length == 0) {
+            return probability;
+        }
+        int position = Arrays.binarySearch(thresholds, probability);
+        if (position >= 0) {
+            return values[position];
+        }
+        int upper = -position - 1;
+        if (upper == 0) {
+            return values[0];
+        }
+        if (upper == thresholds.length) {
+            return values[values.length - 1];
+        }
+        // Linear interpolation between neighbouring blocks
+        int lower = upper - 1;
+        double t = (probability - thresholds[lower]) / (thresholds[upper] - thresholds[lower]);
+        return values[lower] + t * (values[upper] - values[lower]);
+    }
+
+    /**
+     * Expected calibration error of the top-1 confidence, equal-width bins
+     */
+    public double expectedCalibrationError(List<double[]> scores, int[] labels) {
+        double[] confidenceSum = new double[ECE_BINS];
+        int[] correct = new int[ECE_BINS];
+        int[] count = new int[ECE_BINS];
+        for (int i = 0; i < labels.length; i++) {
+            double[] probabilities = probabilities(scores.get(i).clone());
+            int best = argmax(probabilities);
+            double confidence = confidence(probabilities[best]);
+            int bin = Math.min(ECE_BINS - 1, (int) (confidence * ECE_BINS));
+            confidenceSum[bin] += confidence;
+            count[bin]++;
+            if (best == labels[i]) {
+                correct[bin]++;
+            }
+        }
+        double error = 0.0;
+        for (int bin = 0; bin < ECE_BINS; bin++) {
+            if (count[bin] > 0) {
+                error += Math.abs(confidenceSum[bin] - correct[bin]);
+            }
+        }
+        return labels.length == 0 ? 0.0 : error / labels.length;
+    }
+
+    /**
+     * Golden-section search of log T minimizing the mean negative log-likelihood
+     */
+    private static double fitTemperature(List<double[]> scores, int[] labels) {
+        double phi = (Math.sqrt(5) - 1) / 2;
+        double a = MIN_LOG_TEMPERATURE;
+        double b = MAX_LOG_TEMPERATURE;
+        double x1 = b - phi * (b - a);
+        double x2 = a + phi * (b - a);
+        double f1 = logLoss(scores, labels, Math.exp(x1));
+        double f2 = logLoss(scores, labels, Math.exp(x2));
+        for (int iteration = 0; iteration < 60 && b - a > 1e-4; iteration++) {
+            if (f1 < f2) {
+                b = x2;
+                x2 = x1;
+                f2 = f1;
+                x1 = b - phi * (b - a);
+                f1 = logLoss(scores, labels, Math.exp(x1));
+            } else {
+                a = x1;
+                x1 = x2;
+                f1 = f2;
+                x2 = a + phi * (b - a);
+                f2 = logLoss(scores, labels, Math.exp(x2));
+            }
+        }
+        return Math.exp((a + b) / 2);
+    }
+
+    private static double logLoss(List<double[]> scores, int[] labels, double temperature) {
+        double loss = 0.0;
+        for (int i = 0; i < labels.length; i++) {
+            double[] row = scores.get(i);
+            double max = Double.NEGATIVE_INFINITY;
+            for (double score : row) {
+                max = Math.max(max, score);
+            }
+            double sum = 0.0;
+            for (double score : row) {
+                sum += Math.exp((score - max) / temperature);
+            }
+            loss -= (row[labels[i]] - max) / temperature - Math.log(sum);
+        }
+        return labels.length == 0 ? 0.0 : loss / labels.length;
+    }
+
+    /**
+     * Pool adjacent violators on (top-1 probability, correct) pairs
+     */
+    private static ConfidenceCalibration fitIsotonic(List<double[]> scores, int[] labels) {
+        int n = labels.length;
+        double[][] pairs = new double[n][2];
+        for (int i = 0; i < n; i++) {
+            double[] probabilities = NONE.probabilities(scores.get(i).clone());
+            int best = argmax(probabilities);
+            pairs[i][0] = probabilities[best];
+            pairs[i][1] = best == labels[i] ? 1.0 : 0.0;
+        }
+        Arrays.sort(pairs, Comparator.comparingDouble(pair -> pair[0]));
+
+        // Blocks: mean x, mean y, weight
+        double[] blockX = new double[n];
+        double[] blockY = new double[n];
+        int[] blockWeight = new int[n];
+        int blocks = 0;
+        for (double[] pair : pairs) {
+            blockX[blocks] = pair[0];
+            blockY[blocks] = pair[1];
+            blockWeight[blocks] = 1;
+            blocks++;
+            while (blocks > 1 && (blockY[blocks - 2] >= blockY[blocks - 1] || blockX[blocks - 2] == blockX[blocks - 1])) {
+                int w1 = blockWeight[blocks - 2];
+                int w2 = blockWeight[blocks - 1];
+                blockX[blocks - 2] = (blockX[blocks - 2] * w1 + blockX[blocks - 1] * w2) / (w1 + w2);
+                blockY[blocks - 2] = (blockY[blocks - 2] * w1 + blockY[blocks - 1] * w2) / (w1 + w2);
+                blockWeight[blocks - 2] = w1 + w2;
+                blocks--;
+            }
+        }
+        return new ConfidenceCalibration("isotonic", 1.0,
+                Arrays.copyOf(blockX, blocks), Arrays.copyOf(blockY, blocks));
+    }
+
+    private static int argmax(double[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
+    public boolean isIdentity() {
+        return this == NONE;
+    }
+
+    /**
+     * Fit report: parameters and calibration error / log-loss before and after
+     */
+    public Map<String, Object> getSummary() {
+        return summary.isEmpty() ? Map.of("method", method) : Collections.unmodifiableMap(summary);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.naive_bayes_classifier.scoring;
+
+import com.example.naive_bayes_classifier.model.AbstractNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.ScoreTable;
+
+/**
+ * Multinomial Naive Bayes with additive smoothing:
+ * log P(C) + Σ log((count(w,C) + α) / (total(C) + α·V))
+ * With α = 1 this is the original Laplace-smoothed classifier.
+ */
+public class MultinomialScorer implements NaiveBayesScorer {
+
+    private final double alpha;
+
+    public MultinomialScorer(double alpha) {
+        if (alpha <= 0) {
+            throw new IllegalArgumentException("Smoothing alpha must be positive");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public String getName() {
+        return "multinomial";
+    }
+
+    @Override
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public ScoreTable compile(AbstractNaiveBayesModel model) {
+        int categories = model.getCategoryCount();
+        int vocabSize = model.getFeatureRowCount();
+        ScoreTable table = new ScoreTable(getName(), categories, model.getFeatureRowCapacity(), false, false);
+
+        double[] logDenominators = new double[categories];
+        for (int c = 0; c < categories; c++) {
+            logDenominators[c] = Math.log(model.getCategoryTotal(c) + alpha * vocabSize);
+            table.setBias(c, Math.log((double) model.getCategoryDocuments(c) / model.getTotalDocuments()));
+            table.setUnseen(c, Math.log(alpha) - logDenominators[c]);
+        }
+
+        model.forEachFeatureRow((row, counts, documentFrequencies) -> {
+            for (int c = 0; c < categories; c++) {
+                table.setWeight(row, c, Math.log(counts[c] + alpha) - logDenominators[c]);
+            }
+        });
+        return table;
+    }
+}
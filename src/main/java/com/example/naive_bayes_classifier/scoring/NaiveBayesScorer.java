@@ -0,0 +1,31 @@
+package com.example.naive_bayes_classifier.scoring;
+
+import com.example.naive_bayes_classifier.model.AbstractNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.ScoreTable;
+
+/**
+ * A Naive Bayes variant, expressed as a compilation of a model's count
+ * rows into a {@link ScoreTable}. Every variant produces the same table
+ * format, so they all classify at the same cost.
+ */
+public interface NaiveBayesScorer {
+
+    /**
+     * Variant name (multinomial, complement, bernoulli, tfidf)
+     */
+    String getName();
+
+    /**
+     * Additive smoothing parameter
+     */
+    double getAlpha();
+
+    /**
+     * Identifies a compiled table (variant + hyperparameters)
+     */
+    default String getKey() {
+        return getName() + ":" + getAlpha();
+    }
+
+    ScoreTable compile(AbstractNaiveBayesModel model);
+}
@@ -0,0 +1,31 @@
+package com.example.naive_bayes_classifier.scoring;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Creates scorers from configuration / request names
+ */
+public final class NaiveBayesScorers {
+
+    public static final List<String> NAMES = List.of("multinomial", "complement", "bernoulli", "tfidf");
+
+    private NaiveBayesScorers() {}
+
+    public static NaiveBayesScorer create(String name, double alpha) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "multinomial":
+                return new MultinomialScorer(alpha);
+            case "complement":
+            case "cnb":
+                return new ComplementScorer(alpha);
+            case "bernoulli":
+                return new BernoulliScorer(alpha);
+            case "tfidf":
+            case "tf-idf":
+                return new TfIdfScorer(alpha);
+            default:
+                throw new IllegalArgumentException("Unknown scorer: " + name + " (expected one of " + NAMES + ")");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.naive_bayes_classifier.scoring;
+
+import com.example.naive_bayes_classifier.model.AbstractNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.ScoreTable;
+
+/**
+ * TF-IDF weighted, length-normalized multinomial Naive Bayes.
+ *
+ * Category counts are reweighted by the smoothed inverse document frequency
+ * idf(w) = ln((1 + N) / (1 + df(w))) + 1 before estimating P(w|C); the
+ * document-side idf factor is folded into the table weights, and the
+ * feature sum is divided by document length so long documents do not
+ * overwhelm the prior. Computed from aggregate counts, so it is an
+ * approximation of per-document TF-IDF transforms.
+ */
+public class TfIdfScorer implements NaiveBayesScorer {
+
+    private final double alpha;
+
+    public TfIdfScorer(double alpha) {
+        if (alpha <= 0) {
+            throw new IllegalArgumentException("Smoothing alpha must be positive");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public String getName() {
+        return "tfidf";
+    }
+
+    @Override
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public ScoreTable compile(AbstractNaiveBayesModel model) {
+        int categories = model.getCategoryCount();
+        int vocabSize = model.getFeatureRowCount();
+        int documents = model.getTotalDocuments();
+        ScoreTable table = new ScoreTable(getName(), categories, model.getFeatureRowCapacity(), false, true);
+
+        // First pass: idf-weighted totals per category
+        double[] weightedTotals = new double[categories];
+        model.forEachFeatureRow((row, counts, documentFrequencies) -> {
+            double idf = idf(documents, sum(documentFrequencies));
+            for (int c = 0; c < categories; c++) {
+                weightedTotals[c] += counts[c] * idf;
+            }
+        });
+
+        double[] logDenominators = new double[categories];
+        double unseenIdf = idf(documents, 0);
+        for (int c = 0; c < categories; c++) {
+            logDenominators[c] = Math.log(weightedTotals[c] + alpha * vocabSize);
+            table.setBias(c, Math.log((double) model.getCategoryDocuments(c) / documents));
+            table.setUnseen(c, unseenIdf * (Math.log(alpha) - logDenominators[c]));
+        }
+
+        // Second pass: weights
+        model.forEachFeatureRow((row, counts, documentFrequencies) -> {
+            double idf = idf(documents, sum(documentFrequencies));
+            for (int c = 0; c < categories; c++) {
+                table.setWeight(row, c, idf * (Math.log(counts[c] * idf + alpha) - logDenominators[c]));
+            }
+        });
+        return table;
+    }
+
+    private static double idf(int documents, int documentFrequency) {
+        return Math.log((1.0 + documents) / (1.0 + documentFrequency)) + 1.0;
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
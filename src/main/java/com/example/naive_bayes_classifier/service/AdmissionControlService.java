@@ -0,0 +1,333 @@
+package com.example.naive_bayes_classifier.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounds concurrent classification work so that a traffic spike sheds a
+ * few requests instead of slowing every request down.
+ *
+ * Work runs under a concurrency limit. When it is reached, interactive
+ * requests wait in a short bounded queue and batch requests in a separate
+ * one; a released slot always goes to a waiting interactive request first,
+ * and batch work may never use more than its share of the limit. Requests
+ * that cannot be queued or time out are rejected immediately (503 for
+ * interactive overload, 429 for batch) with a Retry-After estimate.
+ *
+ * In adaptive mode the limit follows latency (AIMD): it shrinks by 10% when
+ * the average latency of a window exceeds the target and grows by one when
+ * the window was fast and the limit was actually in use.
+ */
+@Service
+public class AdmissionControlService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlService.class);
+
+    private static final int ADAPTIVE_WINDOW = 50;
+    private static final double EWMA_WEIGHT = 0.1;
+
+    public enum Priority { INTERACTIVE, BATCH }
+
+    @Value("${admission.enabled:false}")
+    private boolean enabled;
+
+    // 0 = number of available processors
+    @Value("${admission.max-concurrency:0}")
+    private int maxConcurrency;
+
+    @Value("${admission.queue.interactive-size:64}")
+    private int interactiveQueueSize;
+
+    @Value("${admission.queue.interactive-timeout-ms:100}")
+    private long interactiveTimeoutMs;
+
+    @Value("${admission.queue.batch-size:256}")
+    private int batchQueueSize;
+
+    @Value("${admission.queue.batch-timeout-ms:2000}")
+    private long batchTimeoutMs;
+
+    // Fraction of the concurrency limit batch work may occupy
+    @Value("${admission.batch-share:0.5}")
+    private double batchShare;
+
+    @Value("${admission.adaptive.enabled:false}")
+    private boolean adaptive;
+
+    @Value("${admission.adaptive.target-latency-ms:200}")
+    private double targetLatencyMs;
+
+    @Value("${admission.adaptive.min-concurrency:1}")
+    private int minConcurrency;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition interactiveSlot = lock.newCondition();
+    private final Condition batchSlot = lock.newCondition();
+
+    // Guarded by lock
+    private int limit;
+    private int upperLimit;
+    private int inFlight;
+    private int batchInFlight;
+    private int interactiveQueued;
+    private int batchQueued;
+    private int windowSamples;
+    private double windowLatencyMs;
+    private int windowPeakInFlight;
+
+    private volatile double averageLatencyMs;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong queuedTotal = new AtomicLong();
+    private final AtomicLong rejectedOverloaded = new AtomicLong();
+    private final AtomicLong rejectedBatch = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        upperLimit = maxConcurrency > 0 ? maxConcurrency : Runtime.getRuntime().availableProcessors();
+        minConcurrency = Math.max(1, Math.min(minConcurrency, upperLimit));
+        limit = upperLimit;
+        if (enabled) {
+            logger.info("Admission control enabled: limit {}, adaptive {}, target latency {} ms",
+                    limit, adaptive, targetLatencyMs);
+        }
+    }
+
+    /**
+     * Run work under admission control
+     * @throws AdmissionRejectedException if the work is shed
+     */
+    public <T> T call(Priority priority, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+
+        acquire(priority);
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            release(priority, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    private void acquire(Priority priority) {
+        boolean batch = priority == Priority.BATCH;
+        lock.lock();
+        try {
+            if (canRun(batch)) {
+                admit(batch);
+                return;
+            }
+
+            if (batch ? batchQueued >= batchQueueSize : interactiveQueued >= interactiveQueueSize) {
+                throw reject(batch, false);
+            }
+
+            queuedTotal.incrementAndGet();
+            if (batch) {
+                batchQueued++;
+            } else {
+                interactiveQueued++;
+            }
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(batch ? batchTimeoutMs : interactiveTimeoutMs);
+                Condition slot = batch ? batchSlot : interactiveSlot;
+                while (!canRun(batch)) {
+                    if (remaining <= 0) {
+                        throw reject(batch, true);
+                    }
+                    remaining = slot.awaitNanos(remaining);
+                }
+                admit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(batch, true);
+            } finally {
+                if (batch) {
+                    batchQueued--;
+                } else {
+                    interactiveQueued--;
+                }
+                // Leaving the interactive queue may unblock batch work, and a
+                // signal this thread consumed before timing out must not be lost
+                wakeWaiters();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a request may start now (caller holds the lock). Batch work
+     * yields to queued interactive requests and stays within its share.
+     */
+    private boolean canRun(boolean batch) {
+        if (inFlight >= limit) {
+            return false;
+        }
+        if (!batch) {
+            return true;
+        }
+        int batchLimit = Math.max(1, (int) (limit * batchShare));
+        return interactiveQueued == 0 && batchInFlight < batchLimit;
+    }
+
+    private void admit(boolean batch) {
+        inFlight++;
+        if (batch) {
+            batchInFlight++;
+        }
+        windowPeakInFlight = Math.max(windowPeakInFlight, inFlight);
+        admitted.incrementAndGet();
+    }
+
+    private void release(Priority priority, double latencyMs) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (priority == Priority.BATCH) {
+                batchInFlight--;
+            }
+            averageLatencyMs = averageLatencyMs == 0.0 ? latencyMs
+                    : averageLatencyMs + EWMA_WEIGHT * (latencyMs - averageLatencyMs);
+            if (adaptive) {
+                adapt(latencyMs);
+            }
+
+            wakeWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wake every waiter of each class that could start now (caller holds the
+     * lock). Waking all of them rather than one means a signal can never be
+     * lost to a thread that has already been woken; those that lose the race
+     * for the slot re-check and wait again. Batch only sees a slot nobody
+     * interactive wants, since canRun(batch) is false while interactive
+     * requests are queued.
+     */
+    private void wakeWaiters() {
+        if (interactiveQueued > 0 && canRun(false)) {
+            interactiveSlot.signalAll();
+        }
+        if (batchQueued > 0 && canRun(true)) {
+            batchSlot.signalAll();
+        }
+    }
+
+    /**
+     * AIMD step once per window of completed requests (caller holds the lock)
+     */
+    private void adapt(double latencyMs) {
+        windowSamples++;
+        windowLatencyMs += latencyMs;
+        if (windowSamples < ADAPTIVE_WINDOW) {
+            return;
+        }
+
+        double windowAverage = windowLatencyMs / windowSamples;
+        int previous = limit;
+        if (windowAverage > targetLatencyMs) {
+            limit = Math.max(minConcurrency, (int) (limit * 0.9));
+        } else if (windowPeakInFlight >= limit && limit < upperLimit) {
+            limit++;
+        }
+        if (limit != previous) {
+            logger.info("Adaptive admission limit {} -> {} (window latency {} ms)",
+                    previous, limit, String.format("%.1f", windowAverage));
+        }
+
+        windowSamples = 0;
+        windowLatencyMs = 0.0;
+        windowPeakInFlight = inFlight;
+    }
+
+    private AdmissionRejectedException reject(boolean batch, boolean afterWaiting) {
+        if (afterWaiting) {
+            timedOut.incrementAndGet();
+        }
+        if (batch) {
+            rejectedBatch.incrementAndGet();
+        } else {
+            rejectedOverloaded.incrementAndGet();
+        }
+
+        // Time for the work ahead of us to drain through the current limit
+        int queued = interactiveQueued + (batch ? batchQueued : 0);
+        double drainMs = averageLatencyMs * (inFlight + queued) / Math.max(1, limit);
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(drainMs / 1000.0));
+
+        return new AdmissionRejectedException(batch, retryAfterSeconds,
+                (batch ? "Batch capacity exhausted" : "Classifier overloaded")
+                        + (afterWaiting ? " (queue timeout)" : " (queue full)"));
+    }
+
+    /**
+     * Queue depth, limit and rejection counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        lock.lock();
+        try {
+            stats.put("enabled", enabled);
+            stats.put("adaptive", adaptive);
+            stats.put("limit", limit);
+            stats.put("inFlight", inFlight);
+            stats.put("batchInFlight", batchInFlight);
+            stats.put("interactiveQueueDepth", interactiveQueued);
+            stats.put("batchQueueDepth", batchQueued);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("admitted", admitted.get());
+        stats.put("queued", queuedTotal.get());
+        stats.put("rejectedOverloaded", rejectedOverloaded.get());
+        stats.put("rejectedBatch", rejectedBatch.get());
+        stats.put("queueTimeouts", timedOut.get());
+        stats.put("averageLatencyMs", averageLatencyMs);
+        return stats;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Work was shed; maps to 503 (interactive overload) or 429 (batch) with Retry-After
+     */
+    public static class AdmissionRejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean batch;
+        private final long retryAfterSeconds;
+
+        public AdmissionRejectedException(boolean batch, long retryAfterSeconds, String message) {
+            super(message);
+            this.batch = batch;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public boolean isBatch() {
+            return batch;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.ClassificationResult;
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+import com.example.naive_bayes_classifier.utils.PreprocessedCorpusReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * Headless batch classification (profile "batch", started with --batch).
+ *
+ * No web server is started. The model is built from count shards, the
+ * preprocessed corpus or Data/, then documents flow through a pipeline of
+ * bounded queues:
+ * <pre>
+ *   reader thread -> N workers (preprocess + score) -> writer (this thread)
+ * </pre>
+ * Input is either a directory (one document per file) or a text file (one
+ * document per non-blank line). Results are written as NDJSON or CSV in
+ * completion order, each row carrying the document id. Throughput and
+ * per-document latency percentiles are printed to stderr at the end.
+ */
+@Service
+@Profile("batch")
+public class BatchClassificationRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchClassificationRunner.class);
+
+    private static final Item END_OF_INPUT = new Item(null, null, null);
+    private static final Output WORKER_DONE = new Output(null, null, null, 0);
+
+    @Autowired
+    private NaiveBayesService naiveBayesService;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private CountShardService countShardService;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    // Directory (one document per file) or file (one document per line)
+    @Value("${batch.input:}")
+    private String input;
+
+    // "-" = stdout
+    @Value("${batch.output:-}")
+    private String output;
+
+    // ndjson or csv
+    @Value("${batch.format:ndjson}")
+    private String format;
+
+    // auto (shards, then corpus, then Data/), shards, corpus or data
+    @Value("${batch.model:auto}")
+    private String modelSource;
+
+    // Only files with this extension are read from an input directory (empty = all)
+    @Value("${batch.file-extension:.txt}")
+    private String fileExtension;
+
+    // 0 = number of available processors
+    @Value("${batch.threads:0}")
+    private int threads;
+
+    @Value("${batch.queue-size:1024}")
+    private int queueSize;
+
+    // Categories written per document (1 = predicted category only)
+    @Value("${batch.top-k:1}")
+    private int topK;
+
+    // Empty = configured default scorer
+    @Value("${batch.scorer:}")
+    private String scorerName;
+
+    private volatile int exitCode = 0;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (input.isBlank()) {
+            throw new IllegalArgumentException("Batch mode needs --batch.input=<directory or file>");
+        }
+        Path inputPath = Paths.get(input);
+        if (!Files.exists(inputPath)) {
+            throw new FileNotFoundException("Batch input not found: " + inputPath);
+        }
+        if (!"ndjson".equals(format) && !"csv".equals(format)) {
+            throw new IllegalArgumentException("Unknown batch format: " + format + " (expected ndjson or csv)");
+        }
+
+        long loadStart = System.nanoTime();
+        loadModel();
+        long loadNanos = System.nanoTime() - loadStart;
+        NaiveBayesScorer scorer = naiveBayesService.resolveScorer(scorerName.isBlank() ? null : scorerName);
+        int workerCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        BlockingQueue<Item> items = new ArrayBlockingQueue<>(queueSize);
+        BlockingQueue<Output> outputs = new ArrayBlockingQueue<>(queueSize);
+        Thread reader = new Thread(() -> read(inputPath, items, workerCount), "batch-reader");
+        reader.setDaemon(true);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(() -> work(items, outputs, scorer), "batch-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        reader.start();
+        workers.forEach(Thread::start);
+
+        Stats stats = new Stats();
+        boolean toStdout = "-".equals(output);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                toStdout ? System.out : Files.newOutputStream(Paths.get(output)), StandardCharsets.UTF_8), 1 << 16);
+        try {
+            if ("csv".equals(format)) {
+                writer.write(topK > 1 ? "id,category,confidence,top,error\n" : "id,category,confidence,error\n");
+            }
+            int finishedWorkers = 0;
+            while (finishedWorkers < workerCount) {
+                Output result = outputs.take();
+                if (result == WORKER_DONE) {
+                    finishedWorkers++;
+                    continue;
+                }
+                write(writer, result);
+                stats.record(result);
+            }
+        } finally {
+            // Never close stdout: it is not ours (logs go to stderr, see logback-spring.xml)
+            if (toStdout) {
+                writer.flush();
+            } else {
+                writer.close();
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        if (stats.failed > 0) {
+            exitCode = 2;
+        }
+        System.err.println(stats.summary(elapsedNanos, loadNanos, workerCount));
+    }
+
+    private void loadModel() throws Exception {
+        String source = modelSource.toLowerCase(Locale.ROOT);
+        if ("auto".equals(source)) {
+            source = !countShardService.listShards().isEmpty() ? "shards"
+                    : Files.exists(trainingService.getCorpusPath()) ? "corpus" : "data";
+        }
+        switch (source) {
+            case "shards":
+                countShardService.mergeShards(List.of());
+                break;
+            case "corpus":
+                try (PreprocessedCorpusReader reader = trainingService.openPreprocessedCorpus()) {
+                    naiveBayesService.trainPreprocessed(reader, reader.getMetadata().get("stemmer"));
+                }
+                break;
+            case "data":
+                List<TrainingDocument> documents = trainingService.loadTrainingData();
+                if (documents.isEmpty()) {
+                    throw new IllegalStateException("No training data found in Data/");
+                }
+                naiveBayesService.train(documents);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown batch model source: " + modelSource
+                        + " (expected auto, shards, corpus or data)");
+        }
+        logger.info("Batch model loaded from {} ({} categories)", source, naiveBayesService.getModel().getCategoryCount());
+    }
+
+    /**
+     * Reader stage: one item per file or per non-blank line, then one end marker per worker
+     */
+    private void read(Path inputPath, BlockingQueue<Item> items, int workerCount) {
+        long sequence = 0;
+        try {
+            if (Files.isDirectory(inputPath)) {
+                try (Stream<Path> files = Files.walk(inputPath)) {
+                    Iterator<Path> iterator = files.filter(Files::isRegularFile)
+                            .filter(file -> fileExtension.isEmpty() || file.toString().endsWith(fileExtension))
+                            .iterator();
+                    while (iterator.hasNext()) {
+                        Path file = iterator.next();
+                        String id = inputPath.relativize(file).toString();
+                        sequence++;
+                        try {
+                            items.put(new Item(id, Files.readString(file, StandardCharsets.UTF_8), null));
+                        } catch (IOException e) {
+                            items.put(new Item(id, null, e.getMessage()));
+                        }
+                    }
+                }
+            } else {
+                try (BufferedReader reader = Files.newBufferedReader(inputPath, StandardCharsets.UTF_8)) {
+                    String line;
+                    long lineNumber = 0;
+                    while ((line = reader.readLine()) != null) {
+                        lineNumber++;
+                        if (!line.isBlank()) {
+                            sequence++;
+                            items.put(new Item(String.valueOf(lineNumber), line, null));
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Batch input aborted after {} documents: {}", sequence, e.getMessage());
+            exitCode = 1;
+        } finally {
+            for (int i = 0; i < workerCount; i++) {
+                try {
+                    items.put(END_OF_INPUT);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Worker stage: preprocess and score against the published model
+     */
+    private void work(BlockingQueue<Item> items, BlockingQueue<Output> outputs, NaiveBayesScorer scorer) {
+        try {
+            workLoop(items, outputs, scorer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // The writer counts these markers; it must get one whatever happened
+            try {
+                outputs.put(WORKER_DONE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void workLoop(BlockingQueue<Item> items, BlockingQueue<Output> outputs, NaiveBayesScorer scorer)
+            throws InterruptedException {
+        while (true) {
+            Item item = items.take();
+            if (item == END_OF_INPUT) {
+                break;
+            }
+            if (item.error != null) {
+                outputs.put(new Output(item, null, item.error, 0));
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                ClassificationResult result = naiveBayesService.classifyStems(
+                        preprocessingService.preprocess(item.text), scorer, topK);
+                outputs.put(new Output(item, result, null, System.nanoTime() - start));
+            } catch (RuntimeException e) {
+                outputs.put(new Output(item, null, String.valueOf(e.getMessage()), System.nanoTime() - start));
+            }
+        }
+    }
+
+    private void write(Writer writer, Output result) throws IOException {
+        String id = result.item.id;
+        if ("csv".equals(format)) {
+            writer.write(csv(id));
+            if (result.error != null) {
+                writer.write(",," + (topK > 1 ? "," : "") + "," + csv(result.error) + "\n");
+                return;
+            }
+            writer.write(',');
+            writer.write(csv(result.result.getPredictedCategory()));
+            writer.write(',');
+            writer.write(String.valueOf(result.result.getConfidence()));
+            if (topK > 1) {
+                StringBuilder top = new StringBuilder();
+                for (Map.Entry<String, Double> entry : result.result.getProbabilities().entrySet()) {
+                    if (top.length() > 0) {
+                        top.append(';');
+                    }
+                    top.append(entry.getKey()).append(':').append(entry.getValue());
+                }
+                writer.write(',');
+                writer.write(csv(top.toString()));
+            }
+            // Empty error column
+            writer.write(",\n");
+            return;
+        }
+
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"id\":").append(json(id));
+        if (result.error != null) {
+            line.append(",\"error\":").append(json(result.error));
+        } else {
+            line.append(",\"category\":").append(json(result.result.getPredictedCategory()));
+            line.append(",\"confidence\":").append(result.result.getConfidence());
+            if (topK > 1) {
+                line.append(",\"probabilities\":{");
+                boolean first = true;
+                for (Map.Entry<String, Double> entry : result.result.getProbabilities().entrySet()) {
+                    if (!first) {
+                        line.append(',');
+                    }
+                    first = false;
+                    line.append(json(entry.getKey())).append(':').append(entry.getValue());
+                }
+                line.append('}');
+            }
+        }
+        line.append("}\n");
+        writer.write(line.toString());
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.append('"').toString();
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private static final class Item {
+        final String id;
+        final String text;
+        final String error;
+
+        Item(String id, String text, String error) {
+            this.id = id;
+            this.text = text;
+            this.error = error;
+        }
+    }
+
+    private static final class Output {
+        final Item item;
+        final ClassificationResult result;
+        final String error;
+        final long latencyNanos;
+
+        Output(Item item, ClassificationResult result, String error, long latencyNanos) {
+            this.item = item;
+            this.result = result;
+            this.error = error;
+            this.latencyNanos = latencyNanos;
+        }
+    }
+
+    /**
+     * Counters and per-document latencies, owned by the writer thread
+     */
+    private static final class Stats {
+        long documents;
+        long failed;
+        long characters;
+        long[] latencies = new long[1024];
+        int latencyCount;
+
+        void record(Output output) {
+            documents++;
+            if (output.error != null) {
+                failed++;
+                return;
+            }
+            characters += output.item.text.length();
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencyCount * 2);
+            }
+            latencies[latencyCount++] = output.latencyNanos;
+        }
+
+        String summary(long elapsedNanos, long loadNanos, int workers) {
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            return String.format(Locale.ROOT,
+                    "Batch classification: %d documents (%d failed) in %.2f s with %d workers, model load %.2f s%n"
+                            + "  throughput : %.1f docs/s, %.2f M chars/s%n"
+                            + "  latency ms : p50 %.3f, p90 %.3f, p99 %.3f, max %.3f",
+                    documents, failed, seconds, workers, loadNanos / 1e9,
+                    seconds > 0 ? documents / seconds : 0.0,
+                    seconds > 0 ? characters / seconds / 1e6 : 0.0,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90),
+                    percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+}
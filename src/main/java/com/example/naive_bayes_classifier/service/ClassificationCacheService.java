@@ -0,0 +1,275 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.ClassificationResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of classification results.
+ *
+ * Entries are keyed by a digest of the text exactly as the preprocessing
+ * pipeline sees it (the output of {@link TextPreprocessingService#normalize})
+ * together with the Naive Bayes variant that produced them: the first 128
+ * bits of its SHA-256, so keys have a fixed size whatever the text length
+ * and two texts only share an entry if the pipeline cannot tell them apart.
+ * Entries are tagged with the model version they were computed with, so
+ * results from an older model are never served. The whole cache is also
+ * cleared whenever a new model is published.
+ *
+ * The cache is split into segments picked by key hash, each an LRU map with
+ * its own lock and an equal share of the capacity, so concurrent requests
+ * only contend when they land in the same segment.
+ */
+@Service
+public class ClassificationCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassificationCacheService.class);
+
+    // Chars hashed per digest update
+    private static final int DIGEST_CHUNK_CHARS = 2048;
+
+    @Value("${classifier.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${classifier.cache.max-size:10000}")
+    private int maxSize;
+
+    // Independently locked LRU segments (rounded up to a power of two)
+    @Value("${classifier.cache.segments:16}")
+    private int segmentCount;
+
+    private Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(segmentCount, maxSize) - 1)) << 1;
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // Shares of max-size that add up to it exactly
+            segments[i] = new Segment(Math.max(1, maxSize / count + (i < maxSize % count ? 1 : 0)));
+        }
+        if (enabled) {
+            logger.info("Classification result cache enabled (max {} entries in {} segments)", maxSize, count);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Look up a cached result for this key and model version
+     * @return a copy of the cached result with its drift figures, or null on miss
+     */
+    public Hit get(Key key, long modelVersion) {
+        Segment segment = segmentFor(key);
+        CacheEntry entry;
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+        }
+        if (entry == null || entry.modelVersion != modelVersion) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Hit(copy(entry.result), entry.oovStems);
+    }
+
+    /**
+     * Store the result computed for this key with the given model version
+     * @param oovStems stems of the document the model has never seen, for drift monitoring of hits
+     */
+    public void put(Key key, long modelVersion, ClassificationResult result, int oovStems) {
+        CacheEntry entry = new CacheEntry(modelVersion, copy(result), oovStems);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.entries.put(key, entry);
+        }
+    }
+
+    private Segment segmentFor(Key key) {
+        // Digest bits are uniform already
+        return segments[(int) key.high & (segments.length - 1)];
+    }
+
+    /**
+     * Drop every entry, called when a new model is published
+     */
+    public void invalidate() {
+        int dropped = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                dropped += segment.entries.size();
+                segment.entries.clear();
+            }
+        }
+        if (dropped > 0) {
+            logger.info("Invalidating {} cached classification results", dropped);
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Key of a normalized text and variant: SHA-256 of the text's UTF-16
+     * code units, fed in small chunks so the text is never copied whole
+     */
+    public Key key(String normalizedText, String variant) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+        byte[] chunk = new byte[2 * Math.min(DIGEST_CHUNK_CHARS, Math.max(1, normalizedText.length()))];
+        for (int from = 0; from < normalizedText.length(); from += DIGEST_CHUNK_CHARS) {
+            int to = Math.min(normalizedText.length(), from + DIGEST_CHUNK_CHARS);
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                char c = normalizedText.charAt(i);
+                chunk[n++] = (byte) (c >>> 8);
+                chunk[n++] = (byte) c;
+            }
+            digest.update(chunk, 0, n);
+        }
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new Key(hash.getLong(), hash.getLong(), variant);
+    }
+
+    /**
+     * Copy of a result; probabilities keep their most-probable-first order
+     */
+    private static ClassificationResult copy(ClassificationResult result) {
+        ClassificationResult copy = new ClassificationResult(
+                result.getPredictedCategory(),
+                result.getProbabilities() == null ? null : new LinkedHashMap<>(result.getProbabilities()),
+                result.getConfidence()
+        );
+        copy.setTotalTokens(result.getTotalTokens());
+        copy.setUniqueTokens(result.getUniqueTokens());
+        copy.setExplainedAgainst(result.getExplainedAgainst());
+        copy.setExplanation(result.getExplanation() == null ? null : new ArrayList<>(result.getExplanation()));
+        return copy;
+    }
+
+    /**
+     * Get cache statistics
+     */
+    public Map<String, Object> getStats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", size);
+        stats.put("maxSize", maxSize);
+        stats.put("segments", segments.length);
+        stats.put("hits", hitCount);
+        stats.put("misses", lookups - hitCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    /**
+     * Access-ordered LRU map guarded by its own monitor
+     */
+    private final class Segment {
+        private final LinkedHashMap<Key, CacheEntry> entries;
+
+        Segment(int capacity) {
+            entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    public static final class Key {
+        private final long high;
+        private final long low;
+        private final String variant;
+
+        Key(long high, long low, String variant) {
+            this.high = high;
+            this.low = low;
+            this.variant = variant;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return high == key.high && low == key.low && variant.equals(key.variant);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32)) * 31 + variant.hashCode();
+        }
+    }
+
+    /**
+     * A cached result and the out-of-vocabulary stem count of its document
+     */
+    public static final class Hit {
+        private final ClassificationResult result;
+        private final int oovStems;
+
+        Hit(ClassificationResult result, int oovStems) {
+            this.result = result;
+            this.oovStems = oovStems;
+        }
+
+        public ClassificationResult getResult() {
+            return result;
+        }
+
+        public int getOovStems() {
+            return oovStems;
+        }
+    }
+
+    private static class CacheEntry {
+        private final long modelVersion;
+        private final ClassificationResult result;
+        private final int oovStems;
+
+        CacheEntry(long modelVersion, ClassificationResult result, int oovStems) {
+            this.modelVersion = modelVersion;
+            this.result = result;
+            this.oovStems = oovStems;
+        }
+    }
+}
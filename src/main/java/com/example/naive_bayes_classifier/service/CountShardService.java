@@ -0,0 +1,300 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.AbstractNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.ClassifierModel;
+import com.example.naive_bayes_classifier.model.CountShardFile;
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
+import com.example.naive_bayes_classifier.utils.MinHashDeduplicator;
+import com.example.naive_bayes_classifier.utils.PreprocessedCorpusReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Distributed training over plain files.
+ *
+ * Each worker counts its slice of the data (document i belongs to shard
+ * i mod shardCount) and writes a count shard; any node holding the shard
+ * files then merges them into a model. Counts are added, not averaged, so
+ * the merged model is identical to one trained on all documents at once.
+ *
+ * With training.dedup.enabled, near-duplicates are removed within each
+ * shard as it is counted. Shards are counted independently, so duplicates
+ * that land in different shards are all kept; the merged model reports
+ * per-shard deduplication.
+ */
+@Service
+public class CountShardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CountShardService.class);
+
+    public static final String SHARD_EXTENSION = ".nbcs";
+
+    @Autowired
+    private NaiveBayesService naiveBayesService;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    // Directory shard files are written to and merged from
+    @Value("${training.shards.path:shards}")
+    private String shardsPath;
+
+    /**
+     * Count one slice of the training data (preprocessed corpus if present,
+     * otherwise Data/) and write it as a count shard
+     */
+    public Map<String, Object> exportShard(int shardIndex, int shardCount, Path target) throws IOException {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Shard index must be in [0, shardCount)");
+        }
+        long start = System.currentTimeMillis();
+        AbstractNaiveBayesModel counts = emptyModel();
+        MinHashDeduplicator deduplicator = naiveBayesService.newDeduplicator();
+        int documents = 0;
+        String source;
+
+        if (Files.exists(trainingService.getCorpusPath())) {
+            try (PreprocessedCorpusReader reader = trainingService.openPreprocessedCorpus()) {
+                counts.setStemmer(reader.getMetadata().get("stemmer"));
+                int position = 0;
+                for (PreprocessedDocument doc : reader) {
+                    if (position++ % shardCount == shardIndex
+                            && (deduplicator == null || !deduplicator.isDuplicate(doc.getCategory(), doc.getStems()))
+                            && counts.addDocument(doc.getCategory(), doc.getStems())) {
+                        documents++;
+                    }
+                }
+            }
+            source = "corpus";
+        } else {
+            counts.setStemmer(preprocessingService.getStemmerName());
+            // Directory listing order is platform-dependent; every worker must see the same order
+            List<TrainingDocument> all = new ArrayList<>(trainingService.loadTrainingData());
+            all.sort(Comparator.comparing(TrainingDocument::getCategory));
+            for (int i = shardIndex; i < all.size(); i += shardCount) {
+                TrainingDocument doc = all.get(i);
+                List<String> stems = preprocessingService.preprocess(doc.getContent());
+                if ((deduplicator == null || !deduplicator.isDuplicate(doc.getCategory(), stems))
+                        && counts.addDocument(doc.getCategory(), stems)) {
+                    documents++;
+                }
+            }
+            source = "data";
+        }
+
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("shardIndex", String.valueOf(shardIndex));
+        metadata.put("shardCount", String.valueOf(shardCount));
+        metadata.put("source", source);
+        metadata.put("createdAt", String.valueOf(System.currentTimeMillis()));
+        if (deduplicator != null) {
+            metadata.put("dedupChecked", String.valueOf(deduplicator.getChecked()));
+            metadata.put("dedupDuplicates", String.valueOf(deduplicator.getDuplicates()));
+        }
+        int rows = CountShardFile.write(counts, target, metadata);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("path", target.toString());
+        stats.put("shardIndex", shardIndex);
+        stats.put("shardCount", shardCount);
+        stats.put("source", source);
+        stats.put("documents", documents);
+        stats.put("categories", counts.getCategoryCount());
+        stats.put("rows", rows);
+        if (deduplicator != null) {
+            Map<String, Object> deduplication = new LinkedHashMap<>(deduplicator.getStats());
+            deduplication.put("scope", "shard");
+            stats.put("deduplication", deduplication);
+        }
+        stats.put("shardBytes", Files.size(target));
+        stats.put("exportTimeMs", System.currentTimeMillis() - start);
+
+        logger.info("Wrote count shard {}/{} to {} ({} documents, {} rows)",
+                shardIndex, shardCount, target, documents, rows);
+        return stats;
+    }
+
+    /**
+     * Merge count shards into a new model and publish it. The shards must form
+     * one complete set: the same shardCount, every index from 0 to
+     * shardCount - 1 exactly once, and the same stemmer, so that no document
+     * is counted twice or left out.
+     * @param shards shard files; every shard in the shard directory when empty
+     */
+    public Map<String, Object> mergeShards(List<Path> shards) throws IOException {
+        List<Path> files = shards.isEmpty() ? listShards() : shards;
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No count shards found in " + getShardsPath());
+        }
+        long start = System.currentTimeMillis();
+        String stemmer = checkShardSet(files);
+        AbstractNaiveBayesModel merged = emptyModel();
+        List<Map<String, String>> merges = new ArrayList<>();
+
+        for (Path file : files) {
+            Map<String, String> metadata = new LinkedHashMap<>(CountShardFile.mergeInto(merged, file));
+            metadata.put("path", file.toString());
+            merges.add(metadata);
+        }
+        merged.setStemmer(stemmer);
+        Map<String, Object> deduplication = mergedDeduplication(merges);
+        naiveBayesService.trainFromCounts(merged, deduplication);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shards", merges);
+        stats.put("documents", merged.getTotalDocuments());
+        stats.put("categories", merged.getCategoryDocumentCount());
+        if (deduplication != null) {
+            stats.put("deduplication", deduplication);
+        }
+        stats.put("mergeTimeMs", System.currentTimeMillis() - start);
+        logger.info("Merged {} count shards ({} documents)", files.size(), merged.getTotalDocuments());
+        return stats;
+    }
+
+    /**
+     * Deduplication applied to a set of shards: the per-shard figures summed
+     * (null when no shard was deduplicated and deduplication is off)
+     */
+    private Map<String, Object> mergedDeduplication(List<Map<String, String>> merges) {
+        int deduplicatedShards = 0;
+        long checked = 0;
+        long duplicates = 0;
+        for (Map<String, String> metadata : merges) {
+            if (metadata.containsKey("dedupDuplicates")) {
+                deduplicatedShards++;
+                checked += Long.parseLong(metadata.getOrDefault("dedupChecked", "0"));
+                duplicates += Long.parseLong(metadata.get("dedupDuplicates"));
+            }
+        }
+        if (deduplicatedShards == 0 && !naiveBayesService.isDeduplicationEnabled()) {
+            return null;
+        }
+        if (deduplicatedShards < merges.size()) {
+            logger.warn("Only {} of {} count shards were deduplicated when exported", deduplicatedShards, merges.size());
+        }
+        Map<String, Object> deduplication = new LinkedHashMap<>();
+        deduplication.put("scope", "per-shard");
+        deduplication.put("shardsDeduplicated", deduplicatedShards);
+        deduplication.put("shards", merges.size());
+        deduplication.put("documentsChecked", checked);
+        deduplication.put("duplicatesRemoved", duplicates);
+        deduplication.put("note", "near-duplicates in different shards are not removed");
+        return deduplication;
+    }
+
+    /**
+     * Check that shard files form one complete set from the same run
+     * @return the stemmer they were preprocessed with (null if not recorded)
+     */
+    private static String checkShardSet(List<Path> files) throws IOException {
+        Integer shardCount = null;
+        String stemmer = null;
+        Map<Integer, Path> byIndex = new TreeMap<>();
+
+        for (Path file : files) {
+            Map<String, String> metadata = CountShardFile.readMetadata(file);
+            int index = metadataInt(metadata, "shardIndex", file);
+            int count = metadataInt(metadata, "shardCount", file);
+            if (shardCount == null) {
+                shardCount = count;
+            } else if (count != shardCount) {
+                throw new IllegalArgumentException("Shard " + file.getFileName() + " is one of " + count
+                        + " shards but earlier shards are one of " + shardCount
+                        + " (stale shards from another run?)");
+            }
+            if (index < 0 || index >= count) {
+                throw new IllegalArgumentException("Shard " + file.getFileName() + " has index " + index
+                        + " outside 0.." + (count - 1));
+            }
+            Path previous = byIndex.put(index, file);
+            if (previous != null) {
+                throw new IllegalArgumentException("Shards " + previous.getFileName() + " and " + file.getFileName()
+                        + " both have index " + index + " of " + count);
+            }
+
+            // Counts from different stemmers do not describe the same features
+            String shardStemmer = metadata.get("stemmer");
+            if (stemmer == null) {
+                stemmer = shardStemmer;
+            } else if (shardStemmer != null && !shardStemmer.equals(stemmer)) {
+                throw new IllegalArgumentException("Shard " + file.getFileName() + " was preprocessed with stemmer '"
+                        + shardStemmer + "' but earlier shards with '" + stemmer + "'");
+            }
+        }
+
+        if (byIndex.size() != shardCount) {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < shardCount; i++) {
+                if (!byIndex.containsKey(i)) {
+                    missing.add(i);
+                }
+            }
+            throw new IllegalArgumentException("Incomplete shard set: missing " + missing + " of " + shardCount + " shards");
+        }
+        return stemmer;
+    }
+
+    private static int metadataInt(Map<String, String> metadata, String key, Path file) {
+        String value = metadata.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Shard " + file.getFileName() + " has no " + key);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Shard " + file.getFileName() + " has an invalid " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Shard files in the shard directory, sorted by name
+     */
+    public List<Path> listShards() throws IOException {
+        Path directory = getShardsPath();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SHARD_EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Resolve a shard file name inside the shard directory
+     */
+    public Path resolveShard(String fileName) {
+        Path directory = getShardsPath().toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || file.equals(directory)) {
+            throw new IllegalArgumentException("Shard file must be inside " + getShardsPath() + ": " + fileName);
+        }
+        return file;
+    }
+
+    public Path getShardsPath() {
+        return Paths.get(shardsPath);
+    }
+
+    private AbstractNaiveBayesModel emptyModel() {
+        ClassifierModel model = naiveBayesService.newModel();
+        if (!(model instanceof AbstractNaiveBayesModel)) {
+            throw new IllegalStateException("Model type does not support count shards: " + model.getClass().getSimpleName());
+        }
+        return (AbstractNaiveBayesModel) model;
+    }
+}
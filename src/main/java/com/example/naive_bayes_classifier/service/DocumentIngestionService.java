@@ -0,0 +1,107 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.utils.LimitedInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decodes request bodies and uploaded files as streams: optional gzip
+ * decompression (from Content-Encoding or the gzip magic bytes) and UTF-8
+ * decoding, with the wire size and the decoded size both limited while
+ * reading. Nothing is buffered as a byte[] first, and a small compressed
+ * body cannot expand past the decoded limit (gzip bombs).
+ */
+@Service
+public class DocumentIngestionService {
+
+    private static final int GZIP_MAGIC = 0x1f8b;
+    private static final int ZSTD_MAGIC = 0x28b52ffd;
+
+    // Bytes accepted on the wire (compressed size for gzip bodies)
+    @Value("${ingestion.max-request-bytes:10485760}")
+    private long maxRequestBytes;
+
+    // Bytes accepted after decompression
+    @Value("${ingestion.max-decoded-bytes:52428800}")
+    private long maxDecodedBytes;
+
+    /**
+     * Wrap an uploaded file in the size limits and the decompressor it needs,
+     * detecting gzip from the magic bytes when no encoding is given
+     * @param contentEncoding Content-Encoding header value, null to detect from the data
+     */
+    public InputStream decode(InputStream raw, String contentEncoding) throws IOException {
+        return decode(raw, contentEncoding, false);
+    }
+
+    /**
+     * Wrap a raw body in the size limits and the decompressor it needs
+     * @param contentEncoding Content-Encoding header value
+     * @param declared        true for request bodies, whose encoding is only what the header
+     *                        declares (missing = identity, never sniffed); false to detect
+     *                        compression from the data when no encoding is given
+     */
+    public InputStream decode(InputStream raw, String contentEncoding, boolean declared) throws IOException {
+        InputStream wire = new BufferedInputStream(new LimitedInputStream(raw, maxRequestBytes, "Request body"));
+
+        String encoding = contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        if (encoding.isEmpty() || "identity".equals(encoding)) {
+            encoding = declared ? "identity" : sniff(wire);
+        }
+
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new LimitedInputStream(new GZIPInputStream(wire, 8192), maxDecodedBytes, "Decompressed body");
+            case "identity":
+                return wire;
+            default:
+                throw new UnsupportedEncodingException("Unsupported content encoding: " + encoding
+                        + " (supported: gzip, identity)");
+        }
+    }
+
+    /**
+     * UTF-8 reader over a (possibly compressed) uploaded file, for streaming
+     * it into the preprocessing pipeline or to disk
+     */
+    public Reader openText(InputStream raw, String contentEncoding) throws IOException {
+        return new InputStreamReader(decode(raw, contentEncoding), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Detect compression from the first bytes (the stream must support mark)
+     */
+    private static String sniff(InputStream in) throws IOException {
+        in.mark(4);
+        int b0 = in.read();
+        int b1 = in.read();
+        int b2 = in.read();
+        int b3 = in.read();
+        in.reset();
+
+        if (b0 < 0 || b1 < 0) {
+            return "identity";
+        }
+        if (((b0 << 8) | b1) == GZIP_MAGIC) {
+            return "gzip";
+        }
+        if (b2 >= 0 && b3 >= 0 && ((b0 << 24) | (b1 << 16) | (b2 << 8) | b3) == ZSTD_MAGIC) {
+            return "zstd";
+        }
+        return "identity";
+    }
+
+    public long getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+
+    public long getMaxDecodedBytes() {
+        return maxDecodedBytes;
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.ClassifierModel;
+import com.example.naive_bayes_classifier.utils.CountMinSketch;
+import com.example.naive_bayes_classifier.utils.StripedCounters;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Streaming signals of how live traffic compares with the training corpus:
+ * predicted-category distribution, out-of-vocabulary stem rate, confidence
+ * histogram, and the most frequent unseen stems.
+ *
+ * Classifications are recorded into a ring of time buckets (striped
+ * counters plus a count-min sketch each), reset lazily when the clock
+ * moves on, so a windowed view is the sum of the buckets it covers. A new
+ * model starts a fresh ring. Recording costs a few atomic adds per
+ * document plus one sketch update per unseen stem; the only lock is taken
+ * once per bucket period, to clear the bucket being reused. Counts racing
+ * with that reset may be lost, which is acceptable for monitoring.
+ *
+ * Category drift is reported as the population stability index (PSI) of
+ * the predicted distribution against the training document distribution;
+ * below 0.1 is usually read as stable, above 0.25 as a significant shift.
+ */
+@Service
+public class DriftMonitoringService {
+
+    private static final int DOCUMENTS = 0;
+    private static final int STEMS = 1;
+    private static final int OOV_STEMS = 2;
+    private static final int CONFIDENCE_SUM_MILLIS = 3;
+    private static final int CONFIDENCE_BINS_START = 4;
+    private static final int CONFIDENCE_BINS = 20;
+    private static final int CATEGORIES_START = CONFIDENCE_BINS_START + CONFIDENCE_BINS;
+
+    private static final double PSI_EPSILON = 1e-4;
+
+    // Record every classification (a few atomic adds per document)
+    @Value("${monitoring.drift.enabled:true}")
+    private boolean enabled;
+
+    // Ring of buckets: the longest view is bucket-seconds * buckets
+    @Value("${monitoring.drift.bucket-seconds:60}")
+    private int bucketSeconds;
+
+    @Value("${monitoring.drift.buckets:60}")
+    private int bucketCount;
+
+    // Views returned when no window is requested
+    @Value("${monitoring.drift.views:60,300,900,3600}")
+    private int[] defaultViews;
+
+    // Unseen stems listed per view
+    @Value("${monitoring.drift.top-unseen:20}")
+    private int topUnseen;
+
+    // Count-min sketch per bucket
+    @Value("${monitoring.drift.sketch.depth:4}")
+    private int sketchDepth;
+
+    @Value("${monitoring.drift.sketch.width:2048}")
+    private int sketchWidth;
+
+    private volatile Ring ring;
+
+    /**
+     * Start monitoring a newly published model
+     */
+    public void reset(ClassifierModel model, long modelVersion) {
+        ring = enabled ? new Ring(model, modelVersion) : null;
+    }
+
+    /**
+     * Record one scored document
+     * @param rows feature rows of the document; the first stems.size() are its stems
+     * @return number of its stems the model has never seen (0 when not monitoring this model)
+     */
+    public int record(ClassifierModel model, List<String> stems, int[] rows, int predicted, double confidence) {
+        Ring current = ring;
+        if (current == null || current.model != model) {
+            return 0;
+        }
+        Bucket bucket = current.bucket(System.currentTimeMillis());
+
+        int oov = 0;
+        for (int i = 0; i < stems.size(); i++) {
+            if (rows[i] < 0) {
+                oov++;
+                bucket.unseen.add(stems.get(i));
+            }
+        }
+        count(bucket, predicted, confidence, stems.size(), oov);
+        return oov;
+    }
+
+    /**
+     * Record a document served from the result cache, from the figures kept
+     * with the cached result. Its unseen stems were added to the sketch when
+     * it was first scored and are not added again.
+     */
+    public void recordCached(ClassifierModel model, String predictedCategory, double confidence,
+                             int stems, int oovStems) {
+        Ring current = ring;
+        if (current == null || current.model != model || stems == 0) {
+            return;
+        }
+        for (int c = 0; c < model.getCategoryCount(); c++) {
+            if (model.getCategoryName(c).equals(predictedCategory)) {
+                count(current.bucket(System.currentTimeMillis()), c, confidence, stems, oovStems);
+                return;
+            }
+        }
+    }
+
+    private static void count(Bucket bucket, int predicted, double confidence, int stems, int oov) {
+        StripedCounters counters = bucket.counters;
+        int bin = Math.min(CONFIDENCE_BINS - 1, Math.max(0, (int) (confidence * CONFIDENCE_BINS)));
+
+        counters.increment(DOCUMENTS);
+        counters.add(STEMS, stems);
+        counters.add(OOV_STEMS, oov);
+        counters.add(CONFIDENCE_SUM_MILLIS, Math.round(confidence * 1000));
+        counters.increment(CONFIDENCE_BINS_START + bin);
+        counters.increment(CATEGORIES_START + predicted);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Windowed views over the most recent buckets
+     * @param windowSeconds one view of this length, or null for the configured views
+     */
+    public Map<String, Object> getViews(Integer windowSeconds) {
+        Ring current = ring;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        if (current == null) {
+            return report;
+        }
+        int longest = bucketSeconds * bucketCount;
+        if (windowSeconds != null && (windowSeconds <= 0 || windowSeconds > longest)) {
+            throw new IllegalArgumentException("Window must be between 1 and " + longest + " seconds");
+        }
+
+        report.put("modelVersion", current.modelVersion);
+        report.put("since", current.since);
+        report.put("bucketSeconds", bucketSeconds);
+        List<Map<String, Object>> views = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int seconds : windowSeconds != null ? new int[] {windowSeconds} : defaultViews) {
+            if (seconds > 0 && seconds <= longest) {
+                views.add(current.view(seconds, now));
+            }
+        }
+        report.put("views", views);
+        return report;
+    }
+
+    private final class Ring {
+        final ClassifierModel model;
+        final long modelVersion;
+        final long since = System.currentTimeMillis();
+        final Bucket[] buckets = new Bucket[bucketCount];
+        final String[] categories;
+        final double[] trainingShares;
+
+        Ring(ClassifierModel model, long modelVersion) {
+            this.model = model;
+            this.modelVersion = modelVersion;
+            int categoryCount = model.getCategoryCount();
+            this.categories = new String[categoryCount];
+            this.trainingShares = new double[categoryCount];
+            Map<String, Integer> documents = model.getCategoryDocumentCount();
+            for (int c = 0; c < categoryCount; c++) {
+                categories[c] = model.getCategoryName(c);
+                trainingShares[c] = model.getTotalDocuments() == 0 ? 0.0
+                        : documents.getOrDefault(categories[c], 0) / (double) model.getTotalDocuments();
+            }
+            int stripes = StripedCounters.defaultStripes();
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new Bucket(new StripedCounters(CATEGORIES_START + categoryCount, stripes),
+                        new CountMinSketch(sketchDepth, sketchWidth, Math.max(64, topUnseen * 4)));
+            }
+        }
+
+        /**
+         * Bucket of the current period, reset first if it still holds an older one
+         */
+        Bucket bucket(long nowMillis) {
+            long period = nowMillis / (bucketSeconds * 1000L);
+            Bucket bucket = buckets[(int) (period % buckets.length)];
+            if (bucket.period != period) {
+                synchronized (bucket) {
+                    // Only the first thread into a new period clears the bucket
+                    if (bucket.period != period) {
+                        bucket.counters.reset();
+                        bucket.unseen.reset();
+                        bucket.period = period;
+                    }
+                }
+            }
+            return bucket;
+        }
+
+        Map<String, Object> view(int seconds, long nowMillis) {
+            long period = nowMillis / (bucketSeconds * 1000L);
+            int covered = Math.max(1, (seconds + bucketSeconds - 1) / bucketSeconds);
+            long[] totals = new long[CATEGORIES_START + categories.length];
+            List<CountMinSketch> sketches = new ArrayList<>();
+            for (Bucket bucket : buckets) {
+                if (bucket.period > period - covered && bucket.period <= period) {
+                    bucket.counters.sumInto(totals);
+                    sketches.add(bucket.unseen);
+                }
+            }
+
+            long documents = totals[DOCUMENTS];
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("windowSeconds", covered * bucketSeconds);
+            view.put("documents", documents);
+            view.put("stems", totals[STEMS]);
+            view.put("oovStems", totals[OOV_STEMS]);
+            view.put("oovRate", totals[STEMS] == 0 ? 0.0 : (double) totals[OOV_STEMS] / totals[STEMS]);
+            view.put("meanConfidence", documents == 0 ? 0.0 : totals[CONFIDENCE_SUM_MILLIS] / 1000.0 / documents);
+
+            List<Map<String, Object>> histogram = new ArrayList<>();
+            for (int bin = 0; bin < CONFIDENCE_BINS; bin++) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("upTo", (bin + 1) / (double) CONFIDENCE_BINS);
+                entry.put("count", totals[CONFIDENCE_BINS_START + bin]);
+                histogram.add(entry);
+            }
+            view.put("confidenceHistogram", histogram);
+
+            Map<String, Object> predicted = new LinkedHashMap<>();
+            double psi = 0.0;
+            for (int c = 0; c < categories.length; c++) {
+                long count = totals[CATEGORIES_START + c];
+                double share = documents == 0 ? 0.0 : (double) count / documents;
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("count", count);
+                entry.put("share", share);
+                entry.put("trainingShare", trainingShares[c]);
+                predicted.put(categories[c], entry);
+
+                double p = Math.max(share, PSI_EPSILON);
+                double q = Math.max(trainingShares[c], PSI_EPSILON);
+                psi += (p - q) * Math.log(p / q);
+            }
+            view.put("predictedCategories", predicted);
+            view.put("categoryPsi", documents == 0 ? 0.0 : psi);
+            view.put("topUnseenStems", topUnseen(sketches));
+            return view;
+        }
+
+        private List<Map<String, Object>> topUnseen(List<CountMinSketch> sketches) {
+            Map<String, Long> estimates = new HashMap<>();
+            for (CountMinSketch sketch : sketches) {
+                for (String stem : sketch.getCandidates()) {
+                    estimates.computeIfAbsent(stem, key -> {
+                        long sum = 0;
+                        for (CountMinSketch other : sketches) {
+                            sum += other.estimate(key);
+                        }
+                        return sum;
+                    });
+                }
+            }
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(estimates.entrySet());
+            entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+            List<Map<String, Object>> top = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(topUnseen, entries.size()))) {
+                Map<String, Object> stem = new LinkedHashMap<>();
+                stem.put("stem", entry.getKey());
+                stem.put("estimatedCount", entry.getValue());
+                top.add(stem);
+            }
+            return top;
+        }
+    }
+
+    private static final class Bucket {
+        final StripedCounters counters;
+        final CountMinSketch unseen;
+        volatile long period = -1;
+
+        Bucket(StripedCounters counters, CountMinSketch unseen) {
+            this.counters = counters;
+            this.unseen = unseen;
+        }
+    }
+}
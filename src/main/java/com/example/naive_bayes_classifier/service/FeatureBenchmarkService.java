@@ -0,0 +1,87 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.EvaluationMetrics;
+import com.example.naive_bayes_classifier.model.FeatureNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.utils.FeatureExtractor;
+import com.example.naive_bayes_classifier.utils.MetricsCalculator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Compares feature configurations (word / character n-grams) on the same
+ * evaluation split: accuracy, vocabulary size, memory and throughput.
+ * Documents are preprocessed once; the published model is untouched.
+ */
+@Service
+public class FeatureBenchmarkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeatureBenchmarkService.class);
+    private static final long SPLIT_SEED = 42L;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    @Autowired
+    private MetricsCalculator metricsCalculator;
+
+    /**
+     * @param specs    feature specs accepted by {@link FeatureExtractor#fromSpec}
+     * @param minCount vocabulary pruning threshold applied to every configuration
+     */
+    public List<Map<String, Object>> compare(List<TrainingDocument> documents,
+                                             List<String> specs,
+                                             int minCount,
+                                             double testRatio) {
+        List<PreprocessedDocument> preprocessed = new ArrayList<>(documents.size());
+        for (TrainingDocument doc : documents) {
+            preprocessed.add(new PreprocessedDocument(doc.getCategory(),
+                    preprocessingService.preprocess(doc.getContent())));
+        }
+
+        List<PreprocessedDocument> shuffled = new ArrayList<>(preprocessed);
+        Collections.shuffle(shuffled, new Random(SPLIT_SEED));
+        int testSize = (int) (shuffled.size() * testRatio);
+        List<PreprocessedDocument> train = shuffled.subList(0, shuffled.size() - testSize);
+        List<PreprocessedDocument> test = shuffled.subList(shuffled.size() - testSize, shuffled.size());
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String spec : specs) {
+            FeatureExtractor extractor = FeatureExtractor.fromSpec(spec);
+            FeatureNaiveBayesModel model = new FeatureNaiveBayesModel(extractor);
+            model.setStemmer(preprocessingService.getStemmerName());
+
+            long start = System.nanoTime();
+            for (PreprocessedDocument doc : train) {
+                model.addDocument(doc.getCategory(), doc.getStems());
+            }
+            model.prune(minCount);
+            long trainNanos = System.nanoTime() - start;
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("features", extractor.getSpec());
+            row.put("trainTimeMs", trainNanos / 1_000_000.0);
+            row.put("trainDocsPerSecond", trainNanos > 0 ? train.size() / (trainNanos / 1e9) : 0.0);
+            row.putAll(model.getDiagnostics());
+
+            if (!test.isEmpty() && model.getTotalDocuments() > 0) {
+                start = System.nanoTime();
+                EvaluationMetrics metrics = metricsCalculator.evaluatePreprocessed(model, test);
+                long evalNanos = System.nanoTime() - start;
+
+                row.put("accuracy", metrics.getAccuracy());
+                row.put("macroF1", metrics.getMacroAverages().get("f1Score"));
+                row.put("classifyDocsPerSecond", evalNanos > 0 ? test.size() / (evalNanos / 1e9) : 0.0);
+            }
+
+            logger.info("Feature benchmark {}: {}", extractor.getSpec(), row);
+            results.add(row);
+        }
+        return results;
+    }
+}
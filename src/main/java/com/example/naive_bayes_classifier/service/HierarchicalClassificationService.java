@@ -0,0 +1,207 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.ClassificationResult;
+import com.example.naive_bayes_classifier.model.ClassifierModel;
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
+import com.example.naive_bayes_classifier.model.TaxonomyModel;
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Classification over a category hierarchy (see {@link TaxonomyModel}),
+ * kept next to the flat model of {@link NaiveBayesService} rather than
+ * replacing it, plus a benchmark of beam widths against flat scoring.
+ */
+@Service
+public class HierarchicalClassificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HierarchicalClassificationService.class);
+    private static final long SPLIT_SEED = 42L;
+
+    @Autowired
+    private NaiveBayesService naiveBayesService;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    // Partial category paths expanded per level (0 = exhaustive)
+    @Value("${classifier.hierarchy.beam-width:3}")
+    private int defaultBeamWidth;
+
+    private volatile TaxonomyModel taxonomy;
+
+    /**
+     * Train and publish a taxonomy model from documents labelled with category paths
+     */
+    public Map<String, Object> train(List<TrainingDocument> documents) {
+        long start = System.nanoTime();
+        TaxonomyModel trained = build(preprocess(documents));
+        taxonomy = trained;
+
+        Map<String, Object> stats = describe(trained);
+        stats.put("documents", documents.size());
+        stats.put("trainingTimeMs", (System.nanoTime() - start) / 1_000_000);
+        logger.info("Taxonomy model trained: {}", stats);
+        return stats;
+    }
+
+    /**
+     * Classify a text top-down
+     * @param beamWidth null = configured default
+     */
+    public ClassificationResult classify(String text, Integer beamWidth) {
+        TaxonomyModel current = taxonomy;
+        if (current == null) {
+            throw new IllegalStateException("Taxonomy model not trained yet! Please train it first.");
+        }
+        List<String> stems = preprocessingService.preprocess(text);
+        if (stems.isEmpty()) {
+            throw new IllegalArgumentException("No stems found after preprocessing");
+        }
+
+        TaxonomyModel.Result scored = current.classify(stems, naiveBayesService.resolveScorer(null),
+                beamWidth == null ? defaultBeamWidth : beamWidth);
+        Map<String, Double> probabilities = scored.getProbabilities();
+        String best = scored.getBestLeaf();
+
+        ClassificationResult result = new ClassificationResult(best, probabilities, probabilities.get(best));
+        result.setTotalTokens(stems.size());
+        result.setUniqueTokens(new HashSet<>(stems).size());
+        return result;
+    }
+
+    /**
+     * Accuracy and scoring latency of flat classification versus top-down
+     * classification with each beam width, on the same train/test split
+     */
+    public Map<String, Object> benchmark(List<TrainingDocument> documents, List<Integer> beamWidths, double testRatio) {
+        List<PreprocessedDocument> samples = preprocess(documents);
+        Collections.shuffle(samples, new Random(SPLIT_SEED));
+        int testSize = (int) (samples.size() * testRatio);
+        List<PreprocessedDocument> train = samples.subList(0, samples.size() - testSize);
+        List<PreprocessedDocument> test = samples.subList(samples.size() - testSize, samples.size());
+        if (test.isEmpty()) {
+            throw new IllegalArgumentException("Test split is empty; increase testRatio");
+        }
+        NaiveBayesScorer scorer = naiveBayesService.resolveScorer(null);
+
+        ClassifierModel flat = naiveBayesService.newModel();
+        for (PreprocessedDocument doc : train) {
+            flat.addDocument(doc.getCategory(), doc.getStems());
+        }
+        naiveBayesService.prepare(flat);
+        TaxonomyModel hierarchy = build(train);
+
+        // One untimed pass so that neither side pays for JIT compilation
+        for (PreprocessedDocument doc : test) {
+            flat.scores(doc.getStems(), scorer);
+            hierarchy.classify(doc.getStems(), scorer, 0);
+        }
+
+        int flatCorrect = 0;
+        int flatSectionCorrect = 0;
+        long flatStart = System.nanoTime();
+        for (PreprocessedDocument doc : test) {
+            double[] scores = flat.scores(doc.getStems(), scorer);
+            int best = 0;
+            for (int c = 1; c < scores.length; c++) {
+                if (scores[c] > scores[best]) {
+                    best = c;
+                }
+            }
+            String predicted = flat.getCategoryName(best);
+            flatCorrect += predicted.equals(doc.getCategory()) ? 1 : 0;
+            flatSectionCorrect += section(predicted).equals(section(doc.getCategory())) ? 1 : 0;
+        }
+        long flatNanos = System.nanoTime() - flatStart;
+
+        Map<String, Object> flatRow = new LinkedHashMap<>();
+        flatRow.put("accuracy", (double) flatCorrect / test.size());
+        flatRow.put("sectionAccuracy", (double) flatSectionCorrect / test.size());
+        flatRow.put("categoriesScoredPerDocument", flat.getCategoryCount());
+        flatRow.put("microsPerDocument", flatNanos / 1e3 / test.size());
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int beamWidth : beamWidths) {
+            int correct = 0;
+            int sectionCorrect = 0;
+            long nodes = 0;
+            long categories = 0;
+            long start = System.nanoTime();
+            for (PreprocessedDocument doc : test) {
+                TaxonomyModel.Result result = hierarchy.classify(doc.getStems(), scorer, beamWidth);
+                String predicted = result.getBestLeaf();
+                correct += doc.getCategory().equals(predicted) ? 1 : 0;
+                sectionCorrect += predicted != null && section(predicted).equals(section(doc.getCategory())) ? 1 : 0;
+                nodes += result.getNodesScored();
+                categories += result.getCategoriesScored();
+            }
+            long nanos = System.nanoTime() - start;
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("beamWidth", beamWidth);
+            row.put("accuracy", (double) correct / test.size());
+            row.put("sectionAccuracy", (double) sectionCorrect / test.size());
+            row.put("accuracyDelta", (double) (correct - flatCorrect) / test.size());
+            row.put("nodesScoredPerDocument", (double) nodes / test.size());
+            row.put("categoriesScoredPerDocument", (double) categories / test.size());
+            row.put("microsPerDocument", nanos / 1e3 / test.size());
+            row.put("speedup", nanos > 0 ? (double) flatNanos / nanos : 0.0);
+            rows.add(row);
+        }
+
+        Map<String, Object> report = describe(hierarchy);
+        report.put("trainSize", train.size());
+        report.put("testSize", test.size());
+        report.put("scorer", scorer.getKey());
+        report.put("flat", flatRow);
+        report.put("hierarchical", rows);
+        logger.info("Hierarchy benchmark: flat {} vs {}", flatRow, rows);
+        return report;
+    }
+
+    private List<PreprocessedDocument> preprocess(List<TrainingDocument> documents) {
+        List<PreprocessedDocument> preprocessed = new ArrayList<>(documents.size());
+        for (TrainingDocument doc : documents) {
+            List<String> stems = preprocessingService.preprocess(doc.getContent());
+            if (!stems.isEmpty()) {
+                preprocessed.add(new PreprocessedDocument(doc.getCategory(), stems));
+            }
+        }
+        return preprocessed;
+    }
+
+    private TaxonomyModel build(List<PreprocessedDocument> documents) {
+        TaxonomyModel model = new TaxonomyModel(naiveBayesService::newModel);
+        for (PreprocessedDocument doc : documents) {
+            model.addDocument(doc.getCategory(), doc.getStems());
+        }
+        model.finish(naiveBayesService::prepare);
+        return model;
+    }
+
+    private static String section(String categoryPath) {
+        int separator = categoryPath.indexOf(TaxonomyModel.SEPARATOR);
+        return separator < 0 ? categoryPath : categoryPath.substring(0, separator);
+    }
+
+    private static Map<String, Object> describe(TaxonomyModel model) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("leaves", model.getLeafCount());
+        stats.put("sections", model.getSectionCount());
+        stats.put("depth", model.getDepth());
+        stats.put("nodeModels", model.getNodeCount());
+        return stats;
+    }
+
+    public boolean isTrained() {
+        return taxonomy != null;
+    }
+}
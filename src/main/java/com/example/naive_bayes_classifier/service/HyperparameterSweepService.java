@@ -0,0 +1,190 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.EvaluationMetrics;
+import com.example.naive_bayes_classifier.model.FeatureNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorers;
+import com.example.naive_bayes_classifier.utils.FeatureExtractor;
+import com.example.naive_bayes_classifier.utils.MetricsCalculator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Grid search over stop-word filtering, feature sets, pruning thresholds,
+ * scorers and smoothing alpha.
+ *
+ * Every document is normalized, tokenized and stemmed exactly once (stop
+ * words kept and flagged, so both filtering settings come from the same
+ * pass). One count model is built per (stop words, features) pair; pruning
+ * thresholds are applied to it in ascending order, and scorer/alpha only
+ * change the compiled score table. Each candidate is evaluated on the
+ * parallel {@link MetricsCalculator} path. The published model is untouched.
+ */
+@Service
+public class HyperparameterSweepService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HyperparameterSweepService.class);
+    private static final long SPLIT_SEED = 42L;
+
+    /** Metrics accepted as ranking key; log-loss ranks ascending */
+    public static final List<String> RANK_METRICS = List.of("macroF1", "weightedF1", "accuracy", "logLoss");
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    @Autowired
+    private MetricsCalculator metricsCalculator;
+
+    /**
+     * @return one row per candidate, best first, with a "rank" column
+     */
+    public List<Map<String, Object>> sweep(List<TrainingDocument> documents,
+                                           List<Double> alphas,
+                                           List<Integer> minCounts,
+                                           List<Boolean> stopWordSettings,
+                                           List<String> featureSpecs,
+                                           List<String> scorers,
+                                           double testRatio,
+                                           String rankBy) {
+        if (!RANK_METRICS.contains(rankBy)) {
+            throw new IllegalArgumentException("Unknown ranking metric: " + rankBy
+                    + " (expected one of " + RANK_METRICS + ")");
+        }
+
+        long start = System.nanoTime();
+        List<Sample> samples = new ArrayList<>(documents.size());
+        for (TrainingDocument doc : documents) {
+            samples.add(preprocess(doc));
+        }
+        logger.info("Sweep: preprocessed {} documents once in {} ms",
+                samples.size(), (System.nanoTime() - start) / 1_000_000);
+
+        Collections.shuffle(samples, new Random(SPLIT_SEED));
+        int testSize = (int) (samples.size() * testRatio);
+        List<Sample> train = samples.subList(0, samples.size() - testSize);
+        List<Sample> test = samples.subList(samples.size() - testSize, samples.size());
+        if (test.isEmpty()) {
+            throw new IllegalArgumentException("Test split is empty; increase testRatio");
+        }
+
+        List<Integer> thresholds = new ArrayList<>(new TreeSet<>(minCounts));
+        List<Map<String, Object>> results = new ArrayList<>();
+
+        for (boolean removeStopWords : new LinkedHashSet<>(stopWordSettings)) {
+            List<PreprocessedDocument> testDocs = view(test, removeStopWords);
+
+            for (String spec : new LinkedHashSet<>(featureSpecs)) {
+                FeatureExtractor extractor = FeatureExtractor.fromSpec(spec);
+                FeatureNaiveBayesModel model = new FeatureNaiveBayesModel(extractor);
+                model.setStemmer(preprocessingService.getStemmerName());
+
+                long trainStart = System.nanoTime();
+                for (PreprocessedDocument doc : view(train, removeStopWords)) {
+                    model.addDocument(doc.getCategory(), doc.getStems());
+                }
+                long trainNanos = System.nanoTime() - trainStart;
+
+                // Pruning is monotone, so ascending thresholds can reuse the same counts
+                for (int minCount : thresholds) {
+                    model.prune(minCount);
+
+                    for (String scorerName : scorers) {
+                        for (double alpha : alphas) {
+                            NaiveBayesScorer scorer = NaiveBayesScorers.create(scorerName, alpha);
+
+                            long evalStart = System.nanoTime();
+                            EvaluationMetrics metrics = metricsCalculator.evaluatePreprocessed(model, testDocs, scorer);
+                            long evalNanos = System.nanoTime() - evalStart;
+
+                            Map<String, Object> row = new LinkedHashMap<>();
+                            row.put("stopWords", removeStopWords);
+                            row.put("features", extractor.getSpec());
+                            row.put("minCount", minCount);
+                            row.put("scorer", scorer.getName());
+                            row.put("alpha", alpha);
+                            row.put("vocabularySize", model.getVocabularySize());
+                            row.put("accuracy", metrics.getAccuracy());
+                            row.put("macroF1", metrics.getMacroAverages().get("f1Score"));
+                            row.put("weightedF1", metrics.getWeightedAverages().get("f1Score"));
+                            row.put("logLoss", metrics.getLogLoss());
+                            row.put("countTimeMs", trainNanos / 1_000_000.0);
+                            row.put("evalTimeMs", evalNanos / 1_000_000.0);
+                            results.add(row);
+                        }
+                    }
+                }
+            }
+        }
+
+        Comparator<Map<String, Object>> byMetric = Comparator.comparingDouble(row -> (Double) row.get(rankBy));
+        results.sort("logLoss".equals(rankBy) ? byMetric : byMetric.reversed());
+
+        List<Map<String, Object>> ranked = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", i + 1);
+            row.putAll(results.get(i));
+            ranked.add(row);
+        }
+
+        logger.info("Sweep: evaluated {} candidates in {} ms, best: {}",
+                ranked.size(), (System.nanoTime() - start) / 1_000_000,
+                ranked.isEmpty() ? "-" : ranked.get(0));
+        return ranked;
+    }
+
+    private Sample preprocess(TrainingDocument doc) {
+        List<String> tokens = preprocessingService.tokenize(preprocessingService.normalize(doc.getContent()));
+        List<String> stems = preprocessingService.stem(tokens, false);
+
+        BitSet stopWords = new BitSet(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            if (preprocessingService.isStopWord(tokens.get(i))) {
+                stopWords.set(i);
+            }
+        }
+        return new Sample(doc.getCategory(), stems, stopWords);
+    }
+
+    private static List<PreprocessedDocument> view(List<Sample> samples, boolean removeStopWords) {
+        List<PreprocessedDocument> documents = new ArrayList<>(samples.size());
+        for (Sample sample : samples) {
+            documents.add(sample.toDocument(removeStopWords));
+        }
+        return documents;
+    }
+
+    /**
+     * Stems of one document with the stop-word positions remembered
+     */
+    private static final class Sample {
+        private final String category;
+        private final List<String> stems;
+        private final BitSet stopWords;
+
+        Sample(String category, List<String> stems, BitSet stopWords) {
+            this.category = category;
+            this.stems = stems;
+            this.stopWords = stopWords;
+        }
+
+        PreprocessedDocument toDocument(boolean removeStopWords) {
+            if (!removeStopWords || stopWords.isEmpty()) {
+                return new PreprocessedDocument(category, stems);
+            }
+            List<String> kept = new ArrayList<>(stems.size() - stopWords.cardinality());
+            for (int i = 0; i < stems.size(); i++) {
+                if (!stopWords.get(i)) {
+                    kept.add(stems.get(i));
+                }
+            }
+            return new PreprocessedDocument(category, kept);
+        }
+    }
+}
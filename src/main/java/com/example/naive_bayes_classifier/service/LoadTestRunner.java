@@ -0,0 +1,341 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.utils.SyntheticDocumentGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SynchronizedHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator against a running instance (profile "loadtest",
+ * started with --loadtest).
+ *
+ * Synthetic documents are generated from the Data/ vocabulary with a
+ * configurable length distribution, then sent at a fixed rate to the JSON
+ * classify endpoint or the file upload form, for each rate of a step list.
+ * Requests are scheduled at their intended start times whether or not
+ * earlier ones have completed, and latency is measured from the intended
+ * start, so a stalled server shows up in the percentiles instead of
+ * silently lowering the request rate (coordinated omission). Latency
+ * measured from the actual send is recorded alongside for comparison.
+ *
+ * Each step writes an HdrHistogram percentile distribution (.hgrm); the
+ * capacity is the highest rate whose corrected p99 meets the SLO with at
+ * most 1% errors and at least 95% of the target throughput.
+ */
+@Service
+@Profile("loadtest")
+public class LoadTestRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final String BOUNDARY = "----naive-bayes-loadtest";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    // Base URL of the instance under test
+    @Value("${loadtest.target-url:http://localhost:8082}")
+    private String targetUrl;
+
+    // classify (JSON API) or upload (multipart form of the web UI)
+    @Value("${loadtest.endpoint:classify}")
+    private String endpoint;
+
+    // Requests per second of each step, run in order
+    @Value("${loadtest.rates:50,100,200,400,800}")
+    private int[] rates;
+
+    @Value("${loadtest.warmup-seconds:10}")
+    private int warmupSeconds;
+
+    @Value("${loadtest.duration-seconds:30}")
+    private int durationSeconds;
+
+    // Requests outstanding at once; beyond this the schedule falls behind (and latency shows it)
+    @Value("${loadtest.max-in-flight:1024}")
+    private int maxInFlight;
+
+    @Value("${loadtest.timeout-ms:10000}")
+    private long timeoutMs;
+
+    // Distinct documents generated up front and sent in rotation
+    @Value("${loadtest.documents:2000}")
+    private int documentCount;
+
+    // Words per document: fixed, uniform (min..max) or lognormal (median, sigma, clamped to min..max)
+    @Value("${loadtest.length.distribution:lognormal}")
+    private String lengthDistribution;
+
+    @Value("${loadtest.length.median:150}")
+    private int lengthMedian;
+
+    @Value("${loadtest.length.sigma:0.8}")
+    private double lengthSigma;
+
+    @Value("${loadtest.length.min:5}")
+    private int lengthMin;
+
+    @Value("${loadtest.length.max:3000}")
+    private int lengthMax;
+
+    @Value("${loadtest.seed:42}")
+    private long seed;
+
+    // Corrected p99 a step must meet to count towards capacity
+    @Value("${loadtest.slo-p99-ms:100}")
+    private double sloP99Ms;
+
+    // Skip the remaining (higher) rates once a step misses the SLO
+    @Value("${loadtest.stop-on-failure:true}")
+    private boolean stopOnFailure;
+
+    // Directory for the .hgrm files
+    @Value("${loadtest.output:loadtest}")
+    private String outputDirectory;
+
+    private volatile int exitCode = 0;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!"classify".equals(endpoint) && !"upload".equals(endpoint)) {
+            throw new IllegalArgumentException("Unknown load test endpoint: " + endpoint + " (expected classify or upload)");
+        }
+        if (rates.length == 0 || Arrays.stream(rates).anyMatch(rate -> rate <= 0)) {
+            throw new IllegalArgumentException("Load test rates must be positive: " + Arrays.toString(rates));
+        }
+
+        List<byte[]> bodies = generateBodies();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(timeoutMs))
+                .build();
+        URI uri = URI.create(targetUrl + ("classify".equals(endpoint) ? "/api/classifier/classify" : "/classify-file"));
+        String contentType = "classify".equals(endpoint) ? "application/json" : "multipart/form-data; boundary=" + BOUNDARY;
+        Path output = Paths.get(outputDirectory);
+        Files.createDirectories(output);
+
+        if (warmupSeconds > 0) {
+            System.err.printf("Warm-up: %d s at %d req/s against %s%n", warmupSeconds, rates[0], uri);
+            runStep(client, uri, contentType, bodies, rates[0], warmupSeconds);
+        }
+
+        List<Step> steps = new ArrayList<>();
+        Step capacity = null;
+        for (int rate : rates) {
+            Step step = runStep(client, uri, contentType, bodies, rate, durationSeconds);
+            steps.add(step);
+            Path file = output.resolve(endpoint + "-" + rate + "rps.hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), true, StandardCharsets.UTF_8)) {
+                // Recorded in microseconds, reported in milliseconds
+                step.corrected.outputPercentileDistribution(out, 1000.0);
+            }
+            System.err.println(step.summary() + "  -> " + file);
+            if (step.meetsSlo()) {
+                capacity = step;
+            } else if (stopOnFailure) {
+                break;
+            }
+        }
+
+        System.err.println();
+        System.err.printf("%8s %10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "rate", "achieved", "completed", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "p99 raw");
+        for (Step step : steps) {
+            System.err.printf("%8d %10.1f %10d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    step.rate, step.achievedRate(), step.completed.get(), step.errors.get(),
+                    millis(step.corrected, 50.0), millis(step.corrected, 99.0), millis(step.corrected, 99.9),
+                    step.corrected.getMaxValue() / 1000.0, millis(step.uncorrected, 99.0));
+        }
+        if (capacity != null) {
+            System.err.printf("Capacity (%s, p99 <= %.1f ms): %d req/s (%.1f achieved)%n",
+                    endpoint, sloP99Ms, capacity.rate, capacity.achievedRate());
+        } else {
+            System.err.printf("Capacity (%s, p99 <= %.1f ms): no rate met the SLO%n", endpoint, sloP99Ms);
+            exitCode = 2;
+        }
+    }
+
+    /**
+     * Request bodies for synthetic documents of the configured length distribution
+     */
+    private List<byte[]> generateBodies() throws IOException {
+        List<TrainingDocument> training = trainingService.loadTrainingData();
+        if (training.isEmpty()) {
+            throw new IllegalStateException("No training data found in Data/ to take the vocabulary from");
+        }
+        Map<String, List<String>> tokens = new HashMap<>();
+        for (TrainingDocument doc : training) {
+            tokens.computeIfAbsent(doc.getCategory(), category -> new ArrayList<>())
+                    .addAll(preprocessingService.tokenize(doc.getContent()));
+        }
+        SyntheticDocumentGenerator generator = new SyntheticDocumentGenerator(tokens, seed);
+
+        List<byte[]> bodies = new ArrayList<>(documentCount);
+        long words = 0;
+        for (int i = 0; i < documentCount; i++) {
+            int length = sampleLength(generator.getRandom());
+            words += length;
+            String text = generator.generate(length).getContent();
+            if ("classify".equals(endpoint)) {
+                bodies.add(objectMapper.writeValueAsBytes(Map.of("text", text)));
+            } else {
+                bodies.add(("--" + BOUNDARY + "\r\n"
+                        + "Content-Disposition: form-data; name=\"file\"; filename=\"doc-" + i + ".txt\"\r\n"
+                        + "Content-Type: text/plain; charset=UTF-8\r\n\r\n"
+                        + text + "\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        logger.info("Generated {} documents from {} categories, {} words on average",
+                documentCount, generator.getCategories().size(), documentCount == 0 ? 0 : words / documentCount);
+        return bodies;
+    }
+
+    private int sampleLength(Random random) {
+        int length;
+        switch (lengthDistribution) {
+            case "fixed":
+                length = lengthMedian;
+                break;
+            case "uniform":
+                length = lengthMin + random.nextInt(Math.max(1, lengthMax - lengthMin + 1));
+                break;
+            case "lognormal":
+                length = (int) Math.round(lengthMedian * Math.exp(lengthSigma * random.nextGaussian()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown length distribution: " + lengthDistribution
+                        + " (expected fixed, uniform or lognormal)");
+        }
+        return Math.max(lengthMin, Math.min(lengthMax, length));
+    }
+
+    /**
+     * Send requests at a fixed rate for the given time, then wait for the
+     * outstanding ones
+     */
+    private Step runStep(HttpClient client, URI uri, String contentType, List<byte[]> bodies,
+                         int rate, int seconds) throws InterruptedException {
+        Step step = new Step(rate);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long requests = (long) rate * seconds;
+        long start = System.nanoTime();
+
+        for (long i = 0; i < requests; i++) {
+            long intended = start + i * interval;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("Content-Type", contentType)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(bodies.get((int) (i % bodies.size()))))
+                    .build();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long now = System.nanoTime();
+                        inFlight.release();
+                        step.record(intended, sent, now, error == null && response.statusCode() / 100 == 2);
+                    });
+        }
+
+        // Everything sent; outstanding requests end by timeout at the latest
+        if (!inFlight.tryAcquire(maxInFlight, timeoutMs + 1000, TimeUnit.MILLISECONDS)) {
+            logger.warn("{} requests still outstanding after the step at {} req/s",
+                    maxInFlight - inFlight.availablePermits(), rate);
+        }
+        step.elapsedNanos = step.lastCompletion.get() - start;
+        return step;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Results of one rate step; recorded from the HTTP client threads
+     */
+    private final class Step {
+        final int rate;
+        final Histogram corrected = new SynchronizedHistogram(HIGHEST_LATENCY_MICROS, 3);
+        final Histogram uncorrected = new SynchronizedHistogram(HIGHEST_LATENCY_MICROS, 3);
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong lastCompletion = new AtomicLong();
+        long elapsedNanos;
+
+        Step(int rate) {
+            this.rate = rate;
+        }
+
+        void record(long intended, long sent, long now, boolean success) {
+            corrected.recordValue(Math.min(HIGHEST_LATENCY_MICROS, (now - intended) / 1000));
+            uncorrected.recordValue(Math.min(HIGHEST_LATENCY_MICROS, (now - sent) / 1000));
+            completed.incrementAndGet();
+            if (!success) {
+                errors.incrementAndGet();
+            }
+            lastCompletion.accumulateAndGet(now, Math::max);
+        }
+
+        double achievedRate() {
+            return elapsedNanos > 0 ? (completed.get() - errors.get()) * 1e9 / elapsedNanos : 0.0;
+        }
+
+        boolean meetsSlo() {
+            long total = completed.get();
+            return total > 0
+                    && millis(corrected, 99.0) <= sloP99Ms
+                    && errors.get() <= total / 100
+                    && achievedRate() >= rate * 0.95;
+        }
+
+        String summary() {
+            return String.format("%d req/s: %.1f achieved, %d completed, %d errors, p50 %.2f ms, p99 %.2f ms"
+                            + " (%.2f ms uncorrected), max %.2f ms, SLO %s",
+                    rate, achievedRate(), completed.get(), errors.get(), millis(corrected, 50.0),
+                    millis(corrected, 99.0), millis(uncorrected, 99.0), corrected.getMaxValue() / 1000.0,
+                    meetsSlo() ? "met" : "missed");
+        }
+    }
+}
@@ -3,12 +3,28 @@ package com.example.naive_bayes_classifier.service;
 
 
 import com.example.naive_bayes_classifier.model.ClassificationResult;
+import com.example.naive_bayes_classifier.model.ClassifierModel;
+import com.example.naive_bayes_classifier.model.FeatureNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.HashedNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.NaiveBayesModel;
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
 import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.monitoring.ClassifyEvent;
+import com.example.naive_bayes_classifier.monitoring.ScoreEvent;
+import com.example.naive_bayes_classifier.scoring.ConfidenceCalibration;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorers;
+import com.example.naive_bayes_classifier.utils.FeatureExtractor;
+import com.example.naive_bayes_classifier.utils.MinHashDeduplicator;
+import com.example.naive_bayes_classifier.utils.TopKSelector;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
 
 @Service
@@ -19,13 +35,71 @@ public class NaiveBayesService {
     @Autowired
     private TextPreprocessingService preprocessingService;
 
-    // Naive Bayes Model Parameters
-    private Map<String, Integer> categoryDocumentCount = new HashMap<>();
-    private Map<String, Map<String, Integer>> categoryWordCount = new HashMap<>();
-    private Map<String, Integer> categoryTotalWords = new HashMap<>();
-    private Set<String> vocabulary = new HashSet<>();
-    private int totalDocuments = 0;
-    private boolean isTrained = false;
+    @Autowired
+    private ClassificationCacheService cacheService;
+
+    @Autowired
+    private DriftMonitoringService driftMonitoringService;
+
+    // exact: string vocabulary, hashed: fixed-size hashed feature space
+    @Value("${classifier.model.mode:exact}")
+    private String modelMode;
+
+    @Value("${classifier.hashing.bits:18}")
+    private int hashingBits;
+
+    // Features seen fewer times than this across the corpus are dropped
+    @Value("${classifier.features.min-count:1}")
+    private int featureMinCount;
+
+    @Value("${classifier.hashing.collision-diagnostics:false}")
+    private boolean collisionDiagnostics;
+
+    // Naive Bayes variant: multinomial, complement, bernoulli or tfidf
+    @Value("${classifier.scorer:multinomial}")
+    private String defaultScorerName;
+
+    @Value("${classifier.scorer.alpha:1.0}")
+    private double scorerAlpha;
+
+    // Confidence calibration fit by train-evaluate: none, temperature or isotonic
+    @Value("${classifier.calibration:none}")
+    private String defaultCalibration;
+
+    // Categories returned per result when the request does not ask (0 = all)
+    @Value("${classifier.response.top-k:0}")
+    private int defaultTopK;
+
+    // Near-duplicate removal (MinHash + LSH) before counting
+    @Value("${training.dedup.enabled:false}")
+    private boolean dedupEnabled;
+
+    @Value("${training.dedup.shingle-size:3}")
+    private int dedupShingleSize;
+
+    @Value("${training.dedup.num-hashes:128}")
+    private int dedupNumHashes;
+
+    @Value("${training.dedup.bands:32}")
+    private int dedupBands;
+
+    // Estimated Jaccard similarity of stem shingles from which a document is a duplicate
+    @Value("${training.dedup.threshold:0.8}")
+    private double dedupThreshold;
+
+    // Upper bound on the explanation terms a request may ask for
+    @Value("${classifier.explain.max-terms:50}")
+    private int maxExplainTerms;
+
+    // Naive Bayes Model Parameters (model and version replaced together when a new model is published)
+    private volatile ModelSnapshot published = new ModelSnapshot(new NaiveBayesModel(), 0);
+    private volatile boolean isTrained = false;
+
+    // Near-duplicate report of the training run behind the current model (null = not run)
+    private volatile Map<String, Object> deduplication;
+
+    // Fitted for one model and one scorer; dropped when a new model is published
+    private volatile FittedCalibration calibration;
 
     /**
      * Train the Naive Bayes classifier
@@ -35,202 +109,549 @@ public class NaiveBayesService {
     public void train(List<TrainingDocument> documents) {
         logger.info("Starting Naive Bayes training with {} documents", documents.size());
 
-        // Reset model
-        reset();
+        ClassifierModel trained = newModel();
+        trained.setStemmer(preprocessingService.getStemmerName());
+        MinHashDeduplicator deduplicator = newDeduplicator();
 
         // Process each training document
         for (TrainingDocument doc : documents) {
-            String category = doc.getCategory();
-
             // Preprocess text using SAFAR
             List<String> stems = preprocessingService.preprocess(doc.getContent());
-
-            if (stems.isEmpty()) {
-                logger.warn("Empty document after preprocessing for category: {}", category);
-                continue;
+            if (deduplicator == null || !deduplicator.isDuplicate(doc.getCategory(), stems)) {
+                addDocument(trained, doc.getCategory(), stems);
             }
+        }
+
+        publish(trained, deduplicator == null ? null : deduplicator.getStats());
+    }
+
+    /**
+     * Train from documents that are already tokenized and stemmed,
+     * e.g. streamed from a preprocessed corpus file
+     * @param stemmer name of the stemmer the documents were preprocessed with
+     */
+    public void trainPreprocessed(Iterable<PreprocessedDocument> documents, String stemmer) {
+        logger.info("Starting Naive Bayes training from preprocessed documents");
 
-            // Update category document count
-            categoryDocumentCount.put(category,
-                    categoryDocumentCount.getOrDefault(category, 0) + 1);
+        ClassifierModel trained = newModel();
+        trained.setStemmer(stemmer);
+        MinHashDeduplicator deduplicator = newDeduplicator();
 
-            // Initialize category if needed
-            if (!categoryWordCount.containsKey(category)) {
-                categoryWordCount.put(category, new HashMap<>());
-                categoryTotalWords.put(category, 0);
+        for (PreprocessedDocument doc : documents) {
+            if (deduplicator == null || !deduplicator.isDuplicate(doc.getCategory(), doc.getStems())) {
+                addDocument(trained, doc.getCategory(), doc.getStems());
             }
+        }
+
+        publish(trained, deduplicator == null ? null : deduplicator.getStats());
+    }
+
+    /**
+     * Publish a model whose counts were assembled elsewhere, e.g. merged
+     * from count shards; pruning and compilation happen here as usual
+     * @param deduplication what near-duplicate removal was applied to the
+     *                      counts, reported with the model stats (null = none)
+     */
+    public void trainFromCounts(ClassifierModel counts, Map<String, Object> deduplication) {
+        logger.info("Publishing model built from merged counts");
+        publish(counts, deduplication);
+    }
 
-            // Count words in category
-            Map<String, Integer> wordCount = categoryWordCount.get(category);
-            for (String stem : stems) {
-                wordCount.put(stem, wordCount.getOrDefault(stem, 0) + 1);
-                categoryTotalWords.put(category, categoryTotalWords.get(category) + 1);
-                vocabulary.add(stem);
+    /**
+     * Create an empty model of the configured mode
+     */
+    public ClassifierModel newModel() {
+        FeatureExtractor extractor = preprocessingService.getFeatureExtractor();
+        if ("hashed".equalsIgnoreCase(modelMode)) {
+            HashedNaiveBayesModel hashed = new HashedNaiveBayesModel(hashingBits, extractor);
+            if (collisionDiagnostics) {
+                hashed.enableCollisionDiagnostics();
             }
+            return hashed;
+        }
+        if (!"exact".equalsIgnoreCase(modelMode)) {
+            throw new IllegalStateException("Unknown model mode: " + modelMode + " (expected 'exact' or 'hashed')");
+        }
+        return extractor.isUnigramOnly() ? new NaiveBayesModel() : new FeatureNaiveBayesModel(extractor);
+    }
+
+    public boolean isDeduplicationEnabled() {
+        return dedupEnabled;
+    }
+
+    /**
+     * Near-duplicate filter for one training run (or one count shard), null when disabled
+     */
+    public MinHashDeduplicator newDeduplicator() {
+        return dedupEnabled
+                ? new MinHashDeduplicator(dedupShingleSize, dedupNumHashes, dedupBands, dedupThreshold)
+                : null;
+    }
+
+    private void addDocument(ClassifierModel target, String category, List<String> stems) {
+        if (!target.addDocument(category, stems)) {
+            logger.warn("Empty document after preprocessing for category: {}", category);
+        }
+    }
 
-            totalDocuments++;
+    /**
+     * Prune and compile a model built from counts with the configured
+     * threshold and default scorer, without publishing it
+     */
+    public void prepare(ClassifierModel trained) {
+        if (trained instanceof HashedNaiveBayesModel) {
+            ((HashedNaiveBayesModel) trained).finishDiagnostics();
         }
+        trained.prune(featureMinCount);
+        trained.compile(resolveScorer(null));
+    }
+
+    /**
+     * Make a fully built model the current one
+     */
+    private void publish(ClassifierModel trained, Map<String, Object> deduplicationStats) {
+        prepare(trained);
 
-        isTrained = true;
+        if (trained.getStemmer() != null && !trained.getStemmer().equals(preprocessingService.getStemmerName())) {
+            logger.warn("Model was trained with stemmer '{}' but the pipeline uses '{}'",
+                    trained.getStemmer(), preprocessingService.getStemmerName());
+        }
+
+        // Concurrent publishers (training, watcher, shard merge) must not interleave
+        // the version bump, cache invalidation and drift reset
+        ModelSnapshot snapshot;
+        synchronized (this) {
+            snapshot = new ModelSnapshot(trained, published.version + 1);
+            published = snapshot;
+            deduplication = deduplicationStats;
+            calibration = null;
+            isTrained = true;
+            cacheService.invalidate();
+            driftMonitoringService.reset(trained, snapshot.version);
+        }
 
         logger.info("Training completed successfully:");
-        logger.info("  - Total documents: {}", totalDocuments);
-        logger.info("  - Vocabulary size: {}", vocabulary.size());
-        logger.info("  - Categories: {}", categoryDocumentCount.keySet());
+        logger.info("  - Total documents: {}", trained.getTotalDocuments());
+        logger.info("  - Vocabulary size: {}", trained.getVocabularySize());
+        logger.info("  - Categories: {}", trained.getCategories());
+        logger.info("  - Stemmer: {}", trained.getStemmer());
+        logger.info("  - Scorer: {}", trained.getDefaultScorer().getKey());
+        if (deduplicationStats != null) {
+            logger.info("  - Deduplication: {}", deduplicationStats);
+        }
 
-        for (String category : categoryDocumentCount.keySet()) {
+        for (String category : trained.getCategories()) {
             logger.info("  - Category '{}': {} documents, {} words",
                     category,
-                    categoryDocumentCount.get(category),
-                    categoryTotalWords.get(category));
+                    trained.getCategoryDocumentCount().get(category),
+                    trained.getCategoryTotalWords().get(category));
         }
     }
 
+    /**
+     * Scorer for a request: the configured default when name is null
+     */
+    public NaiveBayesScorer resolveScorer(String name) {
+        return NaiveBayesScorers.create(name == null || name.isBlank() ? defaultScorerName : name, scorerAlpha);
+    }
+
     /**
      * Classify a text using Naive Bayes algorithm
      */
     public ClassificationResult classify(String text) {
+        return classify(text, null);
+    }
+
+    /**
+     * Classify a text with a specific Naive Bayes variant (null = default)
+     */
+    public ClassificationResult classify(String text, String scorerName) {
+        return classify(text, scorerName, null);
+    }
+
+    /**
+     * Classify a text returning only the topK most probable categories
+     * (null = configured default, 0 = all)
+     */
+    public ClassificationResult classify(String text, String scorerName, Integer topK) {
+        return classify(text, scorerName, topK, null);
+    }
+
+    /**
+     * Classify a text, optionally explaining the prediction with the terms
+     * that most favour the predicted category over the runner-up
+     * @param explain number of terms to return (null or 0 = no explanation)
+     */
+    public ClassificationResult classify(String text, String scorerName, Integer topK, Integer explain) {
+        return classify(snapshot(), text, scorerName, topK, explain);
+    }
+
+    /**
+     * Classify against a given published model, e.g. one whose category ids
+     * the caller is about to encode the result with
+     */
+    public ClassificationResult classify(ModelSnapshot snapshot, String text, String scorerName,
+                                         Integer topK, Integer explain) {
         if (!isTrained) {
             throw new IllegalStateException("Model not trained yet! Please train the model first.");
         }
 
         logger.info("Classifying text...");
 
-        // Preprocess text using SAFAR
-        List<String> stems = preprocessingService.preprocess(text);
+        NaiveBayesScorer scorer = resolveScorer(scorerName);
+        int k = resolveTopK(topK);
+        int terms = resolveExplain(explain);
+        String variant = k > 0 ? scorer.getKey() + "/top" + k : scorer.getKey();
+        if (terms > 0) {
+            variant += "/explain" + terms;
+        }
+        long version = snapshot.version;
+        ClassifyEvent event = new ClassifyEvent();
+        event.begin();
+        if (!cacheService.isEnabled()) {
+            // Preprocess text using SAFAR
+            List<String> stems = preprocessingService.preprocess(text);
+            ClassificationResult result = classifyStems(snapshot, stems, scorer, k, terms, new int[1]);
+            commit(event, version, scorer, text, stems.size(), false);
+            return result;
+        }
+
+        // Cached by the text the pipeline sees, so it is normalized once here
+        String normalized = preprocessingService.normalize(text);
+        ClassificationCacheService.Key key = cacheService.key(normalized, variant);
+        ClassificationCacheService.Hit hit = cacheService.get(key, version);
+        if (hit != null) {
+            ClassificationResult cached = hit.getResult();
+            logger.debug("Cache hit for model version {}", version);
+            // Repeated documents are live traffic too
+            driftMonitoringService.recordCached(snapshot.model, cached.getPredictedCategory(),
+                    cached.getConfidence(), cached.getTotalTokens(), hit.getOovStems());
+            commit(event, version, scorer, text, cached.getTotalTokens(), true);
+            return cached;
+        }
+
+        List<String> stems = preprocessingService.stem(preprocessingService.tokenize(normalized));
+        int[] oovStems = new int[1];
+        ClassificationResult result = classifyStems(snapshot, stems, scorer, k, terms, oovStems);
+        cacheService.put(key, version, result, oovStems[0]);
+
+        commit(event, version, scorer, text, stems.size(), false);
+        return result;
+    }
+
+    /**
+     * Classify a document streamed from a reader (e.g. an uploaded file),
+     * preprocessed chunk by chunk; such documents bypass the result cache
+     */
+    public ClassificationResult classify(Reader reader) throws IOException {
+        if (!isTrained) {
+            throw new IllegalStateException("Model not trained yet! Please train the model first.");
+        }
+        List<String> stems = preprocessingService.preprocess(reader);
+        return classifyStems(snapshot(), stems, resolveScorer(null), defaultTopK, 0, new int[1]);
+    }
+
+    private static void commit(ClassifyEvent event, long version, NaiveBayesScorer scorer,
+                               String text, int stems, boolean cacheHit) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.modelVersion = version;
+            event.scorer = scorer.getKey();
+            event.textLength = text.length();
+            event.stems = stems;
+            event.cacheHit = cacheHit;
+            event.commit();
+        }
+    }
+
+    /**
+     * Classify an already preprocessed document
+     */
+    public ClassificationResult classifyStems(List<String> stems) {
+        return classifyStems(stems, resolveScorer(null));
+    }
+
+    /**
+     * Classify an already preprocessed document with a specific variant
+     */
+    public ClassificationResult classifyStems(List<String> stems, NaiveBayesScorer scorer) {
+        return classifyStems(stems, scorer, defaultTopK);
+    }
+
+    /**
+     * Classify an already preprocessed document keeping the topK categories (0 = all).
+     * Probabilities come back ordered from most to least probable.
+     */
+    public ClassificationResult classifyStems(List<String> stems, NaiveBayesScorer scorer, int topK) {
+        return classifyStems(stems, scorer, topK, 0);
+    }
+
+    /**
+     * Classify keeping the topK categories and explaining the prediction
+     * with up to {@code explain} terms (0 = no explanation). The explanation
+     * reuses the feature rows looked up for scoring. Not recorded by drift
+     * monitoring, which only sees classify requests.
+     */
+    public ClassificationResult classifyStems(List<String> stems, NaiveBayesScorer scorer, int topK, int explain) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model not trained yet! Please train the model first.");
+        }
+        return classifyStems(snapshot(), stems, scorer, topK, explain, null);
+    }
+
+    /**
+     * @param oovStems when set, the document is recorded by the drift monitor and
+     *                 its out-of-vocabulary stem count stored here; only live
+     *                 traffic (classify requests) is, not warm-up, evaluation or batch runs
+     */
+    private ClassificationResult classifyStems(ModelSnapshot snapshot, List<String> stems, NaiveBayesScorer scorer,
+                                               int topK, int explain, int[] oovStems) {
+        ClassifierModel current = snapshot.model;
+        long version = snapshot.version;
 
         if (stems.isEmpty()) {
             logger.warn("No stems found after preprocessing");
-            return createDefaultResult();
+            return createDefaultResult(current);
         }
 
-        // Calculate log probabilities for each category
-        Map<String, Double> logProbabilities = new HashMap<>();
+        ScoreEvent event = new ScoreEvent();
+        event.begin();
 
-        for (String category : categoryDocumentCount.keySet()) {
-            double logProb = calculateLogProbability(category, stems);
-            logProbabilities.put(category, logProb);
-            logger.debug("Category '{}': log probability = {}", category, logProb);
-        }
+        // Raw scores, then (calibrated) probabilities, all indexed by category id
+        int[] rows = current.featureRows(stems);
+        double[] probabilities = calibrationFor(current, scorer).probabilities(current.scores(rows, scorer));
 
-        // Find best category
-        String predictedCategory = Collections.max(
-                logProbabilities.entrySet(),
-                Map.Entry.comparingByValue()
-        ).getKey();
+        // Partial selection: no full sort, no map of every category.
+        // An explanation needs the runner-up even when only one category is returned.
+        int k = topK > 0 ? Math.min(topK, probabilities.length) : probabilities.length;
+        int[] top = TopKSelector.select(probabilities, explain > 0 ? Math.max(k, Math.min(2, probabilities.length)) : k);
 
-        // Convert to normalized probabilities
-        Map<String, Double> probabilities = normalizeProbabilities(logProbabilities);
+        Map<String, Double> selected = new LinkedHashMap<>();
+        for (int i = 0; i < k; i++) {
+            selected.put(current.getCategoryName(top[i]), probabilities[top[i]]);
+        }
 
-        double confidence = probabilities.get(predictedCategory);
+        String predictedCategory = current.getCategoryName(top[0]);
+        double confidence = calibrationFor(current, scorer).confidence(probabilities[top[0]]);
 
         ClassificationResult result = new ClassificationResult(
                 predictedCategory,
-                probabilities,
+                selected,
                 confidence
         );
         result.setTotalTokens(stems.size());
         result.setUniqueTokens(new HashSet<>(stems).size());
+        if (oovStems != null) {
+            oovStems[0] = driftMonitoringService.record(current, stems, rows, top[0], confidence);
+        }
 
-        logger.info("Classification result: {} (confidence: {:.2f}%)",
-                predictedCategory, confidence * 100);
+        if (explain > 0 && top.length > 1) {
+            result.setExplainedAgainst(current.getCategoryName(top[1]));
+            result.setExplanation(current.explain(stems, rows, scorer, top[0], top[1], explain));
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.modelVersion = version;
+            event.scorer = scorer.getKey();
+            event.stems = stems.size();
+            event.featureRows = rows.length;
+            event.categories = probabilities.length;
+            event.topK = k;
+            event.explainTerms = result.getExplanation() != null ? result.getExplanation().size() : 0;
+            event.predictedCategory = predictedCategory;
+            event.commit();
+        }
+
+        logger.debug("Classification result: {} (confidence: {})", predictedCategory, confidence);
 
         return result;
     }
 
+    private int resolveTopK(Integer topK) {
+        return topK == null ? defaultTopK : Math.max(0, topK);
+    }
+
+    private int resolveExplain(Integer explain) {
+        return explain == null ? 0 : Math.max(0, Math.min(explain, maxExplainTerms));
+    }
+
     /**
-     * Calculate log P(Category | Document)
-     * log P(C|D) = log P(C) + Σ log P(w|C) for all words w in D
+     * Probabilities (calibrated when a calibration is fitted) of raw scores
+     * of a model, indexed by category id
      */
-    private double calculateLogProbability(String category, List<String> words) {
-        // Prior probability: P(Category)
-        double logPrior = Math.log(
-                (double) categoryDocumentCount.get(category) / totalDocuments
-        );
-
-        // Likelihood: P(Words | Category)
-        double logLikelihood = 0.0;
-        Map<String, Integer> wordCount = categoryWordCount.get(category);
-        int totalWordsInCategory = categoryTotalWords.get(category);
-        int vocabSize = vocabulary.size();
+    public double[] probabilities(ClassifierModel current, double[] scores, NaiveBayesScorer scorer) {
+        return calibrationFor(current, scorer).probabilities(scores);
+    }
 
-        // Calculate log probability for each word
-        for (String word : words) {
-            // Laplace smoothing: (count + 1) / (total + vocab_size)
-            int count = wordCount.getOrDefault(word, 0);
-            double probability = (count + 1.0) / (totalWordsInCategory + vocabSize);
-            logLikelihood += Math.log(probability);
+    /**
+     * Calibration to apply for a model and scorer (identity unless fitted for both)
+     */
+    private ConfidenceCalibration calibrationFor(ClassifierModel current, NaiveBayesScorer scorer) {
+        FittedCalibration fitted = calibration;
+        if (fitted != null && fitted.model == current && fitted.scorerKey.equals(scorer.getKey())) {
+            return fitted.calibration;
         }
-
-        return logPrior + logLikelihood;
+        return ConfidenceCalibration.none();
     }
 
     /**
-     * Convert log probabilities to normalized probabilities (0-1)
+     * Fit a confidence calibration for the current model and default scorer on a
+     * held-out split (typically the evaluation split of train-evaluate)
+     * @param method none, temperature or isotonic (null = configured default)
+     * @return fit report (parameters, calibration error before/after)
      */
-    private Map<String, Double> normalizeProbabilities(Map<String, Double> logProbs) {
-        Map<String, Double> normalized = new HashMap<>();
+    public Map<String, Object> calibrate(Iterable<PreprocessedDocument> heldOut, String method) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model not trained yet! Please train the model first.");
+        }
 
-        // Find max log probability for numerical stability
-        double maxLogProb = Collections.max(logProbs.values());
+        ClassifierModel current = getModel();
+        NaiveBayesScorer scorer = current.getDefaultScorer();
 
-        // Convert to exponential and calculate sum
-        Map<String, Double> expProbs = new HashMap<>();
-        double sum = 0.0;
+        Map<String, Integer> categoryIds = new HashMap<>();
+        for (int c = 0; c < current.getCategoryCount(); c++) {
+            categoryIds.put(current.getCategoryName(c), c);
+        }
 
-        for (Map.Entry<String, Double> entry : logProbs.entrySet()) {
-            double expProb = Math.exp(entry.getValue() - maxLogProb);
-            expProbs.put(entry.getKey(), expProb);
-            sum += expProb;
+        List<double[]> scores = new ArrayList<>();
+        List<Integer> labels = new ArrayList<>();
+        for (PreprocessedDocument doc : heldOut) {
+            Integer label = categoryIds.get(doc.getCategory());
+            if (label == null || doc.getStems().isEmpty()) {
+                continue;
+            }
+            scores.add(current.scores(doc.getStems(), scorer));
+            labels.add(label);
         }
 
-        // Normalize to get probabilities
-        for (Map.Entry<String, Double> entry : expProbs.entrySet()) {
-            normalized.put(entry.getKey(), entry.getValue() / sum);
+        ConfidenceCalibration fitted = ConfidenceCalibration.fit(
+                method == null || method.isBlank() ? defaultCalibration : method, scores,
+                labels.stream().mapToInt(Integer::intValue).toArray());
+        synchronized (this) {
+            if (published.model != current) {
+                throw new IllegalStateException("A new model was published during calibration; calibrate it again");
+            }
+            calibration = fitted.isIdentity() ? null : new FittedCalibration(current, scorer.getKey(), fitted);
+            cacheService.invalidate();
         }
 
-        return normalized;
+        logger.info("Confidence calibration: {}", fitted.getSummary());
+        return fitted.getSummary();
     }
 
     /**
-     * Create default result when classification fails
+     * Fit a calibration on raw text documents (preprocessed here)
      */
-    private ClassificationResult createDefaultResult() {
-        String firstCategory = categoryDocumentCount.keySet().iterator().next();
-        Map<String, Double> probs = new HashMap<>();
-        for (String cat : categoryDocumentCount.keySet()) {
-            probs.put(cat, 1.0 / categoryDocumentCount.size());
+    public Map<String, Object> calibrateTexts(List<TrainingDocument> heldOut, String method) {
+        List<PreprocessedDocument> documents = new ArrayList<>(heldOut.size());
+        for (TrainingDocument doc : heldOut) {
+            documents.add(new PreprocessedDocument(doc.getCategory(),
+                    preprocessingService.preprocess(doc.getContent())));
         }
-        return new ClassificationResult(firstCategory, probs, 1.0 / categoryDocumentCount.size());
+        return calibrate(documents, method);
     }
 
     /**
-     * Reset the model
+     * Calibration currently in effect (method "none" if not fitted)
      */
-    private void reset() {
-        categoryDocumentCount.clear();
-        categoryWordCount.clear();
-        categoryTotalWords.clear();
-        vocabulary.clear();
-        totalDocuments = 0;
-        isTrained = false;
+    public Map<String, Object> getCalibrationSummary() {
+        FittedCalibration fitted = calibration;
+        return fitted == null || fitted.model != getModel()
+                ? ConfidenceCalibration.none().getSummary()
+                : fitted.calibration.getSummary();
+    }
+
+    /**
+     * A published model and its version
+     */
+    public static final class ModelSnapshot {
+        private final ClassifierModel model;
+        private final long version;
+
+        ModelSnapshot(ClassifierModel model, long version) {
+            this.model = model;
+            this.version = version;
+        }
+
+        public ClassifierModel getModel() {
+            return model;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    private static final class FittedCalibration {
+        private final ClassifierModel model;
+        private final String scorerKey;
+        private final ConfidenceCalibration calibration;
+
+        FittedCalibration(ClassifierModel model, String scorerKey, ConfidenceCalibration calibration) {
+            this.model = model;
+            this.scorerKey = scorerKey;
+            this.calibration = calibration;
+        }
+    }
+
+    /**
+     * Create default result when classification fails
+     */
+    private ClassificationResult createDefaultResult(ClassifierModel current) {
+        Set<String> categories = current.getCategories();
+        String firstCategory = categories.iterator().next();
+        Map<String, Double> probs = new HashMap<>();
+        for (String cat : categories) {
+            probs.put(cat, 1.0 / categories.size());
+        }
+        return new ClassificationResult(firstCategory, probs, 1.0 / categories.size());
     }
 
     /**
      * Get model statistics
      */
     public Map<String, Object> getModelStats() {
+        ModelSnapshot snapshot = published;
+        ClassifierModel current = snapshot.model;
         Map<String, Object> stats = new HashMap<>();
         stats.put("trained", isTrained);
-        stats.put("totalDocuments", totalDocuments);
-        stats.put("vocabularySize", vocabulary.size());
-        stats.put("categories", new ArrayList<>(categoryDocumentCount.keySet()));
-        stats.put("categoryDocumentCount", categoryDocumentCount);
-        stats.put("categoryWordCount", categoryTotalWords);
+        stats.put("modelVersion", snapshot.version);
+        stats.put("totalDocuments", current.getTotalDocuments());
+        stats.put("vocabularySize", current.getVocabularySize());
+        stats.put("categories", new ArrayList<>(current.getCategories()));
+        stats.put("categoryDocumentCount", current.getCategoryDocumentCount());
+        stats.put("categoryWordCount", current.getCategoryTotalWords());
+        stats.put("stemmer", current.getStemmer());
+        stats.put("scorer", current.getDefaultScorer().getKey());
+        stats.put("calibration", getCalibrationSummary());
+        stats.put("deduplication", deduplication != null ? deduplication : Map.of("enabled", false));
+        stats.put("modelDiagnostics", current.getDiagnostics());
         stats.put("preprocessingStats", preprocessingService.getStats());
         return stats;
     }
 
+    /**
+     * Current published model
+     */
+    public ClassifierModel getModel() {
+        return published.model;
+    }
+
+    /**
+     * Version of the current model, incremented on every training run
+     */
+    public long getModelVersion() {
+        return published.version;
+    }
+
+    /**
+     * Current model together with its version, read atomically
+     */
+    public ModelSnapshot snapshot() {
+        return published;
+    }
+
     /**
      * Check if model is trained
      */
@@ -242,11 +663,12 @@ public class NaiveBayesService {
      * Get category prior probabilities
      */
     public Map<String, Double> getCategoryPriors() {
+        ClassifierModel current = getModel();
         Map<String, Double> priors = new HashMap<>();
-        for (String category : categoryDocumentCount.keySet()) {
+        for (String category : current.getCategories()) {
             priors.put(category,
-                    (double) categoryDocumentCount.get(category) / totalDocuments);
+                    (double) current.getCategoryDocumentCount().get(category) / current.getTotalDocuments());
         }
         return priors;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,283 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.ClassifierModel;
+import com.example.naive_bayes_classifier.model.SegmentedClassificationResult;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+import com.example.naive_bayes_classifier.utils.TopKSelector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Classification of long, multi-topic documents by segment.
+ *
+ * The document is split into paragraphs, which are preprocessed in
+ * parallel and concatenated into one stem sequence. Its feature rows are
+ * looked up once; each segment (a paragraph, or a window of stems when
+ * windows overlap) takes its rows from that array, so overlapping windows
+ * never look a feature up twice. Segments are then scored in parallel and
+ * the document distribution is the stem-weighted mean of the segment
+ * distributions, i.e. the share of the text that reads as each category.
+ *
+ * A request may produce at most max-segments segments (a small stride over
+ * a long document would otherwise yield one window per stem), and the
+ * worker pool has a bounded queue: when it is full, tasks run on the
+ * request thread, which slows that request down instead of piling up work.
+ */
+@Service
+public class SegmentClassificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentClassificationService.class);
+
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+
+    // Smallest unit of parallel work, so short documents stay on the calling thread
+    private static final int MIN_TASK_CHARS = 4000;
+    private static final int MIN_TASK_STEMS = 2000;
+
+    @Autowired
+    private NaiveBayesService naiveBayesService;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    // paragraph or window
+    @Value("${classifier.segments.mode:paragraph}")
+    private String defaultMode;
+
+    // Window mode: stems per window, and distance between window starts (< size = overlapping)
+    @Value("${classifier.segments.window-size:100}")
+    private int defaultWindowSize;
+
+    @Value("${classifier.segments.stride:50}")
+    private int defaultStride;
+
+    // 0 = available processors
+    @Value("${classifier.segments.threads:0}")
+    private int threads;
+
+    // Larger segmentations are rejected
+    @Value("${classifier.segments.max-segments:2000}")
+    private int maxSegments;
+
+    // Pending tasks beyond this run on the calling thread
+    @Value("${classifier.segments.queue-size:256}")
+    private int queueSize;
+
+    private ExecutorService executor;
+    private int workerCount;
+
+    @PostConstruct
+    void start() {
+        workerCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "segment-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Classify each segment of a document and the document as a whole
+     * against one published model (whose version the caller reports)
+     * @param mode paragraph or window (null = configured default)
+     * @param windowSize stems per window (null = configured default)
+     * @param stride distance between window starts (null = configured default)
+     * @param topK categories in the document distribution (null or 0 = all)
+     */
+    public SegmentedClassificationResult classify(NaiveBayesService.ModelSnapshot snapshot, String text, String mode,
+                                                  Integer windowSize, Integer stride, String scorerName, Integer topK) {
+        if (!naiveBayesService.isTrained()) {
+            throw new IllegalStateException("Model not trained yet! Please train the model first.");
+        }
+        String segmentation = mode == null || mode.isBlank() ? defaultMode : mode.toLowerCase(Locale.ROOT);
+        if (!"paragraph".equals(segmentation) && !"window".equals(segmentation)) {
+            throw new IllegalArgumentException("Unknown segmentation: " + mode + " (expected paragraph or window)");
+        }
+        int size = windowSize == null ? defaultWindowSize : windowSize;
+        int step = stride == null ? defaultStride : stride;
+        if ("window".equals(segmentation) && (size < 1 || step < 1)) {
+            throw new IllegalArgumentException("Window size and stride must be positive");
+        }
+
+        long start = System.nanoTime();
+        ClassifierModel current = snapshot.getModel();
+        NaiveBayesScorer scorer = naiveBayesService.resolveScorer(scorerName);
+
+        // Paragraphs preprocessed in parallel, then concatenated
+        String[] paragraphs = PARAGRAPH_BREAK.split(text.trim());
+        List<List<String>> paragraphStems = new ArrayList<>(Collections.nCopies(paragraphs.length, null));
+        runInParallel(partition(paragraphs.length, i -> paragraphs[i].length(), text.length(), MIN_TASK_CHARS),
+                i -> paragraphStems.set(i, preprocessingService.preprocess(paragraphs[i])));
+
+        List<String> stems = new ArrayList<>();
+        List<int[]> bounds = new ArrayList<>();
+        for (List<String> paragraph : paragraphStems) {
+            if (!paragraph.isEmpty()) {
+                bounds.add(new int[] {stems.size(), stems.size() + paragraph.size()});
+                stems.addAll(paragraph);
+            }
+        }
+        if (stems.isEmpty()) {
+            throw new IllegalArgumentException("No stems found after preprocessing");
+        }
+        if ("window".equals(segmentation)) {
+            long windowCount = stems.size() <= size ? 1 : (stems.size() - size + step - 1L) / step + 1;
+            if (windowCount > maxSegments) {
+                throw new IllegalArgumentException("Window size " + size + " and stride " + step + " give "
+                        + windowCount + " segments for " + stems.size() + " stems (max " + maxSegments
+                        + "); use a larger stride");
+            }
+            bounds = windows(stems.size(), size, step);
+        } else if (bounds.size() > maxSegments) {
+            throw new IllegalArgumentException("Document has " + bounds.size() + " paragraphs (max "
+                    + maxSegments + "); use window segmentation");
+        }
+
+        // One lookup for the whole document, shared by all segments
+        int[] rows = current.featureRows(stems);
+
+        List<int[]> segments = bounds;
+        double[][] probabilities = new double[segments.size()][];
+        long segmentStems = 0;
+        for (int[] segment : segments) {
+            segmentStems += segment[1] - segment[0];
+        }
+        runInParallel(partition(segments.size(), i -> segments.get(i)[1] - segments.get(i)[0], segmentStems, MIN_TASK_STEMS),
+                i -> {
+                    int[] segment = segments.get(i);
+                    int[] segmentRows = current.windowRows(stems, rows, segment[0], segment[1]);
+                    probabilities[i] = naiveBayesService.probabilities(current,
+                            current.scores(segmentRows, scorer), scorer);
+                });
+
+        // Stem-weighted mean of the segment distributions
+        double[] document = new double[current.getCategoryCount()];
+        List<SegmentedClassificationResult.Segment> labels = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            int[] segment = segments.get(i);
+            double weight = (double) (segment[1] - segment[0]) / segmentStems;
+            int best = 0;
+            for (int c = 0; c < document.length; c++) {
+                document[c] += weight * probabilities[i][c];
+                if (probabilities[i][c] > probabilities[i][best]) {
+                    best = c;
+                }
+            }
+            labels.add(new SegmentedClassificationResult.Segment(i, segment[0], segment[1],
+                    current.getCategoryName(best), probabilities[i][best]));
+        }
+
+        int k = topK != null && topK > 0 ? Math.min(topK, document.length) : document.length;
+        int[] top = TopKSelector.select(document, k);
+        Map<String, Double> selected = new LinkedHashMap<>();
+        for (int c : top) {
+            selected.put(current.getCategoryName(c), document[c]);
+        }
+
+        SegmentedClassificationResult result = new SegmentedClassificationResult(
+                current.getCategoryName(top[0]), selected, document[top[0]]);
+        result.setTotalTokens(stems.size());
+        result.setSegmentation(segmentation);
+        result.setSegments(labels);
+        result.setProcessingTimeMs((System.nanoTime() - start) / 1_000_000);
+        logger.debug("Classified {} segments of {} stems: {}", segments.size(), stems.size(), result.getPredictedCategory());
+        return result;
+    }
+
+    /**
+     * Windows of {@code size} stems every {@code stride} stems; the last
+     * one ends at the end of the document
+     */
+    private static List<int[]> windows(int stems, int size, int stride) {
+        List<int[]> windows = new ArrayList<>();
+        for (int from = 0; ; from += stride) {
+            int to = Math.min(stems, from + size);
+            windows.add(new int[] {from, to});
+            if (to == stems) {
+                return windows;
+            }
+        }
+    }
+
+    /**
+     * Consecutive ranges of items, each weighing at least the larger of
+     * {@code minWeight} and an equal share per worker
+     */
+    private List<int[]> partition(int items, IntUnaryOperator weight, long totalWeight, int minWeight) {
+        long target = Math.max(minWeight, totalWeight / workerCount);
+        List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        long accumulated = 0;
+        for (int i = 0; i < items; i++) {
+            accumulated += weight.applyAsInt(i);
+            if (accumulated >= target) {
+                ranges.add(new int[] {from, i + 1});
+                from = i + 1;
+                accumulated = 0;
+            }
+        }
+        if (from < items) {
+            ranges.add(new int[] {from, items});
+        }
+        return ranges;
+    }
+
+    /**
+     * Apply an action to every item of every range, one task per range;
+     * the first range runs on the calling thread
+     */
+    private void runInParallel(List<int[]> ranges, IntConsumer action) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int[] range : ranges.subList(Math.min(1, ranges.size()), ranges.size())) {
+            futures.add(executor.submit(() -> {
+                for (int i = range[0]; i < range[1]; i++) {
+                    action.accept(i);
+                }
+            }));
+        }
+        try {
+            if (!ranges.isEmpty()) {
+                for (int i = ranges.get(0)[0]; i < ranges.get(0)[1]; i++) {
+                    action.accept(i);
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Segment classification interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Segment classification failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+}
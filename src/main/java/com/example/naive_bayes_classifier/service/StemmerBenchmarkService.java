@@ -0,0 +1,156 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.EvaluationMetrics;
+import com.example.naive_bayes_classifier.model.NaiveBayesModel;
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.stemming.StemmingStrategies;
+import com.example.naive_bayes_classifier.stemming.StemmingStrategy;
+import com.example.naive_bayes_classifier.utils.FastArabicTokenizer;
+import com.example.naive_bayes_classifier.utils.MetricsCalculator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import safar.util.tokenization.impl.SAFARTokenizer;
+
+import java.util.*;
+
+/**
+ * Trains and evaluates a throwaway model per stemming strategy to compare
+ * accuracy against stemming throughput, and measures tokenizer throughput.
+ * The published model is untouched.
+ */
+@Service
+public class StemmerBenchmarkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StemmerBenchmarkService.class);
+    private static final long SPLIT_SEED = 42L;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    @Autowired
+    private MetricsCalculator metricsCalculator;
+
+    /**
+     * Run the comparison on the given documents
+     * @param strategyNames names accepted by {@link StemmingStrategies#create}
+     * @param testRatio     held-out fraction, identical split for every strategy
+     */
+    public List<Map<String, Object>> compare(List<TrainingDocument> documents,
+                                             List<String> strategyNames,
+                                             double testRatio) {
+        // Normalize and tokenize once, shared by every strategy
+        List<List<String>> tokenized = new ArrayList<>(documents.size());
+        long totalTokens = 0;
+        for (TrainingDocument doc : documents) {
+            List<String> tokens = preprocessingService.tokenize(preprocessingService.normalize(doc.getContent()));
+            tokenized.add(tokens);
+            totalTokens += tokens.size();
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(SPLIT_SEED));
+        int testSize = (int) (documents.size() * testRatio);
+        Set<Integer> testIndices = new HashSet<>(order.subList(documents.size() - testSize, documents.size()));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String name : strategyNames) {
+            StemmingStrategy strategy = StemmingStrategies.create(name);
+
+            List<PreprocessedDocument> train = new ArrayList<>();
+            List<PreprocessedDocument> test = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < documents.size(); i++) {
+                PreprocessedDocument doc = new PreprocessedDocument(
+                        documents.get(i).getCategory(),
+                        preprocessingService.stem(tokenized.get(i), strategy));
+                (testIndices.contains(i) ? test : train).add(doc);
+            }
+            long stemNanos = System.nanoTime() - start;
+
+            NaiveBayesModel model = new NaiveBayesModel();
+            model.setStemmer(strategy.getName());
+            for (PreprocessedDocument doc : train) {
+                model.addDocument(doc.getCategory(), doc.getStems());
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("stemmer", strategy.getName());
+            row.put("stemTimeMs", stemNanos / 1_000_000.0);
+            row.put("tokensPerSecond", stemNanos > 0 ? totalTokens / (stemNanos / 1e9) : 0.0);
+            row.put("vocabularySize", model.getVocabularySize());
+
+            if (!test.isEmpty() && model.getTotalDocuments() > 0) {
+                EvaluationMetrics metrics = metricsCalculator.evaluatePreprocessed(model, test);
+                row.put("accuracy", metrics.getAccuracy());
+                row.put("macroF1", metrics.getMacroAverages().get("f1Score"));
+            }
+
+            logger.info("Stemmer benchmark {}: {}", strategy.getName(), row);
+            results.add(row);
+        }
+
+        return results;
+    }
+
+    /**
+     * Tokens per second of the SAFAR and native tokenizers on the normalized
+     * documents, after a warm-up pass over both
+     * @param rounds passes over the documents per tokenizer
+     */
+    public List<Map<String, Object>> compareTokenizers(List<TrainingDocument> documents, int rounds) {
+        List<String> texts = new ArrayList<>(documents.size());
+        for (TrainingDocument doc : documents) {
+            texts.add(preprocessingService.normalize(doc.getContent()));
+        }
+
+        SAFARTokenizer safar = new SAFARTokenizer();
+        FastArabicTokenizer fast = new FastArabicTokenizer();
+        FastArabicTokenizer.Spans spans = new FastArabicTokenizer.Spans();
+        int warmupRounds = Math.max(1, rounds / 10);
+        for (int r = 0; r < warmupRounds; r++) {
+            for (String text : texts) {
+                safar.tokenize(text);
+                fast.tokenize(text, spans);
+            }
+        }
+
+        long safarTokens = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String text : texts) {
+                safarTokens += safar.tokenize(text).length;
+            }
+        }
+        long safarNanos = System.nanoTime() - start;
+
+        long fastTokens = 0;
+        start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String text : texts) {
+                fastTokens += fast.tokenize(text, spans);
+            }
+        }
+        long fastNanos = System.nanoTime() - start;
+
+        List<Map<String, Object>> results = List.of(
+                tokenizerRow("safar", safarTokens, safarNanos),
+                tokenizerRow("native", fastTokens, fastNanos));
+        logger.info("Tokenizer benchmark over {} rounds: {}", rounds, results);
+        return results;
+    }
+
+    private static Map<String, Object> tokenizerRow(String tokenizer, long tokens, long nanos) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("tokenizer", tokenizer);
+        row.put("tokens", tokens);
+        row.put("timeMs", nanos / 1_000_000.0);
+        row.put("tokensPerSecond", nanos > 0 ? tokens / (nanos / 1e9) : 0.0);
+        return row;
+    }
+}
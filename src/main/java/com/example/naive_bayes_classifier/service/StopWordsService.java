@@ -7,8 +7,11 @@ import org.slf4j.LoggerFactory;
 import jakarta.annotation.PostConstruct;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 @Service
 public class StopWordsService {
@@ -62,6 +65,23 @@ public class StopWordsService {
         }
     }
 
+    /**
+     * Add the normalized form of every stop word, so that tokens coming out
+     * of the normalization pass are still filtered
+     */
+    public void addNormalizedVariants(UnaryOperator<String> normalizer) {
+        List<String> variants = new ArrayList<>();
+        for (String word : stopWords) {
+            String normalized = normalizer.apply(word);
+            if (!normalized.isEmpty()) {
+                variants.add(normalized);
+            }
+        }
+        int before = stopWords.size();
+        stopWords.addAll(variants);
+        logger.info("Added {} normalized stop word variants", stopWords.size() - before);
+    }
+
     public boolean isStopWord(String word) {
         return stopWords.contains(word);
     }
@@ -1,14 +1,24 @@
 package com.example.naive_bayes_classifier.service;
 
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.monitoring.NormalizeEvent;
+import com.example.naive_bayes_classifier.monitoring.StemEvent;
+import com.example.naive_bayes_classifier.monitoring.TokenizeEvent;
+import com.example.naive_bayes_classifier.stemming.StemmingStrategies;
+import com.example.naive_bayes_classifier.stemming.StemmingStrategy;
+import com.example.naive_bayes_classifier.utils.ArabicNormalizer;
+import com.example.naive_bayes_classifier.utils.FastArabicTokenizer;
+import com.example.naive_bayes_classifier.utils.FeatureExtractor;
+import com.example.naive_bayes_classifier.utils.StemCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import safar.util.tokenization.impl.SAFARTokenizer;
 import safar.util.tokenization.interfaces.ITokenizer;
-import safar.basic.morphology.stemmer.factory.StemmerFactory;
-import safar.basic.morphology.stemmer.interfaces.IStemmer;
-import safar.basic.morphology.stemmer.model.WordStemmerAnalysis;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
 
 @Service
@@ -16,21 +26,116 @@ public class TextPreprocessingService {
 
     private static final Logger logger = LoggerFactory.getLogger(TextPreprocessingService.class);
 
+    // Streamed texts are preprocessed in chunks of about this many chars
+    private static final int STREAM_CHUNK_CHARS = 1 << 16;
+    // Longest HTML tag the normalizer strips, so chunks never end inside one
+    private static final int MAX_TAG_LENGTH = 256;
+
+    private static final ThreadLocal<FastArabicTokenizer.Spans> SPANS =
+            ThreadLocal.withInitial(FastArabicTokenizer.Spans::new);
+
     private final ITokenizer tokenizer;
-    private final IStemmer stemmer;
+    private final FastArabicTokenizer nativeTokenizer;
+    private final StemmingStrategy stemmer;
     private final StopWordsService stopWordsService;
+    private final ArabicNormalizer normalizer;
+    private final boolean normalizationEnabled;
+    private final FeatureExtractor featureExtractor;
+    private final StemCache stemCache;
 
-    public TextPreprocessingService(StopWordsService stopWordsService) throws Exception {
-        this.tokenizer = new SAFARTokenizer();
-        this.stemmer = StemmerFactory.getImplementation("ISRI_STEMMER");
+    public TextPreprocessingService(
+            StopWordsService stopWordsService,
+            @Value("${preprocessing.tokenizer:safar}") String tokenizerType,
+            @Value("${preprocessing.stemmer:ISRI}") String stemmerName,
+            @Value("${preprocessing.features:w1}") String featureSpec,
+            @Value("${preprocessing.normalization.enabled:true}") boolean normalizationEnabled,
+            @Value("${preprocessing.normalization.remove-diacritics:true}") boolean removeDiacritics,
+            @Value("${preprocessing.normalization.remove-tatweel:true}") boolean removeTatweel,
+            @Value("${preprocessing.normalization.normalize-alef:true}") boolean normalizeAlef,
+            @Value("${preprocessing.normalization.normalize-yeh:true}") boolean normalizeYeh,
+            @Value("${preprocessing.normalization.normalize-teh-marbuta:true}") boolean normalizeTehMarbuta,
+            @Value("${preprocessing.normalization.remove-latin:true}") boolean removeLatin,
+            @Value("${preprocessing.normalization.strip-html:true}") boolean stripHtml,
+            @Value("${preprocessing.stem-cache.max-size:200000}") int stemCacheSize) throws Exception {
+        if ("native".equalsIgnoreCase(tokenizerType)) {
+            this.tokenizer = null;
+            this.nativeTokenizer = new FastArabicTokenizer();
+        } else if ("safar".equalsIgnoreCase(tokenizerType)) {
+            this.tokenizer = new SAFARTokenizer();
+            this.nativeTokenizer = null;
+        } else {
+            throw new IllegalArgumentException("Unknown tokenizer: " + tokenizerType
+                    + " (expected 'safar' or 'native')");
+        }
+        this.stemmer = StemmingStrategies.create(stemmerName);
+        this.stemCache = stemCacheSize > 0 ? new StemCache(stemCacheSize) : null;
+        this.featureExtractor = FeatureExtractor.fromSpec(featureSpec);
         this.stopWordsService = stopWordsService;
-        logger.info("SAFAR Text Preprocessing Service initialized successfully");
+
+        this.normalizationEnabled = normalizationEnabled;
+        this.normalizer = new ArabicNormalizer();
+        normalizer.setRemoveDiacritics(removeDiacritics);
+        normalizer.setRemoveTatweel(removeTatweel);
+        normalizer.setNormalizeAlef(normalizeAlef);
+        normalizer.setNormalizeYeh(normalizeYeh);
+        normalizer.setNormalizeTehMarbuta(normalizeTehMarbuta);
+        normalizer.setRemoveLatin(removeLatin);
+        normalizer.setStripHtml(stripHtml);
+        if (normalizationEnabled) {
+            stopWordsService.addNormalizedVariants(normalizer::normalize);
+        }
+
+        logger.info("SAFAR Text Preprocessing Service initialized successfully (tokenizer: {}, stemmer: {}, features: {}, normalization: {})",
+                tokenizerType, stemmer.getName(), featureExtractor.getSpec(), normalizationEnabled ? "on" : "off");
     }
 
     /**
-     * Tokenize Arabic text using SAFAR
+     * Normalize Arabic text (diacritics, tatweel, letter variants, Latin/HTML noise)
+     */
+    public String normalize(String text) {
+        if (!normalizationEnabled) {
+            return text;
+        }
+        NormalizeEvent event = new NormalizeEvent();
+        event.begin();
+        String normalized = normalizer.normalize(text);
+        event.end();
+        if (event.shouldCommit()) {
+            event.textLength = text.length();
+            event.normalizedLength = normalized.length();
+            event.commit();
+        }
+        return normalized;
+    }
+
+    /**
+     * Tokenize Arabic text using SAFAR or the native fast path
      */
     public List<String> tokenize(String text) {
+        TokenizeEvent event = new TokenizeEvent();
+        event.begin();
+        List<String> tokens = tokenizeText(text);
+        event.end();
+        if (event.shouldCommit()) {
+            event.tokenizer = nativeTokenizer != null ? "native" : "safar";
+            event.textLength = text.length();
+            event.tokens = tokens.size();
+            event.commit();
+        }
+        return tokens;
+    }
+
+    private List<String> tokenizeText(String text) {
+        if (nativeTokenizer != null) {
+            FastArabicTokenizer.Spans spans = SPANS.get();
+            int count = nativeTokenizer.tokenize(text, spans);
+            List<String> tokens = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                tokens.add(text.substring(spans.start(i), spans.end(i)));
+            }
+            return tokens;
+        }
+
         try {
             String[] tokens = tokenizer.tokenize(text);
             return Arrays.asList(tokens);
@@ -41,54 +146,182 @@ public class TextPreprocessingService {
     }
 
     /**
-     * Stem tokens using SAFAR ISRI Stemmer
+     * Stem tokens using the configured stemming strategy
      */
     public List<String> stem(List<String> tokens) {
+        return stem(tokens, stemmer);
+    }
+
+    /**
+     * Stem tokens with the configured strategy; with removeStopWords=false the
+     * result is aligned with the input (one stem per token)
+     */
+    public List<String> stem(List<String> tokens, boolean removeStopWords) {
+        return stem(tokens, stemmer, removeStopWords);
+    }
+
+    /**
+     * Stem tokens with an explicit strategy (stop words are filtered here)
+     */
+    public List<String> stem(List<String> tokens, StemmingStrategy strategy) {
+        return stem(tokens, strategy, true);
+    }
+
+    private List<String> stem(List<String> tokens, StemmingStrategy strategy, boolean removeStopWords) {
+        StemEvent event = new StemEvent();
+        event.begin();
         List<String> stems = new ArrayList<>();
+        // Memoized for the configured stemmer only (benchmarks pass other strategies)
+        StemCache cache = strategy == stemmer ? stemCache : null;
+        int cacheHits = 0;
+        int cacheMisses = 0;
 
         for (String token : tokens) {
             // Skip stop words
-            if (stopWordsService.isStopWord(token)) {
-                logger.debug("Skipping stop word: {}", token);
+            if (removeStopWords && stopWordsService.isStopWord(token)) {
                 continue;
             }
 
-            try {
-                List<WordStemmerAnalysis> analyses = stemmer.stem(token);
-
-                if (analyses != null && !analyses.isEmpty()
-                        && !analyses.get(0).getListStemmerAnalysis().isEmpty()) {
-                    String stem = analyses.get(0).getListStemmerAnalysis().get(0).getMorpheme();
-                    stems.add(stem);
-                } else {
-                    stems.add(token);
+            String stem = cache != null ? cache.get(token) : null;
+            if (stem == null) {
+                stem = stemToken(strategy, token);
+                if (cache != null) {
+                    cache.put(token, stem);
+                    cacheMisses++;
                 }
-            } catch (Exception e) {
-                logger.warn("Stemming failed for token '{}': {}", token, e.getMessage());
-                stems.add(token);
+            } else {
+                cacheHits++;
             }
+            stems.add(stem);
         }
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.stemmer = strategy.getName();
+            event.tokens = tokens.size();
+            event.stopWords = removeStopWords ? tokens.size() - stems.size() : 0;
+            event.stems = stems.size();
+            event.cacheHits = cacheHits;
+            event.cacheMisses = cacheMisses;
+            event.commit();
+        }
         return stems;
     }
 
+    private String stemToken(StemmingStrategy strategy, String token) {
+        try {
+            return strategy.stem(token);
+        } catch (Exception e) {
+            logger.warn("Stemming failed for token '{}': {}", token, e.getMessage());
+            return token;
+        }
+    }
+
     /**
-     * Complete preprocessing pipeline: tokenize + stem + filter stop words
+     * Complete preprocessing pipeline: normalize + tokenize + stem + filter stop words
      */
     public List<String> preprocess(String text) {
-        logger.debug("Preprocessing text: {}", text.substring(0, Math.min(50, text.length())));
+        // Each step records a JFR event with its sizes and duration
 
-        // Step 1: Tokenization
-        List<String> tokens = tokenize(text);
-        logger.debug("Tokenization: {} tokens", tokens.size());
+        // Step 1: Normalization
+        String normalized = normalize(text);
 
-        // Step 2: Stemming (stop words are filtered here)
-        List<String> stems = stem(tokens);
-        logger.debug("After stemming and stop word removal: {} stems", stems.size());
+        // Step 2: Tokenization
+        List<String> tokens = tokenize(normalized);
+
+        // Step 3: Stemming (stop words are filtered here)
+        return stem(tokens);
+    }
 
+    /**
+     * Preprocess a text read from a stream without holding all of it: chunks
+     * end at a whitespace outside any HTML tag, so no token is split and the
+     * stems are those of {@link #preprocess(String)} on the whole text
+     */
+    public List<String> preprocess(Reader reader) throws IOException {
+        List<String> stems = new ArrayList<>();
+        char[] buffer = new char[STREAM_CHUNK_CHARS];
+        int length = 0;
+        int n;
+        while ((n = reader.read(buffer, length, buffer.length - length)) >= 0) {
+            length += n;
+            if (length < buffer.length) {
+                continue;
+            }
+            int end = chunkEnd(buffer, length);
+            if (end <= 0) {
+                // One token longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                continue;
+            }
+            stems.addAll(preprocess(new String(buffer, 0, end)));
+            System.arraycopy(buffer, end, buffer, 0, length - end);
+            length -= end;
+        }
+        if (length > 0) {
+            stems.addAll(preprocess(new String(buffer, 0, length)));
+        }
         return stems;
     }
 
+    /**
+     * Last whitespace of the buffer that is not inside an unclosed tag, 0 if none
+     */
+    private static int chunkEnd(char[] buffer, int length) {
+        int end = length - 1;
+        while (end > 0 && !Character.isWhitespace(buffer[end])) {
+            end--;
+        }
+        for (int i = end - 1; i >= Math.max(0, end - MAX_TAG_LENGTH); i--) {
+            if (buffer[i] == '>') {
+                break;
+            }
+            if (buffer[i] == '<') {
+                end = i - 1;
+                while (end > 0 && !Character.isWhitespace(buffer[end])) {
+                    end--;
+                }
+                break;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Whether a (normalized) token is filtered as a stop word
+     */
+    public boolean isStopWord(String token) {
+        return stopWordsService.isStopWord(token);
+    }
+
+    /**
+     * Feature ids (stems, word n-grams, character n-grams) of a preprocessed document
+     */
+    public long[] extractFeatures(List<String> stems) {
+        return featureExtractor.extract(stems);
+    }
+
+    /**
+     * Configured feature extractor
+     */
+    public FeatureExtractor getFeatureExtractor() {
+        return featureExtractor;
+    }
+
+    /**
+     * Number of memoized token stems (0 when the cache is disabled)
+     */
+    public int getStemCacheSize() {
+        return stemCache != null ? stemCache.size() : 0;
+    }
+
+    /**
+     * Name of the configured stemming strategy
+     */
+    public String getStemmerName() {
+        return stemmer.getName();
+    }
+
     /**
      * Calculate term frequency
      */
@@ -105,9 +338,56 @@ public class TextPreprocessingService {
      */
     public Map<String, Object> getStats() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("tokenizerType", "SAFAR Tokenizer");
-        stats.put("stemmerType", "ISRI Stemmer");
+        stats.put("tokenizerType", nativeTokenizer != null ? "Native Tokenizer" : "SAFAR Tokenizer");
+        stats.put("stemmerType", stemmer.getName());
+        stats.put("features", featureExtractor.getSpec());
         stats.put("stopWordsCount", stopWordsService.getStopWordsCount());
+        stats.put("normalization", normalizationEnabled);
+        stats.put("stemCache", stemCache != null ? stemCache.getStats() : Map.of("enabled", false));
         return stats;
     }
+
+    /**
+     * Measure the effect of normalization on a corpus: distinct tokens
+     * (i.e. distinct stemmer inputs) with and without normalization, and
+     * normalizer throughput
+     */
+    public Map<String, Object> getNormalizationReport(List<TrainingDocument> documents) {
+        Set<String> rawVocabulary = new HashSet<>();
+        Set<String> normalizedVocabulary = new HashSet<>();
+        long rawTokens = 0;
+        long normalizedTokens = 0;
+        long chars = 0;
+        long normalizationNanos = 0;
+
+        for (TrainingDocument doc : documents) {
+            String content = doc.getContent();
+            chars += content.length();
+
+            long start = System.nanoTime();
+            String normalized = normalizer.normalize(content);
+            normalizationNanos += System.nanoTime() - start;
+
+            List<String> raw = tokenize(content);
+            List<String> clean = tokenize(normalized);
+            rawTokens += raw.size();
+            normalizedTokens += clean.size();
+            rawVocabulary.addAll(raw);
+            normalizedVocabulary.addAll(clean);
+        }
+
+        double seconds = normalizationNanos / 1e9;
+        Map<String, Object> report = new HashMap<>();
+        report.put("documents", documents.size());
+        report.put("characters", chars);
+        report.put("rawTokens", rawTokens);
+        report.put("normalizedTokens", normalizedTokens);
+        report.put("rawVocabularySize", rawVocabulary.size());
+        report.put("normalizedVocabularySize", normalizedVocabulary.size());
+        report.put("vocabularyReduction", rawVocabulary.isEmpty() ? 0.0
+                : 1.0 - (double) normalizedVocabulary.size() / rawVocabulary.size());
+        report.put("normalizationTimeMs", normalizationNanos / 1_000_000.0);
+        report.put("charsPerSecond", seconds > 0 ? chars / seconds : 0.0);
+        return report;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,324 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.AbstractNaiveBayesModel;
+import com.example.naive_bayes_classifier.model.ClassifierModel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Incremental retraining on changes to the training directory.
+ *
+ * When enabled, Data/ is watched for created, modified and deleted .txt
+ * files. Changes are debounced (files are often written in several steps),
+ * then only the affected files are preprocessed: the counts of their old
+ * version are subtracted from a running, unpruned counts model and the
+ * counts of the new version added. A copy of those counts is pruned,
+ * compiled and published as a whole, so readers never see a half-applied
+ * update. Corpus statistics are maintained alongside the counts.
+ *
+ * The initial scan only builds the counts; it publishes a model only if
+ * none is trained yet, so a model trained from the preprocessed corpus or
+ * merged from count shards survives startup. The first change to Data/
+ * does replace it with a model of Data/.
+ *
+ * Near-duplicate removal (training.dedup.enabled) does not apply here: the
+ * MinHash filter cannot forget a document, so a file kept in place of its
+ * duplicates could not be removed again. Watcher-published models count
+ * every file and say so in their deduplication stats.
+ */
+@Service
+public class TrainingDataWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrainingDataWatcher.class);
+
+    private static final String EXTENSION = ".txt";
+
+    @Autowired
+    private NaiveBayesService naiveBayesService;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    @Value("${training.watch.enabled:false}")
+    private boolean enabled;
+
+    // Quiet period after the last file event before changes are applied
+    @Value("${training.watch.debounce-ms:2000}")
+    private long debounceMs;
+
+    // Apply pending changes after this long even if events keep arriving
+    @Value("${training.watch.max-delay-ms:30000}")
+    private long maxDelayMs;
+
+    // Guarded by this
+    private AbstractNaiveBayesModel counts;
+    private final Map<Path, FileState> files = new HashMap<>();
+    private final Map<String, Integer> categoryDocuments = new HashMap<>();
+    private long totalWords;
+    private long updates;
+    private long filesAdded;
+    private long filesChanged;
+    private long filesRemoved;
+    private long lastUpdateMs;
+    private long lastUpdateAt;
+
+    private volatile WatchService watchService;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        if (naiveBayesService.isDeduplicationEnabled()) {
+            logger.warn("training.dedup.enabled does not apply to models published by the training data watcher; "
+                    + "they include near-duplicate files");
+        }
+        running = true;
+        Thread thread = new Thread(this::watch, "training-data-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        WatchService service = watchService;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.debug("Closing watch service failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void watch() {
+        Path directory = trainingService.getDataPath();
+        try {
+            Files.createDirectories(directory);
+            watchService = FileSystems.getDefault().newWatchService();
+            // Registered before the initial scan so that no change slips in between
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            logger.info("Watching {} for training data changes", directory.toAbsolutePath());
+
+            synchronize(listFiles(directory), !naiveBayesService.isTrained());
+
+            Set<Path> pending = new HashSet<>();
+            long pendingSince = 0;
+            while (running) {
+                WatchKey key = pending.isEmpty() ? watchService.take()
+                        : watchService.poll(debounceMs, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    if (pending.isEmpty()) {
+                        pendingSince = System.currentTimeMillis();
+                    }
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            // Events were lost: rescan everything
+                            pending.addAll(listFiles(directory));
+                            synchronized (this) {
+                                pending.addAll(files.keySet());
+                            }
+                        } else {
+                            pending.add(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        logger.warn("Training data directory {} is no longer accessible, watcher stopped", directory);
+                        return;
+                    }
+                }
+                if (!pending.isEmpty()
+                        && (key == null || System.currentTimeMillis() - pendingSince >= maxDelayMs)) {
+                    synchronize(pending, true);
+                    pending.clear();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Shutdown
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Training data watcher stopped: {}", e.getMessage(), e);
+        }
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.toString().endsWith(EXTENSION)).toList();
+        }
+    }
+
+    /**
+     * Bring the counts in line with the current content of the given files
+     * and, if anything changed and {@code publish} is set, publish a new model
+     */
+    synchronized void synchronize(Collection<Path> paths, boolean publish) {
+        long start = System.currentTimeMillis();
+        if (counts == null) {
+            counts = newCountsModel();
+        }
+
+        int added = 0;
+        int changed = 0;
+        int removed = 0;
+        for (Path path : paths) {
+            if (!path.toString().endsWith(EXTENSION)) {
+                continue;
+            }
+            FileState previous = files.get(path);
+            FileState current;
+            try {
+                current = Files.isRegularFile(path) ? read(path, previous) : null;
+            } catch (IOException e) {
+                // Probably still being written; its next event brings it back
+                logger.warn("Could not read training file {}: {}", path, e.getMessage());
+                continue;
+            }
+            if (current == previous) {
+                continue;
+            }
+
+            if (previous != null) {
+                unapply(previous);
+            }
+            if (current != null) {
+                apply(current);
+                files.put(path, current);
+            } else {
+                files.remove(path);
+            }
+
+            if (previous == null && current != null) {
+                added++;
+            } else if (current == null && previous != null) {
+                removed++;
+            } else if (current != null) {
+                changed++;
+            }
+        }
+
+        if (added + changed + removed == 0) {
+            return;
+        }
+        filesAdded += added;
+        filesChanged += changed;
+        filesRemoved += removed;
+
+        if (publish && counts.getTotalDocuments() > 0) {
+            ClassifierModel model = naiveBayesService.newModel();
+            ((AbstractNaiveBayesModel) model).mergeCounts(counts);
+            naiveBayesService.trainFromCounts(model, naiveBayesService.isDeduplicationEnabled()
+                    ? Map.of("enabled", false, "reason", "not applied to incremental updates from the training data watcher")
+                    : null);
+        }
+        updates++;
+        lastUpdateAt = System.currentTimeMillis();
+        lastUpdateMs = lastUpdateAt - start;
+        logger.info("Training data update: {} added, {} changed, {} removed in {} ms{}",
+                added, changed, removed, lastUpdateMs, publish ? "" : " (current model kept)");
+    }
+
+    /**
+     * Current state of a file: the previous state when unchanged, null when
+     * empty (such files are skipped by training as well)
+     */
+    private FileState read(Path path, FileState previous) throws IOException {
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        long size = Files.size(path);
+        if (previous != null && previous.modified == modified && previous.size == size) {
+            return previous;
+        }
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        if (content.trim().isEmpty()) {
+            return null;
+        }
+        String category = path.getFileName().toString().replace(EXTENSION, "");
+        return new FileState(category, preprocessingService.preprocess(content),
+                content.split("\\s+").length, modified, size);
+    }
+
+    private void apply(FileState state) {
+        state.counted = counts.addDocument(state.category, state.stems);
+        categoryDocuments.merge(state.category, 1, Integer::sum);
+        totalWords += state.words;
+    }
+
+    private void unapply(FileState state) {
+        if (state.counted) {
+            counts.removeDocument(state.category, state.stems);
+        }
+        categoryDocuments.computeIfPresent(state.category, (category, count) -> count > 1 ? count - 1 : null);
+        totalWords -= state.words;
+    }
+
+    private AbstractNaiveBayesModel newCountsModel() {
+        ClassifierModel model = naiveBayesService.newModel();
+        if (!(model instanceof AbstractNaiveBayesModel)) {
+            throw new IllegalStateException("Model type does not support incremental training: "
+                    + model.getClass().getSimpleName());
+        }
+        model.setStemmer(preprocessingService.getStemmerName());
+        return (AbstractNaiveBayesModel) model;
+    }
+
+    public boolean isActive() {
+        return enabled && running;
+    }
+
+    /**
+     * Same statistics as {@link TrainingService#getDataStats()}, maintained
+     * incrementally instead of re-reading Data/
+     */
+    public synchronized Map<String, Object> getDataStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalDocuments", files.size());
+        stats.put("categories", new HashMap<>(categoryDocuments));
+        stats.put("averageWordsPerDocument", files.isEmpty() ? 0 : totalWords / files.size());
+
+        Map<String, Object> watch = new HashMap<>();
+        watch.put("updates", updates);
+        watch.put("filesAdded", filesAdded);
+        watch.put("filesChanged", filesChanged);
+        watch.put("filesRemoved", filesRemoved);
+        watch.put("lastUpdateMs", lastUpdateMs);
+        watch.put("lastUpdateAt", lastUpdateAt);
+        stats.put("watch", watch);
+        return stats;
+    }
+
+    private static final class FileState {
+        final String category;
+        final List<String> stems;
+        final int words;
+        final long modified;
+        final long size;
+        boolean counted;
+
+        FileState(String category, List<String> stems, int words, long modified, long size) {
+            this.category = category;
+            this.stems = stems;
+            this.words = words;
+            this.modified = modified;
+            this.size = size;
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.example.naive_bayes_classifier.service;
 
 
 import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.utils.PreprocessedCorpusReader;
+import com.example.naive_bayes_classifier.utils.PreprocessedCorpusWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +14,7 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Service
 public class TrainingService {
@@ -17,6 +22,12 @@ public class TrainingService {
     private static final Logger logger = LoggerFactory.getLogger(TrainingService.class);
     private static final String TRAINING_DATA_PATH = "Data";
 
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    @Value("${training.corpus.path:corpus/training.nbpc}")
+    private String corpusPath;
+
     /**
      * Load all training data from directory
      */
@@ -63,6 +74,40 @@ public class TrainingService {
         return documents;
     }
 
+    /**
+     * Load training data including subdirectories, for a category hierarchy.
+     * Files directly in Data/ keep their name as category; files below a
+     * subdirectory are documents of the category named by its path, e.g.
+     * Data/sport/football/match1.txt belongs to "sport/football".
+     */
+    public List<TrainingDocument> loadHierarchicalTrainingData() throws IOException {
+        Path dataPath = Paths.get(TRAINING_DATA_PATH);
+        List<TrainingDocument> documents = new ArrayList<>();
+        if (!Files.isDirectory(dataPath)) {
+            logger.warn("Training data directory not found: {}", TRAINING_DATA_PATH);
+            return documents;
+        }
+
+        try (Stream<Path> paths = Files.walk(dataPath)) {
+            for (Path path : (Iterable<Path>) paths.sorted()::iterator) {
+                if (!Files.isRegularFile(path) || !path.toString().endsWith(".txt")) {
+                    continue;
+                }
+                String content = Files.readString(path, StandardCharsets.UTF_8);
+                if (content.trim().isEmpty()) {
+                    continue;
+                }
+                Path relative = dataPath.relativize(path);
+                String category = relative.getNameCount() == 1
+                        ? relative.toString().replace(".txt", "")
+                        : relative.getParent().toString().replace(relative.getFileSystem().getSeparator(), "/");
+                documents.add(new TrainingDocument(category, content));
+            }
+        }
+        logger.info("Loaded {} documents from the training data hierarchy", documents.size());
+        return documents;
+    }
+
     /**
      * Split documents into train and test sets
      * @param documents All documents
@@ -88,6 +133,26 @@ public class TrainingService {
         return split;
     }
 
+    /**
+     * Add a training document streamed from a reader, written to Data/
+     * without holding its content in memory
+     */
+    public void addTrainingDocument(String category, Reader content, String filename) throws IOException {
+        Path dataPath = Paths.get(TRAINING_DATA_PATH);
+        Files.createDirectories(dataPath);
+
+        Path filePath = dataPath.resolve(filename);
+        try (Writer writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+            content.transferTo(writer);
+        } catch (IOException e) {
+            // Do not leave a partial document behind (e.g. body over the size limit)
+            Files.deleteIfExists(filePath);
+            throw e;
+        }
+
+        logger.info("Added training document: {} (category: {})", filename, category);
+    }
+
     /**
      * Add a training document
      */
@@ -132,4 +197,94 @@ public class TrainingService {
 
         return stats;
     }
-}
\ No newline at end of file
+
+    /**
+     * Preprocess the training data once and store it as a compact,
+     * dictionary-encoded corpus file
+     */
+    public Map<String, Object> exportPreprocessedCorpus() throws IOException {
+        List<TrainingDocument> documents = loadTrainingData();
+        Path target = getCorpusPath();
+        long start = System.currentTimeMillis();
+
+        PreprocessedCorpusWriter writer = new PreprocessedCorpusWriter(target);
+        try (writer) {
+            Map<String, Object> preprocessingStats = preprocessingService.getStats();
+            writer.putMetadata("tokenizer", String.valueOf(preprocessingStats.get("tokenizerType")));
+            writer.putMetadata("stemmer", String.valueOf(preprocessingStats.get("stemmerType")));
+            writer.putMetadata("createdAt", String.valueOf(System.currentTimeMillis()));
+
+            for (TrainingDocument doc : documents) {
+                writer.write(doc.getCategory(), preprocessingService.preprocess(doc.getContent()));
+            }
+        }
+
+        long sourceBytes = 0;
+        for (TrainingDocument doc : documents) {
+            sourceBytes += doc.getContent().getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("path", target.toString());
+        stats.put("documents", writer.getDocumentCount());
+        stats.put("tokens", writer.getTokenCount());
+        stats.put("dictionarySize", writer.getDictionarySize());
+        stats.put("sourceBytes", sourceBytes);
+        stats.put("corpusBytes", Files.size(target));
+        stats.put("exportTimeMs", System.currentTimeMillis() - start);
+
+        logger.info("Exported preprocessed corpus to {} ({} documents, {} bytes)",
+                target, writer.getDocumentCount(), stats.get("corpusBytes"));
+
+        return stats;
+    }
+
+    /**
+     * Open the preprocessed corpus for streaming or random access.
+     * The caller is responsible for closing the reader.
+     */
+    public PreprocessedCorpusReader openPreprocessedCorpus() throws IOException {
+        Path path = getCorpusPath();
+        if (!Files.exists(path)) {
+            throw new FileNotFoundException("Preprocessed corpus not found: " + path
+                    + " (export it first)");
+        }
+        return PreprocessedCorpusReader.open(path);
+    }
+
+    /**
+     * Split document indices into train and test sets, sorted so that
+     * readers decode each block only once
+     */
+    public Map<String, List<Integer>> splitTrainTestIndices(int documentCount, double testRatio) {
+        List<Integer> indices = new ArrayList<>(documentCount);
+        for (int i = 0; i < documentCount; i++) {
+            indices.add(i);
+        }
+        Collections.shuffle(indices);
+
+        int testSize = (int) (documentCount * testRatio);
+        int trainSize = documentCount - testSize;
+
+        List<Integer> trainIndices = new ArrayList<>(indices.subList(0, trainSize));
+        List<Integer> testIndices = new ArrayList<>(indices.subList(trainSize, documentCount));
+        Collections.sort(trainIndices);
+        Collections.sort(testIndices);
+
+        Map<String, List<Integer>> split = new HashMap<>();
+        split.put("train", trainIndices);
+        split.put("test", testIndices);
+
+        logger.info("Split: {} training, {} test documents", trainSize, testSize);
+
+        return split;
+    }
+
+    public Path getDataPath() {
+        return Paths.get(TRAINING_DATA_PATH);
+    }
+
+    public Path getCorpusPath() {
+        return Paths.get(corpusPath);
+    }
+}
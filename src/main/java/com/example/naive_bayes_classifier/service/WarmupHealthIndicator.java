@@ -0,0 +1,28 @@
+package com.example.naive_bayes_classifier.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "warmup" health contributor, part of the readiness group: out of service
+ * while warm-up runs, up once it has finished, been skipped or failed
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Override
+    public Health health() {
+        WarmupService.State state = warmupService.getState();
+        Health.Builder builder = state == WarmupService.State.RUNNING || state == WarmupService.State.NOT_STARTED
+                ? Health.outOfService()
+                : Health.up();
+        return builder.withDetail("state", state.name())
+                .withDetails(warmupService.getReport())
+                .build();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.utils.PreprocessedCorpusReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Startup warm-up: trains a model if none is loaded, fills the stem cache
+ * and runs synthetic classifications so the JIT has compiled the
+ * normalize / tokenize / stem / score path before real traffic arrives.
+ *
+ * Runs as an ApplicationRunner, i.e. after the web server is up but before
+ * Spring Boot switches the readiness state to ACCEPTING_TRAFFIC, so the
+ * readiness probe keeps the instance out of rotation until warm-up is over.
+ * {@link WarmupHealthIndicator} reports the phase and its timings.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+    public enum State { NOT_STARTED, RUNNING, DONE, SKIPPED, FAILED }
+
+    @Autowired
+    private NaiveBayesService naiveBayesService;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    @Value("${warmup.enabled:false}")
+    private boolean enabled;
+
+    // Train from the preprocessed corpus (or Data/) when no model is loaded
+    @Value("${warmup.train-on-startup:true}")
+    private boolean trainOnStartup;
+
+    // Synthetic classifications to run (sample texts are cycled)
+    @Value("${warmup.iterations:5000}")
+    private int iterations;
+
+    @Value("${warmup.max-duration-ms:60000}")
+    private long maxDurationMs;
+
+    // Sample texts are cut to this length so that one huge file cannot dominate
+    @Value("${warmup.max-document-chars:2000}")
+    private int maxDocumentChars;
+
+    @Value("${warmup.max-samples:500}")
+    private int maxSamples;
+
+    private volatile State state = State.NOT_STARTED;
+    private final Map<String, Object> report = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            state = State.SKIPPED;
+            return;
+        }
+
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        try {
+            if (!naiveBayesService.isTrained() && trainOnStartup) {
+                long trainStart = System.nanoTime();
+                train();
+                report.put("trainingMs", millisSince(trainStart));
+            }
+            if (!naiveBayesService.isTrained()) {
+                logger.warn("Warm-up skipped: no trained model and no training data");
+                report.put("reason", "no trained model");
+                state = State.SKIPPED;
+                return;
+            }
+
+            List<String> samples = sampleTexts();
+            report.put("samples", samples.size());
+            if (samples.isEmpty()) {
+                state = State.SKIPPED;
+                report.put("reason", "no sample texts");
+                return;
+            }
+
+            // Pass 1: every sample once, so their tokens land in the stem cache
+            long cacheStart = System.nanoTime();
+            for (String text : samples) {
+                preprocessingService.preprocess(text);
+            }
+            report.put("stemCacheMs", millisSince(cacheStart));
+            report.put("stemCacheSize", preprocessingService.getStemCacheSize());
+
+            // Pass 2: full classify path (bypassing the result cache and admission control)
+            long classifyStart = System.nanoTime();
+            long deadline = classifyStart + maxDurationMs * 1_000_000L;
+            int done = 0;
+            while (done < iterations && System.nanoTime() < deadline) {
+                String text = samples.get(done % samples.size());
+                naiveBayesService.classifyStems(preprocessingService.preprocess(text));
+                done++;
+            }
+            long classifyNanos = System.nanoTime() - classifyStart;
+            report.put("classifications", done);
+            report.put("classifyMs", classifyNanos / 1_000_000);
+            report.put("classifyDocsPerSecond", classifyNanos > 0 ? done / (classifyNanos / 1e9) : 0.0);
+
+            state = State.DONE;
+        } catch (Exception e) {
+            // A failed warm-up must not keep the instance out of rotation: serve cold
+            logger.error("Warm-up failed, serving without it: {}", e.getMessage(), e);
+            report.put("error", String.valueOf(e.getMessage()));
+            state = State.FAILED;
+        } finally {
+            report.put("durationMs", millisSince(start));
+            logger.info("Warm-up {} in {} ms: {}", state, report.get("durationMs"), report);
+        }
+    }
+
+    private void train() throws Exception {
+        if (Files.exists(trainingService.getCorpusPath())) {
+            try (PreprocessedCorpusReader reader = trainingService.openPreprocessedCorpus()) {
+                naiveBayesService.trainPreprocessed(reader, reader.getMetadata().get("stemmer"));
+            }
+            report.put("trainedFrom", "corpus");
+            return;
+        }
+        List<TrainingDocument> documents = trainingService.loadTrainingData();
+        if (!documents.isEmpty()) {
+            naiveBayesService.train(documents);
+            report.put("trainedFrom", "data");
+        }
+    }
+
+    /**
+     * Training texts when the raw data is available, otherwise synthetic texts
+     * made of the stems of the preprocessed corpus
+     */
+    private List<String> sampleTexts() throws Exception {
+        List<String> samples = new ArrayList<>();
+        List<TrainingDocument> documents = trainingService.loadTrainingData();
+        if (!documents.isEmpty()) {
+            List<TrainingDocument> shuffled = new ArrayList<>(documents);
+            Collections.shuffle(shuffled, new Random(42));
+            for (TrainingDocument doc : shuffled) {
+                if (samples.size() >= maxSamples) {
+                    break;
+                }
+                String content = doc.getContent();
+                samples.add(content.length() > maxDocumentChars ? content.substring(0, maxDocumentChars) : content);
+            }
+            report.put("sampleSource", "data");
+            return samples;
+        }
+
+        if (Files.exists(trainingService.getCorpusPath())) {
+            try (PreprocessedCorpusReader reader = trainingService.openPreprocessedCorpus()) {
+                for (PreprocessedDocument doc : reader) {
+                    if (samples.size() >= maxSamples) {
+                        break;
+                    }
+                    String text = String.join(" ", doc.getStems());
+                    samples.add(text.length() > maxDocumentChars ? text.substring(0, maxDocumentChars) : text);
+                }
+            }
+            report.put("sampleSource", "corpus-vocabulary");
+        }
+        return samples;
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Map<String, Object> getReport() {
+        synchronized (report) {
+            return new LinkedHashMap<>(report);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.naive_bayes_classifier.stemming;
+
+/**
+ * Light10-style stemmer (Larkey et al.): strips a leading waw, one
+ * definite-article prefix and at most one suffix, the first that matches in
+ * list order. Suffixes are written in the normalized alphabet (teh marbuta
+ * as heh, as the default normalization produces); a trailing teh marbuta is
+ * folded the same way so the stemmer behaves identically with normalization
+ * off. No dictionary or pattern lookup, so it is several times cheaper than
+ * the root-based SAFAR stemmers.
+ */
+public class LightStemmingStrategy implements StemmingStrategy {
+
+    private static final String[] PREFIXES = {"وال", "بال", "كال", "فال", "لل", "ال"};
+    private static final String[] SUFFIXES = {"ها", "ان", "ات", "ون", "ين", "يه", "ه", "ي"};
+
+    @Override
+    public String stem(String token) {
+        String word = token;
+
+        if (word.length() > 3 && word.charAt(0) == 'و') {
+            word = word.substring(1);
+        }
+
+        for (String prefix : PREFIXES) {
+            if (word.startsWith(prefix) && word.length() - prefix.length() >= 2) {
+                word = word.substring(prefix.length());
+                break;
+            }
+        }
+
+        if (word.endsWith("ة")) {
+            word = word.substring(0, word.length() - 1) + 'ه';
+        }
+
+        for (String suffix : SUFFIXES) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= 2) {
+                word = word.substring(0, word.length() - suffix.length());
+                break;
+            }
+        }
+
+        return word;
+    }
+
+    @Override
+    public String getName() {
+        return "LIGHT";
+    }
+}
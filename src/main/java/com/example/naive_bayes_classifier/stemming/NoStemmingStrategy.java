@@ -0,0 +1,17 @@
+package com.example.naive_bayes_classifier.stemming;
+
+/**
+ * Uses tokens as they are
+ */
+public class NoStemmingStrategy implements StemmingStrategy {
+
+    @Override
+    public String stem(String token) {
+        return token;
+    }
+
+    @Override
+    public String getName() {
+        return "NONE";
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.naive_bayes_classifier.stemming;
+
+import safar.basic.morphology.stemmer.factory.StemmerFactory;
+import safar.basic.morphology.stemmer.interfaces.IStemmer;
+import safar.basic.morphology.stemmer.model.WordStemmerAnalysis;
+
+import java.util.List;
+
+/**
+ * Any stemmer implementation provided by SAFAR's StemmerFactory
+ * (ISRI_STEMMER, LIGHT10_STEMMER, KHOJA_STEMMER, ...)
+ */
+public class SafarStemmingStrategy implements StemmingStrategy {
+
+    private final IStemmer stemmer;
+    private final String name;
+
+    public SafarStemmingStrategy(String implementation, String name) {
+        IStemmer implementationStemmer;
+        try {
+            implementationStemmer = StemmerFactory.getImplementation(implementation);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot create SAFAR stemmer: " + implementation, e);
+        }
+        if (implementationStemmer == null) {
+            throw new IllegalArgumentException("Unknown SAFAR stemmer: " + implementation);
+        }
+        this.stemmer = implementationStemmer;
+        this.name = name;
+    }
+
+    @Override
+    public String stem(String token) throws Exception {
+        List<WordStemmerAnalysis> analyses = stemmer.stem(token);
+
+        if (analyses != null && !analyses.isEmpty()
+                && !analyses.get(0).getListStemmerAnalysis().isEmpty()) {
+            return analyses.get(0).getListStemmerAnalysis().get(0).getMorpheme();
+        }
+        return token;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
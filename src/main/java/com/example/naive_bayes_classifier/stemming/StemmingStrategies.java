@@ -0,0 +1,34 @@
+package com.example.naive_bayes_classifier.stemming;
+
+import java.util.Locale;
+
+/**
+ * Creates stemming strategies from configuration names
+ */
+public final class StemmingStrategies {
+
+    private StemmingStrategies() {}
+
+    /**
+     * @param name ISRI, LIGHT, NONE, or any SAFAR implementation name
+     *             ending in _STEMMER (e.g. LIGHT10_STEMMER, KHOJA_STEMMER)
+     */
+    public static StemmingStrategy create(String name) {
+        String key = name.trim().toUpperCase(Locale.ROOT);
+        switch (key) {
+            case "ISRI":
+            case "ISRI_STEMMER":
+                return new SafarStemmingStrategy("ISRI_STEMMER", "ISRI");
+            case "LIGHT":
+                return new LightStemmingStrategy();
+            case "NONE":
+                return new NoStemmingStrategy();
+            default:
+                if (key.endsWith("_STEMMER")) {
+                    return new SafarStemmingStrategy(key, key);
+                }
+                throw new IllegalArgumentException("Unknown stemmer: " + name
+                        + " (expected ISRI, LIGHT, NONE or a SAFAR *_STEMMER name)");
+        }
+    }
+}
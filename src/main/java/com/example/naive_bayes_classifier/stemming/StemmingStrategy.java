@@ -0,0 +1,18 @@
+package com.example.naive_bayes_classifier.stemming;
+
+/**
+ * Reduces a single token to the form used as a Naive Bayes feature
+ */
+public interface StemmingStrategy {
+
+    /**
+     * Stem one token
+     * @return the stem, or the token itself if no stem could be found
+     */
+    String stem(String token) throws Exception;
+
+    /**
+     * Name recorded in model metadata (e.g. "ISRI", "LIGHT", "NONE")
+     */
+    String getName();
+}
@@ -0,0 +1,205 @@
+package com.example.naive_bayes_classifier.utils;
+
+/**
+ * Single-pass Arabic text normalizer applied before tokenization.
+ *
+ * Works on a reusable per-thread char buffer and rewrites it in place
+ * (output is never longer than input), so the only allocation per call is
+ * the resulting String. Every rule can be switched off individually.
+ */
+public class ArabicNormalizer {
+
+    // Tashkeel range: fathatan .. sukun, plus superscript alef
+    private static final char FATHATAN = 'ً';
+    private static final char SUKUN = 'ْ';
+    private static final char SUPERSCRIPT_ALEF = 'ٰ';
+    private static final char TATWEEL = 'ـ';
+
+    private static final char ALEF = 'ا';
+    private static final char ALEF_MADDA = 'آ';
+    private static final char ALEF_HAMZA_ABOVE = 'أ';
+    private static final char ALEF_HAMZA_BELOW = 'إ';
+    private static final char ALEF_WASLA = 'ٱ';
+    private static final char ALEF_MAKSURA = 'ى';
+    private static final char YEH = 'ي';
+    private static final char TEH_MARBUTA = 'ة';
+    private static final char HEH = 'ه';
+
+    private static final int MAX_TAG_LENGTH = 256;
+    private static final int MAX_ENTITY_LENGTH = 10;
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[4096]);
+
+    private boolean removeDiacritics = true;
+    private boolean removeTatweel = true;
+    private boolean normalizeAlef = true;
+    private boolean normalizeYeh = true;
+    private boolean normalizeTehMarbuta = true;
+    private boolean removeLatin = true;
+    private boolean stripHtml = true;
+
+    /**
+     * Normalize a text according to the enabled rules.
+     * Characters that are dropped as noise (Latin letters, HTML tags and
+     * entities) are replaced by a space so token boundaries are preserved,
+     * and whitespace runs are collapsed to a single space.
+     */
+    public String normalize(String text) {
+        int length = text.length();
+        char[] buffer = BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+            if (buffer.length <= MAX_RETAINED_BUFFER) {
+                BUFFER.set(buffer);
+            }
+        }
+        text.getChars(0, length, buffer, 0);
+
+        int out = normalize(buffer, length);
+        return new String(buffer, 0, out);
+    }
+
+    /**
+     * Normalize the first {@code length} chars of {@code chars} in place
+     * @return the normalized length
+     */
+    public int normalize(char[] chars, int length) {
+        int out = 0;
+        boolean lastWasSpace = true;
+
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+
+            if (stripHtml) {
+                if (c == '<') {
+                    int end = indexOf(chars, '>', i + 1, Math.min(length, i + MAX_TAG_LENGTH));
+                    if (end > 0) {
+                        i = end;
+                        c = ' ';
+                    }
+                } else if (c == '&') {
+                    int end = indexOf(chars, ';', i + 1, Math.min(length, i + MAX_ENTITY_LENGTH));
+                    if (end > 0 && isEntityBody(chars, i + 1, end)) {
+                        i = end;
+                        c = ' ';
+                    }
+                }
+            }
+
+            if (removeDiacritics && ((c >= FATHATAN && c <= SUKUN) || c == SUPERSCRIPT_ALEF)) {
+                continue;
+            }
+            if (removeTatweel && c == TATWEEL) {
+                continue;
+            }
+            if (normalizeAlef && (c == ALEF_MADDA || c == ALEF_HAMZA_ABOVE
+                    || c == ALEF_HAMZA_BELOW || c == ALEF_WASLA)) {
+                c = ALEF;
+            } else if (normalizeYeh && c == ALEF_MAKSURA) {
+                c = YEH;
+            } else if (normalizeTehMarbuta && c == TEH_MARBUTA) {
+                c = HEH;
+            } else if (removeLatin && ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                c = ' ';
+            }
+
+            if (Character.isWhitespace(c)) {
+                if (lastWasSpace) {
+                    continue;
+                }
+                c = ' ';
+                lastWasSpace = true;
+            } else {
+                lastWasSpace = false;
+            }
+            chars[out++] = c;
+        }
+
+        if (out > 0 && chars[out - 1] == ' ') {
+            out--;
+        }
+        return out;
+    }
+
+    private static int indexOf(char[] chars, char target, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isEntityBody(char[] chars, int from, int to) {
+        if (from == to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9') || c == '#';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Getters and Setters
+    public boolean isRemoveDiacritics() {
+        return removeDiacritics;
+    }
+
+    public void setRemoveDiacritics(boolean removeDiacritics) {
+        this.removeDiacritics = removeDiacritics;
+    }
+
+    public boolean isRemoveTatweel() {
+        return removeTatweel;
+    }
+
+    public void setRemoveTatweel(boolean removeTatweel) {
+        this.removeTatweel = removeTatweel;
+    }
+
+    public boolean isNormalizeAlef() {
+        return normalizeAlef;
+    }
+
+    public void setNormalizeAlef(boolean normalizeAlef) {
+        this.normalizeAlef = normalizeAlef;
+    }
+
+    public boolean isNormalizeYeh() {
+        return normalizeYeh;
+    }
+
+    public void setNormalizeYeh(boolean normalizeYeh) {
+        this.normalizeYeh = normalizeYeh;
+    }
+
+    public boolean isNormalizeTehMarbuta() {
+        return normalizeTehMarbuta;
+    }
+
+    public void setNormalizeTehMarbuta(boolean normalizeTehMarbuta) {
+        this.normalizeTehMarbuta = normalizeTehMarbuta;
+    }
+
+    public boolean isRemoveLatin() {
+        return removeLatin;
+    }
+
+    public void setRemoveLatin(boolean removeLatin) {
+        this.removeLatin = removeLatin;
+    }
+
+    public boolean isStripHtml() {
+        return stripHtml;
+    }
+
+    public void setStripHtml(boolean stripHtml) {
+        this.stripHtml = stripHtml;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.naive_bayes_classifier.utils;
+
+import com.example.naive_bayes_classifier.model.ClassificationResult;
+import com.example.naive_bayes_classifier.model.ClassifierModel;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of classification results for high-volume clients.
+ *
+ * Categories are sent as ids (their index in the model, see the categories
+ * endpoint) instead of names, numbers as varints or little-endian float32:
+ * <pre>
+ * response := modelVersion:varint count:varint (length:varint result)*
+ * result   := predicted:varint confidence:float32
+ *             totalTokens:varint uniqueTokens:varint
+ *             entries:varint (categoryId:varint probability:float32)*
+ * </pre>
+ * Every result is length-prefixed so a client can skip the ones it does not need.
+ */
+@Component
+public class CompactResultEncoder {
+
+    public static final String MEDIA_TYPE = "application/x-nb-compact";
+
+    // name -> id table of the last model seen (rebuilt once per published model)
+    private volatile CategoryIds categoryIds;
+
+    /**
+     * @throws IllegalStateException if a result names a category the model does not have
+     *                               (the results were classified with another model)
+     */
+    public byte[] encode(List<ClassificationResult> results, ClassifierModel model, long modelVersion) {
+        CategoryIds ids = categoryIds(model);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + results.size() * 32);
+        VarIntCodec.writeVarLong(out, modelVersion);
+        VarIntCodec.writeVarInt(out, results.size());
+
+        ByteArrayOutputStream message = new ByteArrayOutputStream(64);
+        for (ClassificationResult result : results) {
+            message.reset();
+            VarIntCodec.writeVarInt(message, ids.of(result.getPredictedCategory()));
+            writeFloat(message, result.getConfidence());
+            VarIntCodec.writeVarInt(message, result.getTotalTokens());
+            VarIntCodec.writeVarInt(message, result.getUniqueTokens());
+
+            Map<String, Double> probabilities = result.getProbabilities();
+            VarIntCodec.writeVarInt(message, probabilities.size());
+            for (Map.Entry<String, Double> entry : probabilities.entrySet()) {
+                VarIntCodec.writeVarInt(message, ids.of(entry.getKey()));
+                writeFloat(message, entry.getValue());
+            }
+
+            VarIntCodec.writeVarInt(out, message.size());
+            out.write(message.toByteArray(), 0, message.size());
+        }
+        return out.toByteArray();
+    }
+
+    private CategoryIds categoryIds(ClassifierModel model) {
+        CategoryIds current = categoryIds;
+        if (current == null || current.model != model) {
+            current = new CategoryIds(model);
+            categoryIds = current;
+        }
+        return current;
+    }
+
+    private static void writeFloat(ByteArrayOutputStream out, double value) {
+        int bits = Float.floatToIntBits((float) value);
+        out.write(bits);
+        out.write(bits >>> 8);
+        out.write(bits >>> 16);
+        out.write(bits >>> 24);
+    }
+
+    private static final class CategoryIds {
+        private final ClassifierModel model;
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        CategoryIds(ClassifierModel model) {
+            this.model = model;
+            for (int c = 0; c < model.getCategoryCount(); c++) {
+                ids.put(model.getCategoryName(c), c);
+            }
+        }
+
+        int of(String category) {
+            Integer id = ids.get(category);
+            if (id == null) {
+                throw new IllegalStateException("Category '" + category + "' is not in the current model");
+            }
+            return id;
+        }
+    }
+}
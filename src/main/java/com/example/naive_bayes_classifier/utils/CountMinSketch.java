@@ -0,0 +1,102 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free count-min sketch over strings, with a small table of heavy
+ * hitter candidates.
+ *
+ * Counts are overestimated by at most e/width of the total with
+ * probability 1 - e^-depth. The sketch alone cannot list its keys, so each
+ * key also competes for the candidate table: it may go into one of two
+ * slots, taking an empty one or else the one whose occupant has the lower
+ * estimate, if its own estimate is higher. Frequent keys therefore end up
+ * in the table; rare ones may be evicted or never enter.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int widthMask;
+    private final AtomicIntegerArray counts;
+    private final AtomicReferenceArray<String> candidates;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param candidateSlots size of the heavy hitter table
+     */
+    public CountMinSketch(int depth, int width, int candidateSlots) {
+        int roundedWidth = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+        this.counts = new AtomicIntegerArray(depth * roundedWidth);
+        this.candidates = new AtomicReferenceArray<>(candidateSlots);
+    }
+
+    public void add(String key) {
+        long hash = FeatureHasher.hash(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.incrementAndGet(index(hash, row)));
+        }
+
+        int first = (int) ((hash >>> 32) % candidates.length());
+        int second = (int) ((hash & 0x7FFFFFFFL) % candidates.length());
+        String firstOccupant = candidates.get(first);
+        String secondOccupant = candidates.get(second);
+        if (key.equals(firstOccupant) || key.equals(secondOccupant)) {
+            return;
+        }
+        if (firstOccupant == null || secondOccupant == null) {
+            int slot = firstOccupant == null ? first : second;
+            candidates.compareAndSet(slot, null, key);
+            return;
+        }
+        int firstEstimate = estimate(firstOccupant);
+        int secondEstimate = estimate(secondOccupant);
+        int slot = firstEstimate <= secondEstimate ? first : second;
+        if (estimate > Math.min(firstEstimate, secondEstimate)) {
+            candidates.compareAndSet(slot, slot == first ? firstOccupant : secondOccupant, key);
+        }
+    }
+
+    public int estimate(String key) {
+        long hash = FeatureHasher.hash(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Keys currently in the candidate table
+     */
+    public List<String> getCandidates() {
+        List<String> keys = new ArrayList<>();
+        for (int slot = 0; slot < candidates.length(); slot++) {
+            String key = candidates.get(slot);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        for (int slot = 0; slot < candidates.length(); slot++) {
+            candidates.set(slot, null);
+        }
+    }
+
+    private int index(long hash, int row) {
+        // Double hashing: row i uses h1 + i * h2
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * (widthMask + 1) + ((h1 + row * h2) & widthMask);
+    }
+}
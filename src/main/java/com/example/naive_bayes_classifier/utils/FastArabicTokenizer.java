@@ -0,0 +1,123 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lightweight tokenizer that scans code points directly.
+ *
+ * A token is a maximal run of letters and digits (Arabic or otherwise);
+ * combining marks stay attached to the token they follow. Punctuation is
+ * either dropped or emitted as single-character tokens. The primary API
+ * fills a reusable {@link Spans} with start/end offsets so callers can
+ * inspect tokens without materializing a String per token.
+ */
+public class FastArabicTokenizer {
+
+    private final boolean emitPunctuation;
+
+    public FastArabicTokenizer() {
+        this(false);
+    }
+
+    public FastArabicTokenizer(boolean emitPunctuation) {
+        this.emitPunctuation = emitPunctuation;
+    }
+
+    /**
+     * Tokenize {@code text} into {@code spans} (cleared first)
+     * @return number of tokens
+     */
+    public int tokenize(CharSequence text, Spans spans) {
+        spans.clear();
+        int length = text.length();
+        int tokenStart = -1;
+        int i = 0;
+
+        while (i < length) {
+            int codePoint = Character.codePointAt(text, i);
+            int next = i + Character.charCount(codePoint);
+
+            if (isWordChar(codePoint)) {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                }
+            } else if (tokenStart >= 0 && isCombiningMark(codePoint)) {
+                // Diacritic inside a word: keep it in the token
+            } else {
+                if (tokenStart >= 0) {
+                    spans.add(tokenStart, i);
+                    tokenStart = -1;
+                }
+                if (emitPunctuation && !Character.isWhitespace(codePoint)
+                        && !Character.isISOControl(codePoint) && !isCombiningMark(codePoint)) {
+                    spans.add(i, next);
+                }
+            }
+            i = next;
+        }
+
+        if (tokenStart >= 0) {
+            spans.add(tokenStart, length);
+        }
+        return spans.size();
+    }
+
+    /**
+     * Convenience variant materializing each token as a String
+     */
+    public List<String> tokenize(String text) {
+        Spans spans = new Spans();
+        int count = tokenize(text, spans);
+        List<String> tokens = new ArrayList<>(count);
+        for (int t = 0; t < count; t++) {
+            tokens.add(text.substring(spans.start(t), spans.end(t)));
+        }
+        return tokens;
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        return Character.isLetterOrDigit(codePoint);
+    }
+
+    private static boolean isCombiningMark(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    /**
+     * Growable start/end offset arrays, reusable across calls
+     */
+    public static class Spans {
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private int size = 0;
+
+        void add(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int start(int index) {
+            return starts[index];
+        }
+
+        public int end(int index) {
+            return ends[index];
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Turns a stem sequence into 64-bit feature ids: unigrams, word n-grams of
+ * consecutive stems and character n-grams of each stem.
+ *
+ * Word n-grams combine the unigram hashes and character n-grams use a
+ * polynomial rolling hash over the stem padded with boundary markers, so no
+ * concatenated String is built for any feature; each call allocates only the
+ * returned long[].
+ *
+ * Configuration specs: "w1" (unigrams only), "w2" (uni + bigrams),
+ * "w3+c3-5" (up to trigrams plus character 3..5-grams).
+ */
+public class FeatureExtractor {
+
+    private static final long WORD_NGRAM_SALT = 0x5BD1E9955BD1E995L;
+    private static final long CHAR_NGRAM_SALT = 0x27D4EB2F165667C5L;
+    private static final long ROLLING_BASE = 0x100000001B3L;
+    private static final char WORD_START = '\u0002';
+    private static final char WORD_END = '\u0003';
+
+    private final int wordNgramMax;
+    private final int charNgramMin;
+    private final int charNgramMax;
+
+    /**
+     * @param wordNgramMax longest word n-gram (1 = unigrams only)
+     * @param charNgramMin shortest character n-gram (0 disables char n-grams)
+     * @param charNgramMax longest character n-gram
+     */
+    public FeatureExtractor(int wordNgramMax, int charNgramMin, int charNgramMax) {
+        if (wordNgramMax < 1 || wordNgramMax > 3) {
+            throw new IllegalArgumentException("Word n-gram size must be 1, 2 or 3");
+        }
+        if (charNgramMin < 0 || charNgramMax < charNgramMin || charNgramMax > 8
+                || (charNgramMin == 0 && charNgramMax != 0)) {
+            throw new IllegalArgumentException("Invalid character n-gram range: " + charNgramMin + "-" + charNgramMax);
+        }
+        this.wordNgramMax = wordNgramMax;
+        this.charNgramMin = charNgramMin;
+        this.charNgramMax = charNgramMax;
+    }
+
+    public static FeatureExtractor unigrams() {
+        return new FeatureExtractor(1, 0, 0);
+    }
+
+    /**
+     * Parse a spec such as "w2" or "w2+c3-5"
+     */
+    public static FeatureExtractor fromSpec(String spec) {
+        int words = 1;
+        int charMin = 0;
+        int charMax = 0;
+        for (String part : spec.trim().toLowerCase().split("\\+")) {
+            part = part.trim();
+            try {
+                if (part.startsWith("w")) {
+                    words = Integer.parseInt(part.substring(1));
+                } else if (part.startsWith("c")) {
+                    String[] range = part.substring(1).split("-");
+                    charMin = Integer.parseInt(range[0]);
+                    charMax = range.length > 1 ? Integer.parseInt(range[1]) : charMin;
+                } else {
+                    throw new IllegalArgumentException("Unknown feature spec part: " + part);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid feature spec: " + spec, e);
+            }
+        }
+        return new FeatureExtractor(words, charMin, charMax);
+    }
+
+    public String getSpec() {
+        return charNgramMin == 0 ? "w" + wordNgramMax
+                : "w" + wordNgramMax + "+c" + charNgramMin + "-" + charNgramMax;
+    }
+
+    public boolean isUnigramOnly() {
+        return wordNgramMax == 1 && charNgramMin == 0;
+    }
+
+    /**
+     * Extract all feature ids of a document
+     */
+    public long[] extract(List<String> stems) {
+        int n = stems.size();
+        int total = n;
+        for (int size = 2; size <= wordNgramMax; size++) {
+            total += Math.max(0, n - size + 1);
+        }
+        if (charNgramMin > 0) {
+            for (String stem : stems) {
+                int padded = stem.length() + 2;
+                for (int size = charNgramMin; size <= charNgramMax; size++) {
+                    total += Math.max(0, padded - size + 1);
+                }
+            }
+        }
+
+        long[] features = new long[total];
+
+        // Unigrams
+        for (int i = 0; i < n; i++) {
+            features[i] = FeatureHasher.hash(stems.get(i));
+        }
+        int out = n;
+
+        // Word n-grams from the unigram hashes
+        for (int size = 2; size <= wordNgramMax; size++) {
+            for (int i = 0; i + size <= n; i++) {
+                long h = features[i];
+                for (int j = 1; j < size; j++) {
+                    h = FeatureHasher.combine(h, features[i + j]);
+                }
+                features[out++] = FeatureHasher.mix(h ^ (WORD_NGRAM_SALT + size));
+            }
+        }
+
+        // Character n-grams with a rolling hash over "\u0002" + stem + "\u0003"
+        if (charNgramMin > 0) {
+            for (String stem : stems) {
+                int padded = stem.length() + 2;
+                for (int size = charNgramMin; size <= charNgramMax && size <= padded; size++) {
+                    long outgoingWeight = 1;
+                    for (int k = 1; k < size; k++) {
+                        outgoingWeight *= ROLLING_BASE;
+                    }
+                    long h = 0;
+                    for (int p = 0; p < padded; p++) {
+                        if (p >= size) {
+                            h -= paddedChar(stem, p - size) * outgoingWeight;
+                        }
+                        h = h * ROLLING_BASE + paddedChar(stem, p);
+                        if (p >= size - 1) {
+                            features[out++] = FeatureHasher.mix(h ^ (CHAR_NGRAM_SALT + size));
+                        }
+                    }
+                }
+            }
+        }
+
+        return features;
+    }
+
+    /**
+     * Positions in {@link #extract}'s output of the features lying entirely
+     * inside the stem window [start, end), so that a window of a document
+     * can be scored from the document's features without extracting again
+     */
+    public int[] windowPositions(List<String> stems, int start, int end) {
+        int n = stems.size();
+        int length = end - start;
+        int total = length;
+        for (int size = 2; size <= wordNgramMax; size++) {
+            total += Math.max(0, length - size + 1);
+        }
+        for (int i = start; i < end && charNgramMin > 0; i++) {
+            total += charNgramCount(stems.get(i));
+        }
+
+        int[] positions = new int[total];
+        int out = 0;
+        for (int i = start; i < end; i++) {
+            positions[out++] = i;
+        }
+        int base = n;
+        for (int size = 2; size <= wordNgramMax; size++) {
+            for (int i = start; i + size <= end; i++) {
+                positions[out++] = base + i;
+            }
+            base += Math.max(0, n - size + 1);
+        }
+        if (charNgramMin > 0) {
+            for (int i = 0; i < end; i++) {
+                int count = charNgramCount(stems.get(i));
+                for (int k = 0; i >= start && k < count; k++) {
+                    positions[out++] = base + k;
+                }
+                base += count;
+            }
+        }
+        return positions;
+    }
+
+    private int charNgramCount(String stem) {
+        int padded = stem.length() + 2;
+        int count = 0;
+        for (int size = charNgramMin; size <= charNgramMax; size++) {
+            count += Math.max(0, padded - size + 1);
+        }
+        return count;
+    }
+
+    /**
+     * Readable name of the feature at a position of {@link #extract}'s output:
+     * the stem, stems joined by spaces, or a character n-gram with "<" and
+     * ">" marking word boundaries
+     */
+    public String label(List<String> stems, int position) {
+        int n = stems.size();
+        if (position < n) {
+            return stems.get(position);
+        }
+        int offset = position - n;
+        for (int size = 2; size <= wordNgramMax; size++) {
+            int count = Math.max(0, n - size + 1);
+            if (offset < count) {
+                return String.join(" ", stems.subList(offset, offset + size));
+            }
+            offset -= count;
+        }
+        if (charNgramMin > 0) {
+            for (String stem : stems) {
+                String padded = "<" + stem + ">";
+                for (int size = charNgramMin; size <= charNgramMax && size <= padded.length(); size++) {
+                    int count = padded.length() - size + 1;
+                    if (offset < count) {
+                        return padded.substring(offset, offset + size);
+                    }
+                    offset -= count;
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException("No feature at position " + position);
+    }
+
+    private static char paddedChar(String stem, int position) {
+        if (position == 0) {
+            return WORD_START;
+        }
+        if (position == stem.length() + 1) {
+            return WORD_END;
+        }
+        return stem.charAt(position - 1);
+    }
+
+    public int getWordNgramMax() {
+        return wordNgramMax;
+    }
+
+    public int getCharNgramMin() {
+        return charNgramMin;
+    }
+
+    public int getCharNgramMax() {
+        return charNgramMax;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FeatureExtractor)) return false;
+        FeatureExtractor that = (FeatureExtractor) o;
+        return wordNgramMax == that.wordNgramMax
+                && charNgramMin == that.charNgramMin
+                && charNgramMax == that.charNgramMax;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(wordNgramMax, charNgramMin, charNgramMax);
+    }
+
+    @Override
+    public String toString() {
+        return getSpec();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.naive_bayes_classifier.utils;
+
+/**
+ * 64-bit hashing helpers for feature hashing.
+ *
+ * Strings are hashed char by char and finished with the MurmurHash3
+ * 64-bit finalizer; n-grams are hashed by combining the hashes of their
+ * parts, so no concatenated String is ever built.
+ */
+public final class FeatureHasher {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER = 0xC6A4A7935BD1E995L;
+
+    private FeatureHasher() {}
+
+    public static long hash(CharSequence value) {
+        return hash(value, 0, value.length());
+    }
+
+    public static long hash(CharSequence value, int start, int end) {
+        long h = SEED ^ (end - start);
+        for (int i = start; i < end; i++) {
+            h = (h ^ value.charAt(i)) * MULTIPLIER;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Order-sensitive combination of two feature hashes (n-gram of parts)
+     */
+    public static long combine(long left, long right) {
+        return mix(left * MULTIPLIER + Long.rotateLeft(right, 31));
+    }
+
+    /**
+     * Bucket index in a table of 2^bits entries (uses the high bits)
+     */
+    public static int bucket(long hash, int bits) {
+        return (int) (hash >>> (64 - bits));
+    }
+
+    /**
+     * MurmurHash3 fmix64
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream that fails as soon as more than a fixed number of bytes has been
+ * read, so size limits hold while streaming instead of after buffering
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private final String what;
+    private long count;
+
+    /**
+     * @param what name of the limited quantity, used in the error message
+     */
+    public LimitedInputStream(InputStream in, long limit, String what) {
+        super(in);
+        this.limit = limit;
+        this.what = what;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) throws PayloadTooLargeException {
+        count += n;
+        if (count > limit) {
+            throw new PayloadTooLargeException(what + " exceeds the limit of " + limit + " bytes");
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Thrown while reading once a limit is exceeded (mapped to HTTP 413)
+     */
+    public static class PayloadTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public PayloadTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,87 +1,333 @@
 package com.example.naive_bayes_classifier.utils;
 
 
+import com.example.naive_bayes_classifier.model.ClassificationResult;
 import com.example.naive_bayes_classifier.model.EvaluationMetrics;
+import com.example.naive_bayes_classifier.model.ClassifierModel;
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
 import com.example.naive_bayes_classifier.model.TrainingDocument;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
 import com.example.naive_bayes_classifier.service.NaiveBayesService;
+import com.example.naive_bayes_classifier.service.TextPreprocessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Component
 public class MetricsCalculator {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricsCalculator.class);
 
+    /** Probabilities are clipped to this before taking the log for log-loss */
+    private static final double LOG_LOSS_EPSILON = 1e-15;
+
+    @Autowired
+    private TextPreprocessingService preprocessingService;
+
+    @Value("${evaluation.threads:0}")
+    private int evaluationThreads;
+
+    @Value("${evaluation.batch-size:256}")
+    private int batchSize;
+
     /**
      * Evaluate model on test set
      */
-    public EvaluationMetrics evaluate(NaiveBayesService model, List<TrainingDocument> testSet) {
-        logger.info("Evaluating model on {} test documents", testSet.size());
+    public EvaluationMetrics evaluate(NaiveBayesService model, Iterable<TrainingDocument> testSet) {
+        return evaluate(model, testSet, null);
+    }
 
-        EvaluationMetrics metrics = new EvaluationMetrics();
+    /**
+     * Evaluate model on test set with a specific Naive Bayes variant (null = default).
+     * Documents are preprocessed and scored directly, bypassing the result cache.
+     */
+    public EvaluationMetrics evaluate(NaiveBayesService model, Iterable<TrainingDocument> testSet, String scorer) {
+        NaiveBayesScorer resolved = model.resolveScorer(scorer);
+        return evaluateParallel(testSet, TrainingDocument::getCategory,
+                doc -> model.classifyStems(preprocessingService.preprocess(doc.getContent()), resolved, 0),
+                model.getModel().getCategories());
+    }
+
+    /**
+     * Evaluate model on a stream of preprocessed documents (no re-stemming)
+     */
+    public EvaluationMetrics evaluatePreprocessed(NaiveBayesService model,
+                                                 Iterable<PreprocessedDocument> testSet) {
+        return evaluatePreprocessed(model, testSet, null);
+    }
+
+    /**
+     * Evaluate the published model with a specific Naive Bayes variant (null = default)
+     */
+    public EvaluationMetrics evaluatePreprocessed(NaiveBayesService model,
+                                                 Iterable<PreprocessedDocument> testSet,
+                                                 String scorer) {
+        NaiveBayesScorer resolved = model.resolveScorer(scorer);
+        return evaluateParallel(testSet, PreprocessedDocument::getCategory,
+                doc -> model.classifyStems(doc.getStems(), resolved, 0), model.getModel().getCategories());
+    }
+
+    /**
+     * Evaluate a standalone model (not the published one) on preprocessed documents
+     */
+    public EvaluationMetrics evaluatePreprocessed(ClassifierModel model,
+                                                 Iterable<PreprocessedDocument> testSet) {
+        return evaluatePreprocessed(model, testSet, model.getDefaultScorer());
+    }
+
+    /**
+     * Evaluate a standalone model with a specific Naive Bayes variant
+     */
+    public EvaluationMetrics evaluatePreprocessed(ClassifierModel model,
+                                                 Iterable<PreprocessedDocument> testSet,
+                                                 NaiveBayesScorer scorer) {
+        return evaluateParallel(testSet, PreprocessedDocument::getCategory,
+                doc -> toResult(model.logProbabilities(doc.getStems(), scorer)), model.getCategories());
+    }
 
-        // Get all categories
-        Set<String> categories = new LinkedHashSet<>();
-        for (TrainingDocument doc : testSet) {
-            categories.add(doc.getCategory());
+    /**
+     * Softmax of log scores into a result (same normalization as the service)
+     */
+    private static ClassificationResult toResult(Map<String, Double> logProbabilities) {
+        double max = Double.NEGATIVE_INFINITY;
+        String best = null;
+        for (Map.Entry<String, Double> entry : logProbabilities.entrySet()) {
+            if (best == null || entry.getValue() > max) {
+                best = entry.getKey();
+                max = entry.getValue();
+            }
         }
 
-        // Create category to index mapping
-        Map<String, Integer> categoryIndices = new HashMap<>();
-        int index = 0;
-        for (String category : categories) {
-            categoryIndices.put(category, index++);
+        Map<String, Double> probabilities = new HashMap<>();
+        double sum = 0.0;
+        for (Map.Entry<String, Double> entry : logProbabilities.entrySet()) {
+            double exp = Math.exp(entry.getValue() - max);
+            probabilities.put(entry.getKey(), exp);
+            sum += exp;
+        }
+        for (Map.Entry<String, Double> entry : probabilities.entrySet()) {
+            entry.setValue(entry.getValue() / sum);
         }
-        metrics.setCategoryIndices(categoryIndices);
 
-        // Initialize confusion matrix
-        int numCategories = categories.size();
-        int[][] confusionMatrix = new int[numCategories][numCategories];
+        return new ClassificationResult(best, probabilities, best == null ? 0.0 : probabilities.get(best));
+    }
 
-        // Classify each test document
-        int correct = 0;
-        for (TrainingDocument doc : testSet) {
-            String actual = doc.getCategory();
-            String predicted = model.classify(doc.getContent()).getPredictedCategory();
+    /**
+     * Classify the test set on a worker pool. The calling thread streams the input
+     * in batches (at most two per worker in flight), each batch is scored into its
+     * own confusion-matrix shard, and shards are merged as they complete.
+     */
+    private <T> EvaluationMetrics evaluateParallel(Iterable<T> testSet,
+                                                   Function<T, String> label,
+                                                   Function<T, ClassificationResult> classifier,
+                                                   Collection<String> knownCategories) {
+        long start = System.nanoTime();
+        int threads = evaluationThreads > 0 ? evaluationThreads : Runtime.getRuntime().availableProcessors();
+        int batch = Math.max(1, batchSize);
+
+        CategoryIndex index = new CategoryIndex(knownCategories);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "evaluation-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Shard> completion = new ExecutorCompletionService<>(executor);
+
+        Shard total = new Shard();
+        int inFlight = 0;
+        try {
+            Iterator<T> documents = testSet.iterator();
+            while (documents.hasNext()) {
+                List<T> chunk = new ArrayList<>(batch);
+                while (chunk.size() < batch && documents.hasNext()) {
+                    chunk.add(documents.next());
+                }
+                completion.submit(() -> score(chunk, label, classifier, index));
+                inFlight++;
+
+                if (inFlight >= threads * 2) {
+                    total.merge(take(completion));
+                    inFlight--;
+                }
+            }
+            while (inFlight > 0) {
+                total.merge(take(completion));
+                inFlight--;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("Evaluated model on {} test documents with {} threads in {} ms",
+                total.documents, threads, (System.nanoTime() - start) / 1_000_000);
+
+        return computeMetrics(total, index);
+    }
+
+    private static Shard take(CompletionService<Shard> completion) {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static <T> Shard score(List<T> chunk,
+                                   Function<T, String> label,
+                                   Function<T, ClassificationResult> classifier,
+                                   CategoryIndex index) {
+        Shard shard = new Shard();
+        for (T doc : chunk) {
+            String actual = label.apply(doc);
+            ClassificationResult result = classifier.apply(doc);
+            String predicted = result.getPredictedCategory();
+
+            Double probability = result.getProbabilities() == null ? null : result.getProbabilities().get(actual);
+            double p = probability == null ? 0.0 : probability;
+            shard.logLoss -= Math.log(Math.max(p, LOG_LOSS_EPSILON));
 
             if (actual.equals(predicted)) {
-                correct++;
+                shard.correct++;
+            }
+            shard.add(index.indexOf(actual), index.indexOf(predicted));
+        }
+        return shard;
+    }
+
+    /**
+     * Category -> matrix index shared by all workers. Predicted categories that
+     * never occur as labels get their own row/column instead of failing the run.
+     */
+    private static final class CategoryIndex {
+        private final Map<String, Integer> indices = new ConcurrentHashMap<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        CategoryIndex(Collection<String> knownCategories) {
+            for (String category : knownCategories) {
+                indexOf(category);
             }
+        }
 
-            // Update confusion matrix
-            int actualIdx = categoryIndices.get(actual);
-            int predictedIdx = categoryIndices.get(predicted);
-            confusionMatrix[actualIdx][predictedIdx]++;
+        int indexOf(String category) {
+            return indices.computeIfAbsent(category == null ? "" : category, key -> next.getAndIncrement());
+        }
+
+        int size() {
+            return next.get();
+        }
+    }
+
+    /**
+     * Partial confusion matrix of one batch; grows as new categories show up
+     */
+    private static final class Shard {
+        private int[][] counts = new int[0][0];
+        private long documents;
+        private long correct;
+        private double logLoss;
+
+        void add(int actual, int predicted) {
+            ensureCapacity(Math.max(actual, predicted) + 1);
+            counts[actual][predicted]++;
+            documents++;
+        }
+
+        void merge(Shard other) {
+            ensureCapacity(other.counts.length);
+            for (int i = 0; i < other.counts.length; i++) {
+                for (int j = 0; j < other.counts.length; j++) {
+                    counts[i][j] += other.counts[i][j];
+                }
+            }
+            documents += other.documents;
+            correct += other.correct;
+            logLoss += other.logLoss;
         }
 
-        // Calculate accuracy
-        double accuracy = (double) correct / testSet.size();
+        private void ensureCapacity(int size) {
+            if (size <= counts.length) {
+                return;
+            }
+            int[][] grown = new int[size][size];
+            for (int i = 0; i < counts.length; i++) {
+                System.arraycopy(counts[i], 0, grown[i], 0, counts.length);
+            }
+            counts = grown;
+        }
+    }
+
+    /**
+     * Build the final confusion matrix (categories sorted by name, so the layout
+     * does not depend on worker scheduling) and per-category metrics
+     */
+    private EvaluationMetrics computeMetrics(Shard total, CategoryIndex index) {
+        EvaluationMetrics metrics = new EvaluationMetrics();
+
+        List<String> categories = new ArrayList<>(index.indices.keySet());
+        Collections.sort(categories);
+
+        Map<String, Integer> categoryIndices = new LinkedHashMap<>();
+        for (int i = 0; i < categories.size(); i++) {
+            categoryIndices.put(categories.get(i), i);
+        }
+        metrics.setCategoryIndices(categoryIndices);
+
+        // Remap shard indices (first-seen order) to the sorted layout
+        int numCategories = categories.size();
+        int[] remap = new int[index.size()];
+        for (Map.Entry<String, Integer> entry : index.indices.entrySet()) {
+            remap[entry.getValue()] = categoryIndices.get(entry.getKey());
+        }
+        int[][] confusionMatrix = new int[numCategories][numCategories];
+        for (int i = 0; i < total.counts.length; i++) {
+            for (int j = 0; j < total.counts.length; j++) {
+                confusionMatrix[remap[i]][remap[j]] += total.counts[i][j];
+            }
+        }
+
+        double accuracy = total.documents > 0 ? (double) total.correct / total.documents : 0.0;
         metrics.setAccuracy(accuracy);
         metrics.setConfusionMatrix(confusionMatrix);
+        metrics.setDocumentCount(total.documents);
+        metrics.setLogLoss(total.documents > 0 ? total.logLoss / total.documents : 0.0);
 
-        // Calculate precision, recall, F1 for each category
+        // Calculate precision, recall, F1 and support for each category
+        long sumTp = 0, sumFp = 0, sumFn = 0;
         for (String category : categories) {
             int idx = categoryIndices.get(category);
 
             // True Positives
             int tp = confusionMatrix[idx][idx];
 
-            // False Positives (column sum - TP)
+            // False Positives (column sum - TP) and False Negatives (row sum - TP)
             int fp = 0;
+            int fn = 0;
             for (int i = 0; i < numCategories; i++) {
-                if (i != idx) fp += confusionMatrix[i][idx];
+                if (i != idx) {
+                    fp += confusionMatrix[i][idx];
+                    fn += confusionMatrix[idx][i];
+                }
             }
+            sumTp += tp;
+            sumFp += fp;
+            sumFn += fn;
 
-            // False Negatives (row sum - TP)
-            int fn = 0;
-            for (int j = 0; j < numCategories; j++) {
-                if (j != idx) fn += confusionMatrix[idx][j];
+            int support = tp + fn;
+            if (support == 0 && fp == 0) {
+                // Known to the model but absent from this test set
+                continue;
             }
 
-            // Calculate metrics
             double precision = (tp + fp > 0) ? (double) tp / (tp + fp) : 0.0;
             double recall = (tp + fn > 0) ? (double) tp / (tp + fn) : 0.0;
             double f1 = (precision + recall > 0) ?
@@ -90,13 +336,24 @@ public class MetricsCalculator {
             metrics.getPrecision().put(category, precision);
             metrics.getRecall().put(category, recall);
             metrics.getF1Score().put(category, f1);
+            metrics.getSupport().put(category, support);
 
-            logger.info("Category '{}': P={:.3f}, R={:.3f}, F1={:.3f}",
-                    category, precision, recall, f1);
+            logger.info("Category '{}': P={}, R={}, F1={}, support={}",
+                    category, String.format("%.3f", precision), String.format("%.3f", recall),
+                    String.format("%.3f", f1), support);
         }
 
-        logger.info("Overall Accuracy: {:.2f}%", accuracy * 100);
+        double microPrecision = (sumTp + sumFp > 0) ? (double) sumTp / (sumTp + sumFp) : 0.0;
+        double microRecall = (sumTp + sumFn > 0) ? (double) sumTp / (sumTp + sumFn) : 0.0;
+        metrics.setMicroAverages(Map.of(
+                "precision", microPrecision,
+                "recall", microRecall,
+                "f1Score", (microPrecision + microRecall > 0)
+                        ? 2 * microPrecision * microRecall / (microPrecision + microRecall) : 0.0));
+
+        logger.info("Overall Accuracy: {}%, log-loss: {}",
+                String.format("%.2f", accuracy * 100), String.format("%.4f", metrics.getLogLoss()));
 
         return metrics;
     }
-}
\ No newline at end of file
+}
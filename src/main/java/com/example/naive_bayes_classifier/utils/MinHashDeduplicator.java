@@ -0,0 +1,151 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.util.*;
+
+/**
+ * Streaming near-duplicate filter for training documents.
+ *
+ * Each document is reduced to a MinHash signature over its stem shingles
+ * (k consecutive stems). The signature is cut into bands; documents sharing
+ * any band are candidates, and a candidate is a duplicate when the
+ * fraction of equal signature slots (the Jaccard estimate) reaches the
+ * threshold. Only documents that were kept are indexed, so every check
+ * costs O(bands) lookups plus the verification of a few candidates.
+ *
+ * With b bands of r rows, a pair of Jaccard similarity s becomes a
+ * candidate with probability 1 - (1 - s^r)^b; with 32 bands of 4 rows
+ * practically every 0.8-similar pair is a candidate, and only 23% of
+ * 0.3-similar pairs (which the verification then rejects).
+ */
+public class MinHashDeduplicator {
+
+    private final int shingleSize;
+    private final int bands;
+    private final int rows;
+    private final double threshold;
+    private final long[] seeds;
+
+    private final List<int[]> signatures = new ArrayList<>();
+    private final List<String> categories = new ArrayList<>();
+    private final List<Map<Long, Integer>> bandBuckets = new ArrayList<>();
+
+    private int checked = 0;
+    private int duplicates = 0;
+    private int crossCategoryDuplicates = 0;
+    private long candidatePairs = 0;
+
+    /**
+     * @param numHashes signature length, a multiple of bands
+     * @param threshold estimated Jaccard similarity from which a document is a duplicate
+     */
+    public MinHashDeduplicator(int shingleSize, int numHashes, int bands, double threshold) {
+        if (shingleSize < 1 || bands < 1 || numHashes < bands || numHashes % bands != 0) {
+            throw new IllegalArgumentException("Invalid MinHash settings: shingles " + shingleSize
+                    + ", hashes " + numHashes + ", bands " + bands);
+        }
+        this.shingleSize = shingleSize;
+        this.bands = bands;
+        this.rows = numHashes / bands;
+        this.threshold = threshold;
+        this.seeds = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            seeds[i] = FeatureHasher.mix(0x9E3779B97F4A7C15L * (i + 1));
+        }
+        for (int band = 0; band < bands; band++) {
+            bandBuckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Whether the document nearly duplicates one seen before; if not, it is
+     * remembered for the following checks
+     */
+    public boolean isDuplicate(String category, List<String> stems) {
+        checked++;
+        int[] signature = signature(stems);
+        long[] bandKeys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int r = band * rows; r < (band + 1) * rows; r++) {
+                key = FeatureHasher.combine(key, signature[r]);
+            }
+            bandKeys[band] = key;
+
+            Integer candidate = bandBuckets.get(band).get(key);
+            if (candidate != null) {
+                candidatePairs++;
+                if (similarity(signature, signatures.get(candidate)) >= threshold) {
+                    duplicates++;
+                    if (!categories.get(candidate).equals(category)) {
+                        crossCategoryDuplicates++;
+                    }
+                    return true;
+                }
+            }
+        }
+
+        int index = signatures.size();
+        signatures.add(signature);
+        categories.add(category);
+        for (int band = 0; band < bands; band++) {
+            bandBuckets.get(band).putIfAbsent(bandKeys[band], index);
+        }
+        return false;
+    }
+
+    private int[] signature(List<String> stems) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        long[] stemHashes = new long[stems.size()];
+        for (int i = 0; i < stemHashes.length; i++) {
+            stemHashes[i] = FeatureHasher.hash(stems.get(i));
+        }
+        // Documents shorter than one shingle are a single shingle
+        int shingles = Math.max(1, stemHashes.length - shingleSize + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = stemHashes.length == 0 ? 0L : stemHashes[start];
+            for (int j = start + 1; j < Math.min(start + shingleSize, stemHashes.length); j++) {
+                shingle = FeatureHasher.combine(shingle, stemHashes[j]);
+            }
+            for (int i = 0; i < seeds.length; i++) {
+                int h = (int) (FeatureHasher.mix(shingle ^ seeds[i]) >>> 33);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    public int getChecked() {
+        return checked;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("documentsChecked", checked);
+        stats.put("duplicatesRemoved", duplicates);
+        stats.put("crossCategoryDuplicates", crossCategoryDuplicates);
+        stats.put("candidatePairs", candidatePairs);
+        stats.put("shingleSize", shingleSize);
+        stats.put("bands", bands);
+        stats.put("rowsPerBand", rows);
+        stats.put("threshold", threshold);
+        return stats;
+    }
+}
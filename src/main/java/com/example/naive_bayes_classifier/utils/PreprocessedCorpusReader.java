@@ -0,0 +1,265 @@
+package com.example.naive_bayes_classifier.utils;
+
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads corpora written by {@link PreprocessedCorpusWriter}.
+ *
+ * Only the footer and the dictionaries are loaded when the file is opened;
+ * blocks are decompressed on demand, either sequentially through
+ * {@link #iterator()} or by document index through {@link #readDocument(int)}.
+ * Decoded stems are the dictionary's own String instances, so streaming a
+ * corpus into the counting step does not allocate new strings.
+ */
+public class PreprocessedCorpusReader implements Iterable<PreprocessedDocument>, Closeable {
+
+    private final FileChannel channel;
+    private final long[] blockOffsets;
+    private final int[] blockFirstDocument;
+    private final int totalDocuments;
+    private final long totalTokens;
+    private final String[] stems;
+    private final String[] categories;
+    private final Map<String, String> metadata = new LinkedHashMap<>();
+
+    // Last block decoded by readDocument, reused for neighbouring indices
+    private int cachedBlockIndex = -1;
+    private List<PreprocessedDocument> cachedBlock;
+
+    private PreprocessedCorpusReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        // Header
+        byte[] header = readBytes(0, PreprocessedCorpusWriter.MAGIC.length + 1);
+        if (!Arrays.equals(Arrays.copyOf(header, 4), PreprocessedCorpusWriter.MAGIC)) {
+            throw new IOException("Not a preprocessed corpus file (bad magic)");
+        }
+        if (header[4] != PreprocessedCorpusWriter.VERSION) {
+            throw new IOException("Unsupported corpus format version: " + header[4]);
+        }
+
+        // Trailer: [footerLength:int]["NBPC"]
+        long size = channel.size();
+        ByteBuffer trailer = ByteBuffer.wrap(readBytes(size - 8, 8));
+        int footerLength = trailer.getInt();
+        byte[] trailerMagic = new byte[4];
+        trailer.get(trailerMagic);
+        if (!Arrays.equals(trailerMagic, PreprocessedCorpusWriter.MAGIC)) {
+            throw new IOException("Corrupted corpus file (missing trailer)");
+        }
+
+        // Footer index
+        VarIntCodec.Reader footer = new VarIntCodec.Reader(readBytes(size - 8 - footerLength, footerLength));
+        int blockCount = footer.readVarInt();
+        blockOffsets = new long[blockCount];
+        blockFirstDocument = new int[blockCount + 1];
+        for (int i = 0; i < blockCount; i++) {
+            blockOffsets[i] = footer.readVarLong();
+            blockFirstDocument[i + 1] = blockFirstDocument[i] + footer.readVarInt();
+        }
+        long dictionaryOffset = footer.readVarLong();
+        totalDocuments = footer.readVarInt();
+        totalTokens = footer.readVarLong();
+
+        // Dictionaries
+        VarIntCodec.Reader dictionary = new VarIntCodec.Reader(readCompressed(dictionaryOffset));
+        stems = new String[dictionary.readVarInt()];
+        for (int i = 0; i < stems.length; i++) {
+            stems[i] = dictionary.readString();
+        }
+        categories = new String[dictionary.readVarInt()];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = dictionary.readString();
+        }
+        int metadataCount = dictionary.readVarInt();
+        for (int i = 0; i < metadataCount; i++) {
+            metadata.put(dictionary.readString(), dictionary.readString());
+        }
+    }
+
+    /**
+     * Open a corpus file for reading
+     */
+    public static PreprocessedCorpusReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PreprocessedCorpusReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private byte[] readBytes(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, offset + buffer.position());
+            if (n < 0) {
+                throw new EOFException("Unexpected end of corpus file");
+            }
+        }
+        return buffer.array();
+    }
+
+    private byte[] readCompressed(long offset) throws IOException {
+        ByteBuffer lengths = ByteBuffer.wrap(readBytes(offset, 8));
+        int rawLength = lengths.getInt();
+        int compressedLength = lengths.getInt();
+        byte[] compressed = readBytes(offset + 8, compressedLength);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Corrupted corpus block at offset " + offset);
+                }
+                read += n;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted corpus block at offset " + offset, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Decode one block into documents
+     */
+    private List<PreprocessedDocument> readBlock(int blockIndex) throws IOException {
+        VarIntCodec.Reader block = new VarIntCodec.Reader(readCompressed(blockOffsets[blockIndex]));
+        int docCount = block.readVarInt();
+
+        int[] categoryColumn = new int[docCount];
+        for (int i = 0; i < docCount; i++) {
+            categoryColumn[i] = block.readVarInt();
+        }
+        int[] lengthColumn = new int[docCount];
+        for (int i = 0; i < docCount; i++) {
+            lengthColumn[i] = block.readVarInt();
+        }
+
+        List<PreprocessedDocument> documents = new ArrayList<>(docCount);
+        for (int i = 0; i < docCount; i++) {
+            String[] documentStems = new String[lengthColumn[i]];
+            for (int j = 0; j < documentStems.length; j++) {
+                documentStems[j] = stems[block.readVarInt()];
+            }
+            documents.add(new PreprocessedDocument(categories[categoryColumn[i]], Arrays.asList(documentStems)));
+        }
+        return documents;
+    }
+
+    /**
+     * Random access to a single document via the footer index
+     */
+    public synchronized PreprocessedDocument readDocument(int index) throws IOException {
+        if (index < 0 || index >= totalDocuments) {
+            throw new IndexOutOfBoundsException("Document index " + index + " out of range [0, " + totalDocuments + ")");
+        }
+        int blockIndex = Arrays.binarySearch(blockFirstDocument, 0, blockOffsets.length, index);
+        if (blockIndex < 0) {
+            blockIndex = -blockIndex - 2;
+        }
+        if (blockIndex != cachedBlockIndex) {
+            cachedBlock = readBlock(blockIndex);
+            cachedBlockIndex = blockIndex;
+        }
+        return cachedBlock.get(index - blockFirstDocument[blockIndex]);
+    }
+
+    /**
+     * Documents at the given indices, decoded lazily in the given order
+     */
+    public Iterable<PreprocessedDocument> documents(List<Integer> indices) {
+        return () -> new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < indices.size();
+            }
+
+            @Override
+            public PreprocessedDocument next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return readDocument(indices.get(next++));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Stream every document, one block in memory at a time
+     */
+    @Override
+    public Iterator<PreprocessedDocument> iterator() {
+        return new Iterator<>() {
+            private int blockIndex = 0;
+            private Iterator<PreprocessedDocument> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && blockIndex < blockOffsets.length) {
+                    try {
+                        current = readBlock(blockIndex++).iterator();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public PreprocessedDocument next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    public int getDocumentCount() {
+        return totalDocuments;
+    }
+
+    public long getTokenCount() {
+        return totalTokens;
+    }
+
+    public int getDictionarySize() {
+        return stems.length;
+    }
+
+    public List<String> getCategories() {
+        return Collections.unmodifiableList(Arrays.asList(categories));
+    }
+
+    public Map<String, String> getMetadata() {
+        return Collections.unmodifiableMap(metadata);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * Writes preprocessed documents in the compact columnar corpus format.
+ *
+ * Layout:
+ *   header  : "NBPC" + version byte
+ *   blocks  : [rawLength:int][compressedLength:int][deflate(categories | lengths | stem ids)]
+ *   dict    : [rawLength:int][compressedLength:int][deflate(stems, categories, metadata)]
+ *   footer  : block offsets and document counts, dictionary offset, totals (varints)
+ *   trailer : [footerLength:int] + "NBPC"
+ *
+ * Stems and categories are dictionary-encoded in order of first appearance,
+ * every column is stored as varints, and each block is deflate-compressed.
+ */
+public class PreprocessedCorpusWriter implements Closeable {
+
+    static final byte[] MAGIC = {'N', 'B', 'P', 'C'};
+    static final int VERSION = 1;
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    private final DataOutputStream out;
+    private final int blockSize;
+    private long position;
+
+    private final Map<String, Integer> stemIds = new HashMap<>();
+    private final List<String> stems = new ArrayList<>();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, String> metadata = new LinkedHashMap<>();
+
+    // Current block columns
+    private final List<Integer> blockCategories = new ArrayList<>();
+    private final List<int[]> blockDocuments = new ArrayList<>();
+
+    // Footer index
+    private final List<Long> blockOffsets = new ArrayList<>();
+    private final List<Integer> blockDocCounts = new ArrayList<>();
+    private int totalDocuments = 0;
+    private long totalTokens = 0;
+    private boolean closed = false;
+
+    public PreprocessedCorpusWriter(Path path) throws IOException {
+        this(path, DEFAULT_BLOCK_SIZE);
+    }
+
+    public PreprocessedCorpusWriter(Path path, int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        this.blockSize = blockSize;
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        position = MAGIC.length + 1;
+    }
+
+    /**
+     * Attach a free-form key/value pair (e.g. tokenizer or stemmer in use)
+     */
+    public void putMetadata(String key, String value) {
+        metadata.put(key, value);
+    }
+
+    /**
+     * Append one document to the corpus
+     */
+    public void write(String category, List<String> documentStems) throws IOException {
+        int[] ids = new int[documentStems.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idOf(documentStems.get(i), stemIds, stems);
+        }
+        blockCategories.add(idOf(category, categoryIds, categories));
+        blockDocuments.add(ids);
+        totalDocuments++;
+        totalTokens += ids.length;
+
+        if (blockDocuments.size() >= blockSize) {
+            flushBlock();
+        }
+    }
+
+    private static int idOf(String value, Map<String, Integer> ids, List<String> values) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockDocuments.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        VarIntCodec.writeVarInt(raw, blockDocuments.size());
+        // Category column
+        for (int categoryId : blockCategories) {
+            VarIntCodec.writeVarInt(raw, categoryId);
+        }
+        // Length column
+        for (int[] ids : blockDocuments) {
+            VarIntCodec.writeVarInt(raw, ids.length);
+        }
+        // Stem id column
+        for (int[] ids : blockDocuments) {
+            for (int id : ids) {
+                VarIntCodec.writeVarInt(raw, id);
+            }
+        }
+
+        blockOffsets.add(position);
+        blockDocCounts.add(blockDocuments.size());
+        writeCompressed(raw.toByteArray());
+
+        blockCategories.clear();
+        blockDocuments.clear();
+    }
+
+    private void writeCompressed(byte[] raw) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                compressed.write(chunk, 0, n);
+            }
+            out.writeInt(raw.length);
+            out.writeInt(compressed.size());
+            compressed.writeTo(out);
+            position += 8 + compressed.size();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+
+            // Dictionary section
+            long dictionaryOffset = position;
+            ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+            VarIntCodec.writeVarInt(dictionary, stems.size());
+            for (String stem : stems) {
+                VarIntCodec.writeString(dictionary, stem);
+            }
+            VarIntCodec.writeVarInt(dictionary, categories.size());
+            for (String category : categories) {
+                VarIntCodec.writeString(dictionary, category);
+            }
+            VarIntCodec.writeVarInt(dictionary, metadata.size());
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                VarIntCodec.writeString(dictionary, entry.getKey());
+                VarIntCodec.writeString(dictionary, entry.getValue());
+            }
+            writeCompressed(dictionary.toByteArray());
+
+            // Footer index
+            ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            VarIntCodec.writeVarInt(footer, blockOffsets.size());
+            for (int i = 0; i < blockOffsets.size(); i++) {
+                VarIntCodec.writeVarLong(footer, blockOffsets.get(i));
+                VarIntCodec.writeVarInt(footer, blockDocCounts.get(i));
+            }
+            VarIntCodec.writeVarLong(footer, dictionaryOffset);
+            VarIntCodec.writeVarInt(footer, totalDocuments);
+            VarIntCodec.writeVarLong(footer, totalTokens);
+            footer.writeTo(out);
+            out.writeInt(footer.size());
+            out.write(MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+
+    public int getDocumentCount() {
+        return totalDocuments;
+    }
+
+    public long getTokenCount() {
+        return totalTokens;
+    }
+
+    public int getDictionarySize() {
+        return stems.size();
+    }
+}
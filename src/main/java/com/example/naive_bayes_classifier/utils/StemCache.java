@@ -0,0 +1,65 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token -> stem memo for the configured stemmer.
+ *
+ * Word frequencies are Zipfian, so a bounded table of the tokens seen first
+ * (training data, warm-up, early traffic) answers almost every lookup; once
+ * full it stops admitting new tokens rather than paying for eviction.
+ */
+public class StemCache {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, String> stems;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StemCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.stems = new ConcurrentHashMap<>(Math.min(maxSize, 1 << 16));
+    }
+
+    /**
+     * Cached stem, or null
+     */
+    public String get(String token) {
+        String stem = stems.get(token);
+        if (stem != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return stem;
+    }
+
+    public void put(String token, String stem) {
+        if (stems.size() < maxSize) {
+            stems.putIfAbsent(token, stem);
+        }
+    }
+
+    public int size() {
+        return stems.size();
+    }
+
+    public void clear() {
+        stems.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", stems.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", lookups - hitCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        return stats;
+    }
+}
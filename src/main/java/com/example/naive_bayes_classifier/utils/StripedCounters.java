@@ -0,0 +1,82 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed set of long counters striped across threads.
+ *
+ * Every thread adds to the stripe picked from its id, so request threads
+ * rarely touch the same cache line; reads sum the stripes. Stripes are
+ * padded to whole cache lines. Updates are lock-free (one atomic add), a
+ * read concurrent with updates sees each counter at some recent value.
+ */
+public class StripedCounters {
+
+    private static final int LONGS_PER_LINE = 8;
+
+    private final int width;
+    private final int stride;
+    private final int mask;
+    private final AtomicLongArray cells;
+
+    /**
+     * @param width number of counters
+     * @param stripes rounded up to a power of two
+     */
+    public StripedCounters(int width, int stripes) {
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.width = width;
+        this.stride = (width + LONGS_PER_LINE - 1) / LONGS_PER_LINE * LONGS_PER_LINE;
+        this.mask = stripes <= 1 ? 0 : count - 1;
+        this.cells = new AtomicLongArray((mask + 1) * stride);
+    }
+
+    /**
+     * One stripe per processor, at most 64
+     */
+    public static int defaultStripes() {
+        return Math.min(64, Runtime.getRuntime().availableProcessors());
+    }
+
+    public void add(int counter, long delta) {
+        cells.getAndAdd(stripe() * stride + counter, delta);
+    }
+
+    public void increment(int counter) {
+        add(counter, 1);
+    }
+
+    public long sum(int counter) {
+        long sum = 0;
+        for (int offset = counter; offset < cells.length(); offset += stride) {
+            sum += cells.get(offset);
+        }
+        return sum;
+    }
+
+    /**
+     * Add every counter into {@code totals} (length >= width)
+     */
+    public void sumInto(long[] totals) {
+        for (int base = 0; base < cells.length(); base += stride) {
+            for (int counter = 0; counter < width; counter++) {
+                totals[counter] += cells.get(base + counter);
+            }
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, 0);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
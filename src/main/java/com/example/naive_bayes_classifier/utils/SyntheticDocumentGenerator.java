@@ -0,0 +1,91 @@
+package com.example.naive_bayes_classifier.utils;
+
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+
+import java.util.*;
+
+/**
+ * Synthetic documents for load testing, drawn from the vocabulary of real
+ * training data.
+ *
+ * Each category keeps its unigram distribution (word -> count), so
+ * generated documents hit the stem cache, the vocabulary and the feature
+ * table the way real traffic of that category does. Words are sampled
+ * independently by binary search over cumulative counts; categories are
+ * picked uniformly.
+ */
+public class SyntheticDocumentGenerator {
+
+    private final List<String> categories = new ArrayList<>();
+    private final List<String[]> words = new ArrayList<>();
+    private final List<long[]> cumulativeCounts = new ArrayList<>();
+    private final Random random;
+
+    /**
+     * @param tokensByCategory raw tokens of the training text of each category
+     */
+    public SyntheticDocumentGenerator(Map<String, List<String>> tokensByCategory, long seed) {
+        this.random = new Random(seed);
+        for (Map.Entry<String, List<String>> entry : new TreeMap<>(tokensByCategory).entrySet()) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (String token : entry.getValue()) {
+                if (!token.isBlank()) {
+                    counts.merge(token, 1, Integer::sum);
+                }
+            }
+            if (counts.isEmpty()) {
+                continue;
+            }
+            String[] vocabulary = new String[counts.size()];
+            long[] cumulative = new long[counts.size()];
+            long total = 0;
+            int i = 0;
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                vocabulary[i] = count.getKey();
+                total += count.getValue();
+                cumulative[i] = total;
+                i++;
+            }
+            categories.add(entry.getKey());
+            words.add(vocabulary);
+            cumulativeCounts.add(cumulative);
+        }
+        if (categories.isEmpty()) {
+            throw new IllegalArgumentException("No vocabulary to generate documents from");
+        }
+    }
+
+    /**
+     * Document of the given number of words in a random category
+     */
+    public TrainingDocument generate(int length) {
+        int category = random.nextInt(categories.size());
+        String[] vocabulary = words.get(category);
+        long[] cumulative = cumulativeCounts.get(category);
+        long total = cumulative[cumulative.length - 1];
+
+        StringBuilder text = new StringBuilder(length * 8);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            long target = (long) (random.nextDouble() * total);
+            int index = Arrays.binarySearch(cumulative, target + 1);
+            text.append(vocabulary[index >= 0 ? index : -index - 1]);
+        }
+        return new TrainingDocument(categories.get(category), text.toString());
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public List<String> getCategories() {
+        return Collections.unmodifiableList(categories);
+    }
+
+    public int getVocabularySize(String category) {
+        int index = categories.indexOf(category);
+        return index < 0 ? 0 : words.get(index).length;
+    }
+}
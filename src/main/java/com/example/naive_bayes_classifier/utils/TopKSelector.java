@@ -0,0 +1,87 @@
+package com.example.naive_bayes_classifier.utils;
+
+/**
+ * Partial selection of the k largest values of an array.
+ *
+ * Keeps a min-heap of k indices, so selecting the top 3 of a few hundred
+ * category scores is O(n log k) with no boxing and no full sort.
+ */
+public final class TopKSelector {
+
+    private TopKSelector() {
+    }
+
+    /**
+     * Indices of the k largest values, largest first (ties keep the lower index first)
+     */
+    public static int[] select(double[] values, int k) {
+        int size = Math.min(Math.max(k, 0), values.length);
+        int[] heap = new int[size];
+        if (size == 0) {
+            return heap;
+        }
+
+        for (int i = 0; i < size; i++) {
+            heap[i] = i;
+            siftUp(heap, i, values);
+        }
+        for (int i = size; i < values.length; i++) {
+            if (less(values, heap[0], i)) {
+                heap[0] = i;
+                siftDown(heap, size, values);
+            }
+        }
+
+        // Drain the min-heap from the back to get descending order
+        int[] result = new int[size];
+        for (int n = size; n > 0; n--) {
+            result[n - 1] = heap[0];
+            heap[0] = heap[n - 1];
+            siftDown(heap, n - 1, values);
+        }
+        return result;
+    }
+
+    /**
+     * Strict "a ranks below b": lower value, or same value and higher index
+     */
+    private static boolean less(double[] values, int a, int b) {
+        return values[a] < values[b] || (values[a] == values[b] && a > b);
+    }
+
+    private static void siftUp(int[] heap, int position, double[] values) {
+        int item = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!less(values, item, heap[parent])) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = item;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] values) {
+        if (size == 0) {
+            return;
+        }
+        int item = heap[0];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(values, heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(values, heap[child], item)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = item;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.naive_bayes_classifier.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LEB128-style variable-length integer encoding used by the corpus format
+ */
+public final class VarIntCodec {
+
+    private VarIntCodec() {}
+
+    /**
+     * Append an unsigned varint (7 bits per byte, high bit = continuation)
+     */
+    public static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    public static void writeVarInt(ByteArrayOutputStream out, int value) {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    public static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Sequential decoder over a byte array
+     */
+    public static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        public Reader(byte[] buffer) {
+            this(buffer, 0);
+        }
+
+        public Reader(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        public long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= buffer.length) {
+                    throw new IllegalStateException("Truncated varint at offset " + position);
+                }
+                byte b = buffer[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+                if (shift > 63) {
+                    throw new IllegalStateException("Malformed varint at offset " + position);
+                }
+            }
+        }
+
+        public int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        public String readString() {
+            int length = readVarInt();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public boolean hasRemaining() {
+            return position < buffer.length;
+        }
+    }
+}
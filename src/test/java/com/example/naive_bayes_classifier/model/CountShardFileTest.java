@@ -0,0 +1,106 @@
+package com.example.naive_bayes_classifier.model;
+
+import com.example.naive_bayes_classifier.scoring.MultinomialScorer;
+import com.example.naive_bayes_classifier.scoring.NaiveBayesScorer;
+import com.example.naive_bayes_classifier.utils.FeatureExtractor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountShardFileTest {
+
+	@TempDir
+	Path directory;
+
+	private static List<PreprocessedDocument> documents(int count, long seed) {
+		Random random = new Random(seed);
+		String[] categories = {"sport", "economy", "culture"};
+		List<PreprocessedDocument> documents = new ArrayList<>();
+		for (int d = 0; d < count; d++) {
+			List<String> stems = new ArrayList<>();
+			for (int i = 5 + random.nextInt(30); i > 0; i--) {
+				stems.add(String.valueOf((char) ('ب' + random.nextInt(15))) + (char) ('ب' + random.nextInt(15)));
+			}
+			documents.add(new PreprocessedDocument(categories[random.nextInt(categories.length)], stems));
+		}
+		return documents;
+	}
+
+	/**
+	 * Counts are additive: merging the shards of a split corpus must give the
+	 * model trained on the whole corpus, for every model mode
+	 */
+	@Test
+	void mergedShardsEqualSingleModel() throws Exception {
+		Map<String, Supplier<AbstractNaiveBayesModel>> modes = new LinkedHashMap<>();
+		modes.put("exact", NaiveBayesModel::new);
+		modes.put("features", () -> new FeatureNaiveBayesModel(FeatureExtractor.fromSpec("w2+c2-3")));
+		modes.put("hashed", () -> new HashedNaiveBayesModel(12, FeatureExtractor.fromSpec("w2")));
+
+		List<PreprocessedDocument> corpus = documents(200, 3);
+		List<PreprocessedDocument> probes = documents(20, 4);
+		NaiveBayesScorer scorer = new MultinomialScorer(1.0);
+
+		for (Map.Entry<String, Supplier<AbstractNaiveBayesModel>> mode : modes.entrySet()) {
+			AbstractNaiveBayesModel whole = mode.getValue().get();
+			AbstractNaiveBayesModel merged = mode.getValue().get();
+			List<Path> shards = new ArrayList<>();
+			for (int shard = 0; shard < 3; shard++) {
+				AbstractNaiveBayesModel counts = mode.getValue().get();
+				counts.setStemmer("LIGHT");
+				for (int i = shard; i < corpus.size(); i += 3) {
+					counts.addDocument(corpus.get(i).getCategory(), corpus.get(i).getStems());
+				}
+				Path file = directory.resolve(mode.getKey() + "-" + shard + ".nbcs");
+				CountShardFile.write(counts, file, Map.of("shardIndex", String.valueOf(shard), "shardCount", "3"));
+				shards.add(file);
+			}
+			for (PreprocessedDocument doc : corpus) {
+				whole.addDocument(doc.getCategory(), doc.getStems());
+			}
+			for (Path file : shards) {
+				Map<String, String> metadata = CountShardFile.mergeInto(merged, file);
+				assertEquals("3", metadata.get("shardCount"));
+				assertEquals("LIGHT", metadata.get("stemmer"));
+			}
+
+			assertEquals(whole.getCategoryDocumentCount(), merged.getCategoryDocumentCount(), mode.getKey());
+			assertEquals(whole.getCategoryTotalWords(), merged.getCategoryTotalWords(), mode.getKey());
+			assertEquals(whole.getFeatureRowCount(), merged.getFeatureRowCount(), mode.getKey());
+			for (PreprocessedDocument probe : probes) {
+				double[] expected = whole.scores(probe.getStems(), scorer);
+				double[] actual = merged.scores(probe.getStems(), scorer);
+				for (int c = 0; c < expected.length; c++) {
+					// Category ids follow first appearance, which may differ between the two models
+					int other = indexOf(merged, whole.getCategoryName(c));
+					assertEquals(expected[c], actual[other], 1e-9, mode.getKey());
+				}
+			}
+		}
+	}
+
+	@Test
+	void rejectsShardOfAnotherMode() throws Exception {
+		AbstractNaiveBayesModel counts = new NaiveBayesModel();
+		counts.addDocument("sport", List.of("فوز", "مباراة"));
+		Path file = directory.resolve("exact.nbcs");
+		CountShardFile.write(counts, file, Map.of());
+
+		AbstractNaiveBayesModel hashed = new HashedNaiveBayesModel(10, FeatureExtractor.unigrams());
+		assertThrows(IllegalArgumentException.class, () -> CountShardFile.mergeInto(hashed, file));
+	}
+
+	private static int indexOf(ClassifierModel model, String category) {
+		for (int c = 0; c < model.getCategoryCount(); c++) {
+			if (model.getCategoryName(c).equals(category)) {
+				return c;
+			}
+		}
+		throw new AssertionError("Missing category " + category);
+	}
+}
@@ -0,0 +1,153 @@
+package com.example.naive_bayes_classifier.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlServiceTest {
+
+	private static AdmissionControlService service(int concurrency, double batchShare) {
+		AdmissionControlService service = new AdmissionControlService();
+		ReflectionTestUtils.setField(service, "enabled", true);
+		ReflectionTestUtils.setField(service, "maxConcurrency", concurrency);
+		ReflectionTestUtils.setField(service, "interactiveQueueSize", 64);
+		ReflectionTestUtils.setField(service, "interactiveTimeoutMs", 10_000L);
+		ReflectionTestUtils.setField(service, "batchQueueSize", 64);
+		ReflectionTestUtils.setField(service, "batchTimeoutMs", 10_000L);
+		ReflectionTestUtils.setField(service, "batchShare", batchShare);
+		ReflectionTestUtils.setField(service, "minConcurrency", 1);
+		service.init();
+		return service;
+	}
+
+	/**
+	 * Mixed interactive and batch traffic through a small limit: with queue
+	 * timeouts far above the total work, no request may time out waiting for
+	 * a slot that was freed while nobody was woken for it
+	 */
+	@Test
+	void mixedTrafficNeverLosesAWakeup() throws Exception {
+		AdmissionControlService service = service(2, 1.0);
+		int threadsPerClass = 6;
+		int requestsPerThread = 20;
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+
+		ExecutorService pool = Executors.newFixedThreadPool(2 * threadsPerClass);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 2 * threadsPerClass; t++) {
+			AdmissionControlService.Priority priority = t % 2 == 0
+					? AdmissionControlService.Priority.INTERACTIVE : AdmissionControlService.Priority.BATCH;
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < requestsPerThread; i++) {
+					service.call(priority, () -> {
+						peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+						try {
+							Thread.sleep(2);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						return running.decrementAndGet();
+					});
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			// Fails with the AdmissionRejectedException of a lost wakeup
+			future.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		Map<String, Object> stats = service.getStats();
+		assertEquals((long) 2 * threadsPerClass * requestsPerThread, stats.get("admitted"));
+		assertEquals(0L, stats.get("queueTimeouts"));
+		assertEquals(0, stats.get("inFlight"));
+		assertEquals(0, stats.get("interactiveQueueDepth"));
+		assertEquals(0, stats.get("batchQueueDepth"));
+		assertTrue(peak.get() <= 2, "limit exceeded: " + peak.get());
+	}
+
+	/**
+	 * Two slots freed back to back while one interactive and two batch
+	 * requests wait: the interactive request takes one, and the batch
+	 * requests must get the other at once, not only when their queue
+	 * timeout fires (or a 429 if interactive work is queued by then)
+	 */
+	@Test
+	void batchGetsSlotFreedAlongsideInteractiveWakeup() throws Exception {
+		AdmissionControlService service = service(2, 1.0);
+		ReflectionTestUtils.setField(service, "batchTimeoutMs", 5_000L);
+		ReentrantLock lock = (ReentrantLock) ReflectionTestUtils.getField(service, "lock");
+		CountDownLatch holding = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch batchDone = new CountDownLatch(1);
+
+		ExecutorService pool = Executors.newCachedThreadPool();
+		List<Future<?>> holders = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			holders.add(pool.submit(() -> service.call(AdmissionControlService.Priority.INTERACTIVE, () -> {
+				holding.countDown();
+				await(release);
+				return null;
+			})));
+		}
+		holding.await();
+		Future<?> interactive = pool.submit(() -> service.call(AdmissionControlService.Priority.INTERACTIVE, () -> {
+			await(batchDone);
+			return null;
+		}));
+		List<Future<?>> batch = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			batch.add(pool.submit(() -> service.call(AdmissionControlService.Priority.BATCH, () -> null)));
+		}
+		while ((int) service.getStats().get("interactiveQueueDepth") < 1
+				|| (int) service.getStats().get("batchQueueDepth") < 2) {
+			Thread.sleep(1);
+		}
+
+		// Both releases queue up on the lock before the woken waiter can run
+		lock.lock();
+		try {
+			release.countDown();
+			while (lock.getQueueLength() < 2) {
+				Thread.sleep(1);
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			// Well within the batch queue timeout
+			for (Future<?> future : batch) {
+				future.get(2, TimeUnit.SECONDS);
+			}
+			batchDone.countDown();
+			interactive.get(10, TimeUnit.SECONDS);
+			for (Future<?> future : holders) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			batchDone.countDown();
+			pool.shutdownNow();
+		}
+		assertEquals(0L, service.getStats().get("queueTimeouts"));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
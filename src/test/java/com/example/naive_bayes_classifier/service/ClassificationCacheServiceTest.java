@@ -0,0 +1,93 @@
+package com.example.naive_bayes_classifier.service;
+
+import com.example.naive_bayes_classifier.model.ClassificationResult;
+import com.example.naive_bayes_classifier.model.TermContribution;
+import com.example.naive_bayes_classifier.model.TrainingDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "classifier.cache.enabled=true")
+class ClassificationCacheServiceTest {
+
+	@Autowired
+	private NaiveBayesService naiveBayesService;
+
+	@Autowired
+	private ClassificationCacheService cacheService;
+
+	@Autowired
+	private DriftMonitoringService driftMonitoringService;
+
+	/**
+	 * The cache key includes the explanation size, so a hit must carry the
+	 * same explanation as the result that was stored
+	 */
+	@Test
+	void cachedResultKeepsExplanationAndOrder() {
+		naiveBayesService.train(List.of(
+				new TrainingDocument("sport", "فاز الفريق في المباراة النهائية وسجل اللاعب هدفين في الملعب"),
+				new TrainingDocument("sport", "المدرب يختار اللاعبين للمباراة القادمة في البطولة"),
+				new TrainingDocument("economy", "ارتفعت أسعار النفط في الأسواق العالمية وتراجع الدولار"),
+				new TrainingDocument("economy", "البنك المركزي يرفع سعر الفائدة لمواجهة التضخم في الأسواق")));
+
+		String text = "سجل اللاعب هدفا في المباراة رغم تراجع الأسواق";
+		long hits = (long) cacheService.getStats().get("hits");
+		ClassificationResult computed = naiveBayesService.classify(text, null, 0, 5);
+		ClassificationResult cached = naiveBayesService.classify(text, null, 0, 5);
+
+		assertEquals(hits + 1, (long) cacheService.getStats().get("hits"));
+		assertNotNull(computed.getExplanation());
+		assertEquals(computed.getExplainedAgainst(), cached.getExplainedAgainst());
+		assertEquals(terms(computed.getExplanation()), terms(cached.getExplanation()));
+		assertEquals(new ArrayList<>(computed.getProbabilities().keySet()),
+				new ArrayList<>(cached.getProbabilities().keySet()));
+	}
+
+	/**
+	 * Cache hits are live traffic: drift monitoring counts them like the
+	 * first, computed classification, out-of-vocabulary stems included
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	void cacheHitsAreRecordedByDriftMonitoring() {
+		naiveBayesService.train(List.of(
+				new TrainingDocument("sport", "فاز الفريق في المباراة النهائية وسجل اللاعب هدفين في الملعب"),
+				new TrainingDocument("economy", "ارتفعت أسعار النفط في الأسواق العالمية وتراجع الدولار")));
+
+		String text = "سجل اللاعب هدفا في المباراة أمام جمهور غفير في العاصمة";
+		ClassificationResult computed = naiveBayesService.classify(text);
+		naiveBayesService.classify(text);
+
+		Map<String, Object> view = ((List<Map<String, Object>>) driftMonitoringService.getViews(3600).get("views")).get(0);
+		assertEquals(2L, view.get("documents"));
+		assertEquals(2L * computed.getTotalTokens(), view.get("stems"));
+		long oov = (long) view.get("oovStems");
+		assertTrue(oov > 0 && oov % 2 == 0, "oovStems " + oov);
+	}
+
+	/**
+	 * Keys are digests of the text exactly as given (already normalized by
+	 * the pipeline): no folding of their own, and one per variant
+	 */
+	@Test
+	void keysFollowExactTextAndVariant() {
+		assertEquals(cacheService.key("فاز الفريق", "multinomial"), cacheService.key("فاز الفريق", "multinomial"));
+		assertNotEquals(cacheService.key("فاز الفريق", "multinomial"), cacheService.key("فاز  الفريق", "multinomial"));
+		assertNotEquals(cacheService.key("Goal", "multinomial"), cacheService.key("goal", "multinomial"));
+		assertNotEquals(cacheService.key("فاز الفريق", "multinomial"), cacheService.key("فاز الفريق", "complement"));
+		assertEquals(cacheService.key("", "multinomial"), cacheService.key("", "multinomial"));
+	}
+
+	private static List<String> terms(List<TermContribution> explanation) {
+		List<String> terms = new ArrayList<>();
+		for (TermContribution contribution : explanation) {
+			terms.add(contribution.getTerm() + "=" + contribution.getContribution());
+		}
+		return terms;
+	}
+}
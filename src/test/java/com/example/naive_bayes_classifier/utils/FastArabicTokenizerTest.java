@@ -0,0 +1,67 @@
+package com.example.naive_bayes_classifier.utils;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import safar.util.tokenization.impl.SAFARTokenizer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastArabicTokenizerTest {
+
+	private static List<String> corpus;
+
+	@BeforeAll
+	static void loadCorpus() throws IOException {
+		try (Stream<Path> files = Files.list(Paths.get("Data"))) {
+			corpus = new ArrayList<>();
+			for (Path path : files.filter(p -> p.toString().endsWith(".txt")).sorted().collect(Collectors.toList())) {
+				corpus.add(Files.readString(path, StandardCharsets.UTF_8));
+			}
+		}
+		assertFalse(corpus.isEmpty(), "Data/ corpus is required for the parity test");
+	}
+
+	/**
+	 * SAFAR may emit punctuation as tokens; the native tokenizer drops it,
+	 * so only tokens containing a letter or digit are compared
+	 */
+	private static List<String> wordTokens(String[] tokens) {
+		List<String> words = new ArrayList<>();
+		for (String token : tokens) {
+			if (token.codePoints().anyMatch(Character::isLetterOrDigit)) {
+				words.add(token);
+			}
+		}
+		return words;
+	}
+
+	@Test
+	void matchesSafarOnSampleCorpus() throws Exception {
+		SAFARTokenizer safar = new SAFARTokenizer();
+		FastArabicTokenizer fast = new FastArabicTokenizer();
+
+		for (String text : corpus) {
+			assertEquals(wordTokens(safar.tokenize(text)), fast.tokenize(text));
+		}
+	}
+
+	@Test
+	void spansPointIntoOriginalText() {
+		String text = "الأسواقُ العالمية، 2024 (تقلبات)";
+		FastArabicTokenizer.Spans spans = new FastArabicTokenizer.Spans();
+		int count = new FastArabicTokenizer().tokenize(text, spans);
+
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			tokens.add(text.substring(spans.start(i), spans.end(i)));
+		}
+		assertEquals(List.of("الأسواقُ", "العالمية", "2024", "تقلبات"), tokens);
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.naive_bayes_classifier.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeatureExtractorTest {
+
+	private static List<String> document(int length, long seed) {
+		Random random = new Random(seed);
+		List<String> stems = new ArrayList<>();
+		for (int i = 0; i < length; i++) {
+			// Stems of 1 to 6 letters, so that short ones have fewer character n-grams
+			StringBuilder stem = new StringBuilder();
+			for (int j = random.nextInt(6); j >= 0; j--) {
+				stem.append((char) ('ب' + random.nextInt(20)));
+			}
+			stems.add(stem.toString());
+		}
+		return stems;
+	}
+
+	/**
+	 * Segment classification scores windows from the features of the whole
+	 * document; they must be exactly the features of the window on its own
+	 */
+	@Test
+	void windowPositionsSelectTheFeaturesOfTheWindow() {
+		List<String> stems = document(120, 7);
+		for (String spec : List.of("w1", "w2", "w3", "w1+c3-5", "w3+c2-4")) {
+			FeatureExtractor extractor = FeatureExtractor.fromSpec(spec);
+			long[] features = extractor.extract(stems);
+			for (int start = 0; start < stems.size(); start += 13) {
+				for (int end = start + 1; end <= stems.size(); end += 17) {
+					int[] positions = extractor.windowPositions(stems, start, end);
+					long[] picked = new long[positions.length];
+					for (int i = 0; i < positions.length; i++) {
+						picked[i] = features[positions[i]];
+					}
+					assertArrayEquals(extractor.extract(stems.subList(start, end)), picked,
+							spec + " window [" + start + ", " + end + ")");
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.naive_bayes_classifier.utils;
+
+import com.example.naive_bayes_classifier.model.PreprocessedDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreprocessedCorpusTest {
+
+	@TempDir
+	Path directory;
+
+	/**
+	 * Documents come back identical, in order, whether streamed or read by
+	 * index, across several blocks (including a last partial one)
+	 */
+	@Test
+	void roundTripsDocumentsAndMetadata() throws Exception {
+		Random random = new Random(11);
+		List<PreprocessedDocument> documents = new ArrayList<>();
+		for (int d = 0; d < 50; d++) {
+			List<String> stems = new ArrayList<>();
+			for (int i = random.nextInt(40); i > 0; i--) {
+				stems.add("جذر" + random.nextInt(500));
+			}
+			documents.add(new PreprocessedDocument(d % 3 == 0 ? "sport" : "economy", stems));
+		}
+
+		Path file = directory.resolve("corpus.nbpc");
+		try (PreprocessedCorpusWriter writer = new PreprocessedCorpusWriter(file, 8)) {
+			writer.putMetadata("stemmer", "LIGHT");
+			for (PreprocessedDocument doc : documents) {
+				writer.write(doc.getCategory(), doc.getStems());
+			}
+		}
+
+		try (PreprocessedCorpusReader reader = PreprocessedCorpusReader.open(file)) {
+			assertEquals(documents.size(), reader.getDocumentCount());
+			assertEquals(documents.stream().mapToLong(doc -> doc.getStems().size()).sum(), reader.getTokenCount());
+			assertEquals("LIGHT", reader.getMetadata().get("stemmer"));
+			assertEquals(Set.of("sport", "economy"), new HashSet<>(reader.getCategories()));
+
+			int index = 0;
+			for (PreprocessedDocument doc : reader) {
+				assertEquals(documents.get(index).getCategory(), doc.getCategory());
+				assertEquals(documents.get(index).getStems(), doc.getStems());
+				index++;
+			}
+			assertEquals(documents.size(), index);
+
+			for (int i : new int[] {49, 0, 17, 8, 7}) {
+				assertEquals(documents.get(i).getStems(), reader.readDocument(i).getStems());
+				assertEquals(documents.get(i).getCategory(), reader.readDocument(i).getCategory());
+			}
+		}
+	}
+}